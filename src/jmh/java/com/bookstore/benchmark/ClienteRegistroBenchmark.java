@@ -0,0 +1,94 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.BookstoreApplication;
+import com.bookstore.dto.AltaClientes;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.Cliente;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.service.ClienteService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// altas de clientes por segundo contra H2 embebida, con CLIENTES_INICIALES ya registrados:
+//   consultaPrevia: findByEmail + save (el camino anterior, dos idas a la BD)
+//   insertarDirecto: ClienteService.saveCliente (INSERT y la restricción única decide)
+//   altaMasiva: ClienteService.saveClientes en lotes de LOTE con un DUPLICADOS_POR_LOTE repetidos
+//   (el filtro de Bloom deja pasar sin consulta los nuevos; los posibles duplicados se confirman juntos)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClienteRegistroBenchmark {
+    private static final int CLIENTES_INICIALES = 10_000;
+    private static final int LOTE = 100;
+    private static final int DUPLICADOS_POR_LOTE = 10;
+
+    private ConfigurableApplicationContext context;
+    private ClienteService clienteService;
+    private ClienteRepository clienteRepository;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:registro;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        clienteService = context.getBean(ClienteService.class);
+        clienteRepository = context.getBean(ClienteRepository.class);
+        List<Object[]> filas = new ArrayList<>(CLIENTES_INICIALES);
+        for (int i = 0; i < CLIENTES_INICIALES; i++) filas.add(new Object[]{"Inicial " + i, "inicial" + i + "@test.com"});
+        context.getBean(JdbcTemplate.class).batchUpdate("insert into clientes (nombre, email) values (?, ?)", filas);
+        clienteService.cargarEmails();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Cliente consultaPrevia() {
+        Cliente cliente = nuevo();
+        if (clienteRepository.findByEmail(cliente.getEmail()).isPresent()) throw BadRequestException.EMAIL_DUPLICADO;
+        return clienteRepository.save(cliente);
+    }
+
+    @Benchmark
+    public Cliente insertarDirecto() {
+        return clienteService.saveCliente(nuevo());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public AltaClientes altaMasiva() {
+        List<Cliente> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < DUPLICADOS_POR_LOTE; i++) {
+            int existente = ThreadLocalRandom.current().nextInt(CLIENTES_INICIALES);
+            lote.add(new Cliente("Repetido", "inicial" + existente + "@test.com"));
+        }
+        while (lote.size() < LOTE) lote.add(nuevo());
+        return clienteService.saveClientes(lote);
+    }
+
+    private Cliente nuevo() {
+        long n = secuencia.incrementAndGet();
+        return new Cliente("Cliente " + n, "nuevo" + n + "@test.com");
+    }
+}
@@ -0,0 +1,117 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.dto.VentaPagina;
+import com.bookstore.dto.VentaResumen;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// listados grandes en JSON, Smile y CBOR, con y sin gzip (nivel por defecto, el de Tomcat):
+//   libros: GET /api/books
+//   ventas: POST /api/ventas/batch (entidades; clientes y libros repetidos se escriben como id)
+//   ventasResumen / ventasReferencias: GET /api/ventas y GET /api/ventas?referencias=true
+// El tiempo es el de serializar (y comprimir); los bytes de cada cuerpo se imprimen al preparar el estado
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatoRespuestaBenchmark {
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"json", "smile", "cbor"})
+    public String formato;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private List<Book> books;
+    private List<Venta> ventas;
+    private List<VentaResumen> resumen;
+    private VentaPagina referencias;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (formato) {
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            default -> new ObjectMapper();
+        };
+        objectMapper.findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        // catálogo de 500 libros y 200 clientes: en una página de ventas se repiten
+        List<Cliente> clientes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Cliente cliente = new Cliente("Cliente " + i, "cliente" + i + "@mail.com");
+            cliente.setId((long) i);
+            clientes.add(cliente);
+        }
+        List<Book> catalogo = new ArrayList<>();
+        for (int i = 0; i < Math.max(size, 500); i++) {
+            Book book = new Book("Libro " + i, "Autor " + (i % 50), Dinero.centavos(1000 + 100L * (i % 90)), i % 40);
+            book.setId((long) i);
+            catalogo.add(book);
+        }
+        books = catalogo.subList(0, size);
+        ventas = new ArrayList<>(size);
+        resumen = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Cliente cliente = clientes.get(i * 7 % clientes.size());
+            Book book = catalogo.get(i * 13 % 500);
+            Venta venta = new Venta(cliente, book, 1 + i % 3);
+            ventas.add(venta);
+            resumen.add(new VentaResumen((long) i, venta.getFecha(), venta.getCantidad(),
+                    cliente.getId(), cliente.getNombre(), book.getId(), book.getTitle()));
+        }
+        referencias = VentaPagina.de(resumen);
+
+        System.out.printf("%n%s gzip=%s size=%d bytes: libros=%d ventas=%d ventasResumen=%d ventasReferencias=%d%n",
+                formato, gzip, size, escribir(books).length, escribir(ventas).length,
+                escribir(resumen).length, escribir(referencias).length);
+    }
+
+    private byte[] escribir(Object valor) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes) {
+            objectMapper.writeValue(out, valor);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] libros() throws IOException {
+        return escribir(books);
+    }
+
+    @Benchmark
+    public byte[] ventas() throws IOException {
+        return escribir(ventas);
+    }
+
+    @Benchmark
+    public byte[] ventasResumen() throws IOException {
+        return escribir(resumen);
+    }
+
+    @Benchmark
+    public byte[] ventasReferencias() throws IOException {
+        return escribir(referencias);
+    }
+}
@@ -0,0 +1,83 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.BookstoreApplication;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.service.ShardedStockService;
+import com.bookstore.service.VentaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// todas las ventas sobre el mismo libro: una sola fila de stock (shards = 0) contra el stock repartido
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotStockBenchmark {
+    @Param({"0", "16"})
+    public int shards;
+
+    private ConfigurableApplicationContext context;
+    private VentaService ventaService;
+    private Long clienteId;
+    private Long libroId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:hotstock;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.datasource.hikari.maximum-pool-size=64",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        ventaService = context.getBean(VentaService.class);
+        Cliente cliente = context.getBean(ClienteRepository.class).save(new Cliente("Bench", "bench@test.com"));
+        Book libro = context.getBean(BookRepository.class).save(new Book("Lanzamiento", "Autor", Dinero.of("10.0"), Integer.MAX_VALUE));
+        if (shards > 0) context.getBean(ShardedStockService.class).repartir(libro.getId(), shards);
+        clienteId = cliente.getId();
+        libroId = libro.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Venta hilos01() {
+        return ventaService.registrarVenta(clienteId, libroId, 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Venta hilos04() {
+        return ventaService.registrarVenta(clienteId, libroId, 1);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Venta hilos16() {
+        return ventaService.registrarVenta(clienteId, libroId, 1);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Venta hilos64() {
+        return ventaService.registrarVenta(clienteId, libroId, 1);
+    }
+}
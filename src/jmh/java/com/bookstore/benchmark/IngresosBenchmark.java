@@ -0,0 +1,84 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.model.Dinero;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// ingreso total de VENTAS ventas (cantidad x precio unitario) según cómo se guarda el importe:
+//   centavosLong: long[] de centavos y acumulador long (lo que usan Venta y SalesStatsService)
+//   centavosBoxed: los mismos centavos como List<Long> y stream (boxing por elemento)
+//   dineroRecord: Dinero.por/mas por venta (el tipo de valor de los bordes, no para acumular)
+//   doubleRedondeado: double[] de precios y acumulador double, redondeado a centavos al final
+//   bigDecimal: BigDecimal.multiply/add, exacto pero con un objeto por operación
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngresosBenchmark {
+    private static final int VENTAS = 1_000_000;
+
+    private int[] cantidades;
+    private long[] precioCentavos;
+    private List<Long> precioCentavosBoxed;
+    private double[] precioDouble;
+    private BigDecimal[] precioBigDecimal;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        cantidades = new int[VENTAS];
+        precioCentavos = new long[VENTAS];
+        precioCentavosBoxed = new ArrayList<>(VENTAS);
+        precioDouble = new double[VENTAS];
+        precioBigDecimal = new BigDecimal[VENTAS];
+        for (int i = 0; i < VENTAS; i++) {
+            cantidades[i] = 1 + random.nextInt(5);
+            long centavos = 99 + random.nextInt(10_000);
+            precioCentavos[i] = centavos;
+            precioCentavosBoxed.add(centavos);
+            precioDouble[i] = centavos / 100.0;
+            precioBigDecimal[i] = BigDecimal.valueOf(centavos, 2);
+        }
+    }
+
+    @Benchmark
+    public long centavosLong() {
+        long total = 0;
+        for (int i = 0; i < VENTAS; i++) total += precioCentavos[i] * cantidades[i];
+        return total;
+    }
+
+    @Benchmark
+    public long centavosBoxed() {
+        int[] i = {0};
+        return precioCentavosBoxed.stream().reduce(0L, (total, precio) -> total + precio * cantidades[i[0]++]);
+    }
+
+    @Benchmark
+    public Dinero dineroRecord() {
+        Dinero total = Dinero.CERO;
+        for (int i = 0; i < VENTAS; i++) total = total.mas(Dinero.centavos(precioCentavos[i]).por(cantidades[i]));
+        return total;
+    }
+
+    @Benchmark
+    public long doubleRedondeado() {
+        double total = 0;
+        for (int i = 0; i < VENTAS; i++) total += precioDouble[i] * cantidades[i];
+        return Math.round(total * 100);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < VENTAS; i++) total = total.add(precioBigDecimal[i].multiply(BigDecimal.valueOf(cantidades[i])));
+        return total;
+    }
+}
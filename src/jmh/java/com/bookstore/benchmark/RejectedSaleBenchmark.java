@@ -0,0 +1,83 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.exception.ApiError;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.GlobalExceptionHandler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+// coste de una venta rechazada por stock: lanzar la excepción a "profundidad" marcos de pila
+// (una petición real pasa por Tomcat, filtros, Spring MVC, proxies y transacción) y resolverla
+// en el manejador de errores.
+//   conTraza: RuntimeException con pila + manejador que decide por el texto del mensaje (antes)
+//   sinTraza: BadRequestException sin pila + manejador tipado con cuerpo ApiError
+//   preasignada: excepción de mensaje fijo reutilizada (BadRequestException.CANTIDAD_INVALIDA)
+// mvn -Pbenchmark verify -Djmh.args="RejectedSaleBenchmark -prof gc"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RejectedSaleBenchmark {
+    private static final String TITULO = "Clean Code";
+
+    @Param({"20", "150"})
+    public int profundidad;
+
+    private GlobalExceptionHandler handler;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler();
+        request = new MockHttpServletRequest("POST", "/api/ventas");
+    }
+
+    @Benchmark
+    public ResponseEntity<String> conTraza() {
+        try {
+            rechazar(profundidad, 0);
+            return null;
+        } catch (RuntimeException ex) {
+            // GlobalExceptionHandler.handleRuntimeException anterior
+            if (ex.getMessage().contains("no encontrado")) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+            }
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> sinTraza() {
+        try {
+            rechazar(profundidad, 1);
+            return null;
+        } catch (BadRequestException ex) {
+            return handler.handleBadRequest(ex, request);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> preasignada() {
+        try {
+            rechazar(profundidad, 2);
+            return null;
+        } catch (BadRequestException ex) {
+            return handler.handleBadRequest(ex, request);
+        }
+    }
+
+    private static int rechazar(int marcos, int tipo) {
+        if (marcos > 0) return rechazar(marcos - 1, tipo) + 1;
+        throw switch (tipo) {
+            case 0 -> new RuntimeException("Stock insuficiente para el libro: " + TITULO);
+            case 1 -> new BadRequestException("Stock insuficiente para el libro: " + TITULO);
+            default -> BadRequestException.CANTIDAD_INVALIDA;
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.dto.VentaResumen;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// serialización Jackson de listados completos de libros y ventas (entidad anidada vs fila plana)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({"100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Book> books;
+    private List<Venta> ventas;
+    private List<VentaResumen> resumen;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        books = new ArrayList<>(size);
+        ventas = new ArrayList<>(size);
+        resumen = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Book book = new Book("Libro " + i, "Autor " + (i % 50), Dinero.centavos(1000 + 100L * i), i);
+            book.setId((long) i);
+            Cliente cliente = new Cliente("Cliente " + (i % 100), "cliente" + (i % 100) + "@mail.com");
+            cliente.setId((long) (i % 100));
+            Venta venta = new Venta(cliente, book, 1 + i % 3);
+            books.add(book);
+            ventas.add(venta);
+            resumen.add(new VentaResumen((long) i, venta.getFecha(), venta.getCantidad(),
+                    cliente.getId(), cliente.getNombre(), book.getId(), book.getTitle()));
+        }
+    }
+
+    @Benchmark
+    public byte[] books() throws Exception {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] ventas() throws Exception {
+        return objectMapper.writeValueAsBytes(ventas);
+    }
+
+    @Benchmark
+    public byte[] ventasResumen() throws Exception {
+        return objectMapper.writeValueAsBytes(resumen);
+    }
+}
@@ -0,0 +1,46 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import com.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// BookService.validateBook: camino válido y camino rechazado (precio inválido)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+    private BookService bookService;
+    private Book valido;
+    private Book precioInvalido;
+
+    @Setup
+    public void setUp() {
+        // la validación no usa repositorio, caché ni índice
+        bookService = new BookService(null, null, null, null, null, null);
+        valido = new Book("Clean Code", "Robert C. Martin", Dinero.of("45.0"), 10);
+        precioInvalido = new Book("Clean Code", "Robert C. Martin", Dinero.of("-1.0"), 10);
+    }
+
+    @Benchmark
+    public Book validBook() {
+        bookService.validateBook(valido);
+        return valido;
+    }
+
+    @Benchmark
+    public BadRequestException invalidPrice() {
+        try {
+            bookService.validateBook(precioInvalido);
+            return null;
+        } catch (BadRequestException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.BookstoreApplication;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.service.VentaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// VentaService.registrarVenta completo (transacción, reserva de stock e INSERT) contra H2 embebida
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VentaBenchmark {
+    private ConfigurableApplicationContext context;
+    private VentaService ventaService;
+    private Long clienteId;
+    private Long libroId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        ventaService = context.getBean(VentaService.class);
+        Cliente cliente = context.getBean(ClienteRepository.class).save(new Cliente("Bench", "bench@test.com"));
+        Book libro = context.getBean(BookRepository.class).save(new Book("Bench", "Autor", Dinero.of("10.0"), Integer.MAX_VALUE));
+        clienteId = cliente.getId();
+        libroId = libro.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Venta registrarVenta() {
+        return ventaService.registrarVenta(clienteId, libroId, 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Venta registrarVentaHotSku4Threads() {
+        return ventaService.registrarVenta(clienteId, libroId, 1);
+    }
+}
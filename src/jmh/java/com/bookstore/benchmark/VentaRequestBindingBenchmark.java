@@ -0,0 +1,97 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.controller.VentaController;
+import com.bookstore.dto.BookRequest;
+import com.bookstore.dto.VentaRequest;
+import com.bookstore.ingest.VentaIngestService;
+import com.bookstore.model.Book;
+import com.bookstore.model.Venta;
+import com.bookstore.service.VentaService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// parseo de los bodies de POST /api/ventas y POST /api/books. Para ver bytes/op:
+// mvn -Pbenchmark verify -Djmh.args="VentaRequestBindingBenchmark -prof gc"
+//   mapBody / bookEntity: binding anterior (Map + conversiones, entidad Book por reflexión)
+//   beanRecord: record con el deserializador genérico de Jackson
+//   streamingRecord / bookRequest: records con deserializador en streaming
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VentaRequestBindingBenchmark {
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {};
+    private static final byte[] BODY = "{ \"clienteId\":1001, \"libroId\":2002, \"cantidad\":1 }".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BOOK = "{ \"title\":\"Clean Code\", \"author\":\"Robert C. Martin\", \"price\":45.0, \"stock\":10 }"
+            .getBytes(StandardCharsets.UTF_8);
+
+    // desactiva el deserializador propio para medir el binding genérico de Jackson
+    @JsonDeserialize(using = JsonDeserializer.None.class)
+    private interface SinDeserializadorPropio {}
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper genericMapper;
+    private VentaController controller;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        genericMapper = new ObjectMapper().addMixIn(VentaRequest.class, SinDeserializadorPropio.class);
+        Venta venta = new Venta();
+        // servicio sin base de datos: solo interesa el coste del binding en el controlador
+        VentaService ventaService = new VentaService(null, null, null, null, null, null, null) {
+            @Override
+            public Venta registrarVenta(Long clienteId, Long libroId, int cantidad) {
+                return venta;
+            }
+        };
+        VentaIngestService sincrono = new VentaIngestService(null, null, null, null, null, null, null, null,
+                false, "ventas.log", 1, 1, false);
+        controller = new VentaController(ventaService, null, sincrono);
+    }
+
+    // lo que hacía VentaController.create antes de recibir un VentaRequest
+    @Benchmark
+    public Object[] mapBody() throws Exception {
+        Map<String, Object> body = objectMapper.readValue(BODY, MAP);
+        Long clienteId = Long.valueOf(String.valueOf(body.get("clienteId")));
+        Long libroId = Long.valueOf(String.valueOf(body.get("libroId")));
+        int cantidad = Integer.parseInt(String.valueOf(body.get("cantidad")));
+        return new Object[]{clienteId, libroId, cantidad};
+    }
+
+    @Benchmark
+    public VentaRequest beanRecord() throws Exception {
+        return genericMapper.readValue(BODY, VentaRequest.class);
+    }
+
+    @Benchmark
+    public VentaRequest streamingRecord() throws Exception {
+        return objectMapper.readValue(BODY, VentaRequest.class);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> controllerCreate() throws Exception {
+        return controller.create(objectMapper.readValue(BODY, VentaRequest.class));
+    }
+
+    @Benchmark
+    public Book bookEntity() throws Exception {
+        return objectMapper.readValue(BOOK, Book.class);
+    }
+
+    @Benchmark
+    public Book bookRequest() throws Exception {
+        return objectMapper.readValue(BOOK, BookRequest.class).toBook();
+    }
+}
@@ -0,0 +1,81 @@
+package com.bookstore.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Límite adaptativo de operaciones en curso (AIMD). Mientras las operaciones terminan por debajo de la
+ * latencia objetivo el límite sube de a uno por cada "límite" operaciones (+1/límite en cada una), solo si
+ * se está usando. Cuando una tarda más o falla por sobrecarga se multiplica por "reduccion", como mucho
+ * una vez por ventana de latencia objetivo: las que estaban en curso durante el pico terminan todas lentas
+ * y no deben contar como pico varias veces.
+ * Por encima del límite la operación se rechaza al instante en lugar de esperar una conexión del pool:
+ * el límite se estabiliza cerca de la concurrencia que la base atiende sin que crezca la latencia.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final int minimo;
+    private final int maximo;
+    private final long objetivoNanos;
+    private final double reduccion;
+    private final LongSupplier reloj;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private volatile int limiteEntero;
+    // protegidos por this
+    private double limite;
+    private long ultimaReduccion;
+
+    public AdaptiveConcurrencyLimiter(int inicial, int minimo, int maximo, Duration latenciaObjetivo, double reduccion) {
+        this(inicial, minimo, maximo, latenciaObjetivo, reduccion, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int inicial, int minimo, int maximo, Duration latenciaObjetivo, double reduccion,
+                               LongSupplier reloj) {
+        if (minimo < 1 || maximo < minimo || inicial < minimo || inicial > maximo) {
+            throw new IllegalArgumentException("Se requiere 1 <= minima <= inicial <= maxima");
+        }
+        if (reduccion <= 0 || reduccion >= 1) throw new IllegalArgumentException("reduccion debe estar entre 0 y 1");
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.objetivoNanos = latenciaObjetivo.toNanos();
+        this.reduccion = reduccion;
+        this.reloj = reloj;
+        this.limite = inicial;
+        this.limiteEntero = inicial;
+        this.ultimaReduccion = reloj.getAsLong() - objetivoNanos;
+    }
+
+    // true si hay lugar; en ese caso se debe llamar a liberar al terminar
+    public boolean adquirir() {
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= limiteEntero) return false;
+            if (enCurso.compareAndSet(actual, actual + 1)) return true;
+        }
+    }
+
+    // inicio: reloj al adquirir (inicio()); sobrecarga: la operación falló por falta de recursos (5xx)
+    public void liberar(long inicio, boolean sobrecarga) {
+        long ahora = reloj.getAsLong();
+        int enVuelo = enCurso.getAndDecrement();
+        ajustar(ahora - inicio, sobrecarga, enVuelo, ahora);
+    }
+
+    public long inicio() { return reloj.getAsLong(); }
+
+    private synchronized void ajustar(long duracion, boolean sobrecarga, int enVuelo, long ahora) {
+        if (sobrecarga || duracion > objetivoNanos) {
+            if (ahora - ultimaReduccion < objetivoNanos) return;
+            ultimaReduccion = ahora;
+            limite = Math.max(minimo, limite * reduccion);
+        } else if (enVuelo * 2 >= limiteEntero) {
+            limite = Math.min(maximo, limite + 1 / limite);
+        }
+        limiteEntero = (int) limite;
+    }
+
+    public int getLimite() { return limiteEntero; }
+
+    public int getEnCurso() { return enCurso.get(); }
+}
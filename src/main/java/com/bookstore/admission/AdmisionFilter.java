@@ -0,0 +1,141 @@
+package com.bookstore.admission;
+
+import com.bookstore.exception.ApiError;
+import com.bookstore.metrics.BookstoreMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Admisión de escrituras (POST, PUT, PATCH y DELETE en /api/**), antes de leer el cuerpo y de pedir una
+ * conexión: la sobrecarga se rechaza en el acto en lugar de encolarse en Tomcat y en el pool.
+ * - Ritmo por cliente (TokenBucketLimiter): la IP de la conexión. La cabecera bookstore.admision.cliente-header
+ *   solo cuenta si la conexión viene de bookstore.admision.proxies-confiables (el proxy que autentica al cliente
+ *   y la escribe); de cualquier otro origen se ignora: cambiarla no da una cuota nueva ni gasta la de otro.
+ *   Pasado su ritmo: 429 con Retry-After hasta la próxima ficha.
+ * - Ventas en curso (POST /api/ventas y /api/ventas/batch, AdaptiveConcurrencyLimiter), con la latencia de
+ *   cada venta y las respuestas 5xx como señal. Con el límite completo: 503 con Retry-After.
+ * Métricas: bookstore.admision.rechazos (motivo), bookstore.admision.concurrencia.* y bookstore.admision.clientes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmisionFilter extends OncePerRequestFilter {
+    static final String RUTA_VENTAS = "/api/ventas";
+    static final String RUTA_VENTAS_LOTE = "/api/ventas/batch";
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String clienteHeader;
+    private final Set<String> proxiesConfiables;
+    private final TokenBucketLimiter ritmo;
+    private final AdaptiveConcurrencyLimiter concurrencia;
+
+    @Autowired
+    public AdmisionFilter(ObjectMapper objectMapper,
+                          @Value("${bookstore.admision.enabled:true}") boolean enabled,
+                          @Value("${bookstore.admision.cliente-header:X-Client-Id}") String clienteHeader,
+                          @Value("${bookstore.admision.proxies-confiables:}") Set<String> proxiesConfiables,
+                          @Value("${bookstore.admision.por-segundo:100}") double porSegundo,
+                          @Value("${bookstore.admision.rafaga:200}") int rafaga,
+                          @Value("${bookstore.admision.concurrencia.inicial:20}") int inicial,
+                          @Value("${bookstore.admision.concurrencia.minima:2}") int minima,
+                          @Value("${bookstore.admision.concurrencia.maxima:200}") int maxima,
+                          @Value("${bookstore.admision.concurrencia.latencia-objetivo:250ms}") Duration latenciaObjetivo,
+                          @Value("${bookstore.admision.concurrencia.reduccion:0.75}") double reduccion) {
+        this(objectMapper, enabled, clienteHeader, proxiesConfiables, new TokenBucketLimiter(porSegundo, rafaga),
+                new AdaptiveConcurrencyLimiter(inicial, minima, maxima, latenciaObjetivo, reduccion));
+    }
+
+    AdmisionFilter(ObjectMapper objectMapper, boolean enabled, String clienteHeader, Set<String> proxiesConfiables,
+                   TokenBucketLimiter ritmo, AdaptiveConcurrencyLimiter concurrencia) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.clienteHeader = clienteHeader;
+        this.proxiesConfiables = Set.copyOf(proxiesConfiables);
+        this.ritmo = ritmo;
+        this.concurrencia = concurrencia;
+        if (enabled) {
+            BookstoreMetrics.admision(concurrencia, AdaptiveConcurrencyLimiter::getLimite,
+                    AdaptiveConcurrencyLimiter::getEnCurso, ritmo, TokenBucketLimiter::clientes);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !request.getRequestURI().startsWith("/api/")) return true;
+        String metodo = request.getMethod();
+        return "GET".equals(metodo) || "HEAD".equals(metodo) || "OPTIONS".equals(metodo);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long espera = ritmo.intentar(cliente(request));
+        if (espera > 0) {
+            BookstoreMetrics.admisionRechazada("ritmo");
+            rechazar(request, response, HttpStatus.TOO_MANY_REQUESTS, "DEMASIADAS_SOLICITUDES",
+                    "Demasiadas solicitudes de este cliente, reintente más tarde", Math.ceilDiv(espera, NANOS_POR_SEGUNDO));
+            return;
+        }
+        if (!esVenta(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencia.adquirir()) {
+            BookstoreMetrics.admisionRechazada("concurrencia");
+            rechazar(request, response, HttpStatus.SERVICE_UNAVAILABLE, "SERVICIO_NO_DISPONIBLE",
+                    "Demasiadas ventas en curso, reintente más tarde", 1);
+            return;
+        }
+        long inicio = concurrencia.inicio();
+        boolean sobrecarga = true;
+        try {
+            chain.doFilter(request, response);
+            sobrecarga = response.getStatus() >= 500;
+        } finally {
+            concurrencia.liberar(inicio, sobrecarga);
+        }
+    }
+
+    // regla: la cabecera solo identifica al cliente si la escribió un proxy confiable; si no, cuenta la IP
+    private String cliente(HttpServletRequest request) {
+        String ip = request.getRemoteAddr();
+        if (!proxiesConfiables.contains(ip)) return ip;
+        String cliente = request.getHeader(clienteHeader);
+        // con prefijo: un id de cliente no puede coincidir con la IP de otro
+        return cliente == null || cliente.isBlank() ? ip : "id:" + cliente;
+    }
+
+    private static boolean esVenta(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return "POST".equals(request.getMethod()) && (RUTA_VENTAS.equals(uri) || RUTA_VENTAS_LOTE.equals(uri));
+    }
+
+    private void rechazar(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String codigo,
+                          String mensaje, long reintentarSegundos) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, reintentarSegundos)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ApiError(status.value(), codigo, mensaje, request.getRequestURI(), Instant.now()));
+    }
+
+    AdaptiveConcurrencyLimiter getConcurrencia() { return concurrencia; }
+}
@@ -0,0 +1,73 @@
+package com.bookstore.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Ritmo de peticiones por cliente (token bucket): cada cliente tiene un cubo de "rafaga" fichas que se
+ * rellena a "porSegundo" fichas por segundo y cada petición gasta una. Un cliente que supera su ritmo
+ * se rechaza sin llegar a los servicios; el resto no lo nota.
+ * Un cubo sin uso durante rafaga / porSegundo ya está lleno: se descarta (es lo mismo que uno nuevo),
+ * así que la memoria depende de los clientes activos y no de todos los que alguna vez llamaron.
+ */
+public class TokenBucketLimiter {
+    private static final int MAX_CLIENTES = 100_000;
+
+    private final double fichasPorNano;
+    private final double rafaga;
+    private final LongSupplier reloj;
+    private final Cache<String, Cubo> cubos;
+
+    public TokenBucketLimiter(double porSegundo, int rafaga) {
+        this(porSegundo, rafaga, System::nanoTime);
+    }
+
+    TokenBucketLimiter(double porSegundo, int rafaga, LongSupplier reloj) {
+        if (porSegundo <= 0 || rafaga < 1) {
+            throw new IllegalArgumentException("por-segundo debe ser > 0 y rafaga >= 1");
+        }
+        this.fichasPorNano = porSegundo / 1_000_000_000.0;
+        this.rafaga = rafaga;
+        this.reloj = reloj;
+        long llenado = (long) Math.ceil(rafaga / porSegundo * 1000);
+        this.cubos = Caffeine.newBuilder()
+                .maximumSize(MAX_CLIENTES)
+                .expireAfterAccess(Duration.ofMillis(Math.max(1000, llenado)))
+                .build();
+    }
+
+    // 0 si la petición se admite (y gasta una ficha); si no, nanosegundos hasta que haya una
+    public long intentar(String cliente) {
+        long ahora = reloj.getAsLong();
+        Cubo cubo = cubos.getIfPresent(cliente);
+        if (cubo == null) cubo = cubos.get(cliente, c -> new Cubo(rafaga, ahora));
+        return cubo.intentar(ahora, fichasPorNano, rafaga);
+    }
+
+    public long clientes() { return cubos.estimatedSize(); }
+
+    private static final class Cubo {
+        private double fichas;
+        private long ultimaRecarga;
+
+        Cubo(double fichas, long ahora) {
+            this.fichas = fichas;
+            this.ultimaRecarga = ahora;
+        }
+
+        synchronized long intentar(long ahora, double fichasPorNano, double rafaga) {
+            if (ahora > ultimaRecarga) {
+                fichas = Math.min(rafaga, fichas + (ahora - ultimaRecarga) * fichasPorNano);
+                ultimaRecarga = ahora;
+            }
+            if (fichas >= 1) {
+                fichas -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - fichas) / fichasPorNano);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bookstore.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre cadenas. puedeContener() == false asegura que el valor nunca se agregó;
+ * true puede ser un falso positivo, con probabilidad cercana a fpp mientras no se superen las
+ * inserciones esperadas. No admite borrados.
+ * Los índices salen de un hash de 64 bits por doble hashing (h1 + i * h2); los bits se activan
+ * sobre un AtomicLongArray, así que agregar y consultar desde varios hilos es seguro.
+ */
+public final class BloomFilter {
+    private static final double LN2 = Math.log(2);
+    private static final int MAX_PALABRAS = Integer.MAX_VALUE - 8;
+
+    private final AtomicLongArray palabras;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long esperados, double fpp) {
+        if (esperados <= 0) throw new IllegalArgumentException("esperados debe ser mayor que 0");
+        if (!(fpp > 0 && fpp < 1)) throw new IllegalArgumentException("fpp debe estar entre 0 y 1");
+        long bits = (long) Math.ceil(-esperados * Math.log(fpp) / (LN2 * LN2));
+        int numPalabras = (int) Math.min(MAX_PALABRAS, Math.max(1, (bits + 63) / 64));
+        this.palabras = new AtomicLongArray(numPalabras);
+        this.numBits = (long) numPalabras * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / esperados * LN2));
+    }
+
+    public void agregar(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long indice = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            int palabra = (int) (indice >>> 6);
+            long mascara = 1L << indice;
+            // sin escritura si el bit ya está: los valores repetidos no ensucian la línea de caché
+            if ((palabras.get(palabra) & mascara) == 0) palabras.getAndAccumulate(palabra, mascara, (a, b) -> a | b);
+        }
+    }
+
+    public boolean puedeContener(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long indice = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            if ((palabras.get((int) (indice >>> 6)) & (1L << indice)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long bits() { return numBits; }
+
+    public int funcionesHash() { return numHashes; }
+
+    // FNV-1a sobre los caracteres, con el mezclado final de MurmurHash3 para repartir los bits altos
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
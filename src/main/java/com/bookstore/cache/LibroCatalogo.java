@@ -0,0 +1,21 @@
+package com.bookstore.cache;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+
+// datos de catálogo de un libro (cambian poco); el stock se cachea aparte
+public record LibroCatalogo(Long id, String title, String author, long priceCentavos, int stockShards, long version) {
+
+    public static LibroCatalogo of(Long id, Book book) {
+        return new LibroCatalogo(id, book.getTitle(), book.getAuthor(), book.getPriceCentavos(), book.getStockShards(),
+                book.getVersion());
+    }
+
+    public Book toBook(int stock) {
+        Book book = new Book(title, author, Dinero.centavos(priceCentavos), stock);
+        book.setId(id);
+        book.setStockShards(stockShards);
+        book.setVersion(version);
+        return book;
+    }
+}
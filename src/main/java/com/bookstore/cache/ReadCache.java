@@ -0,0 +1,146 @@
+package com.bookstore.cache;
+
+import com.bookstore.model.Cliente;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Caché en memoria (acotada por tamaño y TTL) para las lecturas por id de libros y clientes.
+ * El catálogo del libro y su stock van en cachés separadas: el stock tiene un TTL corto y
+ * se invalida en cada descuento. La venta nunca lee de aquí, siempre va a la base de datos.
+ * Cada invalidación de un libro avanza también las versiones de las que salen las ETag del catálogo:
+ * una global (listados) y una por franja de ids (un libro). Son de esta instancia, como la caché:
+ * con varias instancias un cambio hecho en otra no cambia las ETag de esta.
+ * Lo leído de la base se guarda con la generación tomada antes de leer: si una invalidación llegó
+ * mientras tanto, el valor puede ser anterior al cambio y se descarta.
+ */
+@Component
+public class ReadCache implements MeterBinder {
+    private static final int FRANJAS_VERSION = 4096;
+
+    private final Cache<Long, LibroCatalogo> libros;
+    private final Cache<Long, Integer> stock;
+    private final Cache<Long, Cliente> clientes;
+    // prefijo aleatorio: una ETag emitida antes de reiniciar no coincide con las nuevas aunque
+    // los contadores vuelvan a empezar
+    private final String epoca = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong versionCatalogo = new AtomicLong();
+    private final AtomicLongArray versionLibros = new AtomicLongArray(FRANJAS_VERSION);
+    // avanza al empezar cada invalidación de un libro (antes de quitarlo), por franja como las versiones
+    private final AtomicLongArray generaciones = new AtomicLongArray(FRANJAS_VERSION);
+
+    public ReadCache(@Value("${bookstore.cache.max-size:10000}") long maxSize,
+                     @Value("${bookstore.cache.catalogo-ttl:10m}") Duration catalogoTtl,
+                     @Value("${bookstore.cache.stock-ttl:5s}") Duration stockTtl) {
+        this.libros = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(catalogoTtl).recordStats().build();
+        this.stock = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(stockTtl).recordStats().build();
+        this.clientes = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(catalogoTtl).recordStats().build();
+    }
+
+    public LibroCatalogo getLibro(Long id) { return libros.getIfPresent(id); }
+
+    public Integer getStock(Long id) { return stock.getIfPresent(id); }
+
+    // se toma antes de leer el libro de la base y se pasa al guardarlo en la caché
+    public long generacion(Long id) { return generaciones.get(franja(id)); }
+
+    // regla: se guarda y después se comprueba la generación. Si avanzó, la lectura pudo ser anterior a un
+    // cambio y se quita lo guardado; si avanza después, la invalidación en curso todavía no lo quitó y lo quitará
+    public void putLibro(LibroCatalogo libro, int stockActual, long generacion) {
+        libros.put(libro.id(), libro);
+        stock.put(libro.id(), stockActual);
+        if (generacion(libro.id()) != generacion) {
+            libros.asMap().remove(libro.id(), libro);
+            stock.asMap().remove(libro.id(), stockActual);
+        }
+    }
+
+    public void putStock(Long id, int stockActual, long generacion) {
+        stock.put(id, stockActual);
+        if (generacion(id) != generacion) stock.asMap().remove(id, stockActual);
+    }
+
+    public void evictLibro(Long id) {
+        invalidar(() -> {
+            generaciones.incrementAndGet(franja(id));
+            libros.invalidate(id);
+            stock.invalidate(id);
+            avanzarVersion(id);
+        });
+    }
+
+    public void evictStock(Long id) {
+        invalidar(() -> {
+            generaciones.incrementAndGet(franja(id));
+            stock.invalidate(id);
+            avanzarVersion(id);
+        });
+    }
+
+    // ETag fuerte de GET /api/books/{id}; dos libros de la misma franja comparten versión
+    // (un cambio en uno solo obliga al otro a volver a pedir el cuerpo)
+    public String etagLibro(Long id) {
+        return "\"" + epoca + "-" + Long.toHexString(versionLibros.get(franja(id))) + "\"";
+    }
+
+    // ETag fuerte de los listados: cambia con cualquier alta, baja, edición o cambio de stock
+    public String etagCatalogo() {
+        return "\"" + epoca + "-c" + Long.toHexString(versionCatalogo.get()) + "\"";
+    }
+
+    private void avanzarVersion(Long id) {
+        versionLibros.incrementAndGet(franja(id));
+        versionCatalogo.incrementAndGet();
+    }
+
+    private static int franja(Long id) {
+        return (int) (Long.hashCode(id) & (FRANJAS_VERSION - 1));
+    }
+
+    // se guardan copias: la entidad devuelta al llamador puede modificarse sin tocar la caché
+    public Cliente getCliente(Long id) {
+        Cliente cliente = clientes.getIfPresent(id);
+        return cliente == null ? null : copia(cliente);
+    }
+
+    public void putCliente(Long id, Cliente cliente) { clientes.put(id, copia(cliente)); }
+
+    public void evictCliente(Long id) { invalidar(() -> clientes.invalidate(id)); }
+
+    // invalida ya y, si hay transacción en curso, otra vez tras el commit para que
+    // una lectura concurrente no deje en caché el valor anterior al cambio
+    private void invalidar(Runnable invalidacion) {
+        invalidacion.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { invalidacion.run(); }
+            });
+        }
+    }
+
+    private static Cliente copia(Cliente cliente) {
+        Cliente copia = new Cliente(cliente.getNombre(), cliente.getEmail());
+        copia.setId(cliente.getId());
+        return copia;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, libros, "libros");
+        CaffeineCacheMetrics.monitor(registry, stock, "stockLibros");
+        CaffeineCacheMetrics.monitor(registry, clientes, "clientes");
+    }
+}
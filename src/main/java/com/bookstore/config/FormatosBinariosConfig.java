@@ -0,0 +1,48 @@
+package com.bookstore.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Respuestas en CBOR (Accept: application/cbor) y Smile (Accept: application/x-jackson-smile) además de JSON.
+ * Spring MVC ya registra ambos conversores al encontrar los módulos de Jackson, pero con un ObjectMapper
+ * propio; aquí se reemplazan por otros creados con el builder de Spring Boot para que las fechas, los
+ * módulos y las opciones spring.jackson.* sean las mismas que en JSON. JSON sigue primero: sin Accept
+ * o si acepta cualquier tipo la respuesta no cambia.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FormatosBinariosConfig implements WebMvcConfigurer {
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+    public FormatosBinariosConfig(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        this.builders = builders;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // el builder de Spring Boot es prototype: cada getObject() da uno nuevo con los customizers aplicados
+        reemplazar(converters, MappingJackson2CborHttpMessageConverter.class,
+                new MappingJackson2CborHttpMessageConverter(builders.getObject().factory(new CBORFactory()).build()));
+        reemplazar(converters, MappingJackson2SmileHttpMessageConverter.class,
+                new MappingJackson2SmileHttpMessageConverter(builders.getObject().factory(new SmileFactory()).build()));
+    }
+
+    private static void reemplazar(List<HttpMessageConverter<?>> converters, Class<?> tipo, HttpMessageConverter<?> nuevo) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (tipo.isInstance(converters.get(i))) {
+                converters.set(i, nuevo);
+                return;
+            }
+        }
+        converters.add(nuevo);
+    }
+}
@@ -0,0 +1,66 @@
+package com.bookstore.config;
+
+import com.bookstore.metrics.SlowAcquireMetricsTrackerFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Ajustes del pool Hikari que no se pueden expresar como propiedades fijas:
+ * - bookstore.datasource.pool-size-per-core > 0: tamaño = núcleos * pool-size-per-core + pool-size-extra,
+ *   con minimum-idle igual al máximo (pool fijo, sin crear conexiones bajo carga).
+ *   Un pool más grande que lo que la base puede ejecutar a la vez solo agrega espera y cambios de contexto.
+ * - bookstore.datasource.slow-acquire-threshold > 0: avisa cuando obtener una conexión supera el umbral.
+ * Se aplica tras el binding de spring.datasource.hikari.* y antes de que el pool arranque (primera conexión).
+ */
+@Component
+public class HikariPoolTuning implements BeanPostProcessor, Ordered {
+    private static final Logger log = LoggerFactory.getLogger(HikariPoolTuning.class);
+
+    private final int porNucleo;
+    private final int extra;
+    private final Duration umbralAdquisicion;
+
+    public HikariPoolTuning(@Value("${bookstore.datasource.pool-size-per-core:0}") int porNucleo,
+                            @Value("${bookstore.datasource.pool-size-extra:1}") int extra,
+                            @Value("${bookstore.datasource.slow-acquire-threshold:0ms}") Duration umbralAdquisicion) {
+        this.porNucleo = porNucleo;
+        this.extra = extra;
+        this.umbralAdquisicion = umbralAdquisicion;
+    }
+
+    static int tamanoPool(int nucleos, int porNucleo, int extra) {
+        return Math.max(2, nucleos * porNucleo + extra);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource dataSource)) return bean;
+        if (porNucleo > 0) {
+            int tamano = tamanoPool(Runtime.getRuntime().availableProcessors(), porNucleo, extra);
+            dataSource.setMaximumPoolSize(tamano);
+            dataSource.setMinimumIdle(tamano);
+            log.info("Pool {}: {} conexiones ({} núcleos x {} + {})", dataSource.getPoolName(), tamano,
+                    Runtime.getRuntime().availableProcessors(), porNucleo, extra);
+        }
+        // Spring Boot solo instala sus métricas si no hay otro tracker: se publican las mismas
+        // hikaricp.* en el registro global, al que Boot agrega el de Prometheus
+        if (!umbralAdquisicion.isZero() && dataSource.getMetricsTrackerFactory() == null
+                && dataSource.getMetricRegistry() == null) {
+            dataSource.setMetricsTrackerFactory(new SlowAcquireMetricsTrackerFactory(
+                    new MicrometerMetricsTrackerFactory(Metrics.globalRegistry), umbralAdquisicion));
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() { return Ordered.LOWEST_PRECEDENCE; }
+}
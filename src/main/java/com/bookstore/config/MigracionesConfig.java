@@ -0,0 +1,30 @@
+package com.bookstore.config;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Las migraciones corren al arrancar, antes de que Hibernate valide nada. Con el modo AOT la decisión de
+ * crear el bean de Flyway queda tomada en el build (spring.flyway.enabled ya no se lee al arrancar), así que
+ * el arranque de entrenamiento de CDS, que no tiene base de datos, las omite con bookstore.flyway.migrar=false.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MigracionesConfig {
+    private static final Logger log = LoggerFactory.getLogger(MigracionesConfig.class);
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${bookstore.flyway.migrar:true}") boolean migrar) {
+        return flyway -> {
+            if (migrar) {
+                flyway.migrate();
+            } else {
+                log.warn("Migraciones omitidas (bookstore.flyway.migrar=false)");
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.bookstore.config;
+
+import com.bookstore.metrics.BookstoreMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecturas a réplicas: se activa con bookstore.datasource.replica.urls.
+ * Las transacciones readOnly (servicios con @Transactional(readOnly = true) y los métodos de lectura
+ * heredados de JpaRepository fuera de otra transacción) usan una conexión de ReplicaRoutingDataSource;
+ * el resto, la primaria de spring.datasource.*.
+ * La conexión física se pide al ejecutar la primera sentencia (LazyConnectionDataSourceProxy), cuando ya se
+ * sabe si la transacción es de solo lectura. Con open-in-view esa conexión se retiene hasta el fin de la
+ * petición: una petición que lee y después escribe debe hacerlo dentro de una única transacción de escritura.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "bookstore.datasource.replica", name = "urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // cada réplica copia la configuración del pool primario (tamaño, opciones del driver) con su propia URL
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${bookstore.datasource.replica.urls}") List<String> urls,
+            @Value("${bookstore.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${bookstore.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${bookstore.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${bookstore.datasource.replica.max-lag:5s}") Duration maxRetraso) {
+        List<DataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            if (replica.getMetricsTrackerFactory() == null && replica.getMetricRegistry() == null) {
+                replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(Metrics.globalRegistry));
+            }
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, lagQuery, maxRetraso);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new DelegatingDataSource(primaryDataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                BookstoreMetrics.rutaDataSource("lectura_escritura", "primaria");
+                return super.getConnection();
+            }
+        });
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,140 @@
+package com.bookstore.config;
+
+import com.bookstore.metrics.BookstoreMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Origen de las conexiones de solo lectura: reparte entre las réplicas disponibles (round robin)
+ * y usa la primaria si ninguna está sana o todas superan el retraso máximo.
+ * El estado de cada réplica lo actualiza comprobar() cada bookstore.datasource.replica.check-interval-ms.
+ * El retraso se mide con lagQuery (segundos, una fila y una columna); sin consulta solo se comprueba la conexión.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final int TIMEOUT_COMPROBACION_SEGUNDOS = 2;
+
+    private final DataSource primaria;
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final double maxRetrasoSegundos;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primaria, List<DataSource> replicas, String lagQuery, Duration maxRetraso) {
+        this.primaria = primaria;
+        this.replicas = IntStream.range(0, replicas.size())
+                .mapToObj(i -> new Replica("replica-" + i, replicas.get(i)))
+                .toList();
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.maxRetrasoSegundos = maxRetraso.toMillis() / 1000.0;
+        for (Replica replica : this.replicas) {
+            BookstoreMetrics.replica(replica.nombre, replica, r -> r.sana ? 1 : 0, r -> r.retrasoSegundos);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conectar(DataSource::getConnection);
+    }
+
+    // la misma ruta, con las credenciales que pida quien llama (cada pool decide si las admite)
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return conectar(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection conectar(Conexion conexion) throws SQLException {
+        int n = replicas.size();
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica replica = replicas.get((inicio + i) % n);
+            if (!replica.utilizable(maxRetrasoSegundos)) continue;
+            try {
+                Connection connection = conexion.abrir(replica.dataSource);
+                BookstoreMetrics.rutaDataSource("solo_lectura", replica.nombre);
+                return connection;
+            } catch (SQLException e) {
+                // se descarta hasta la próxima comprobación que la encuentre sana
+                marcarCaida(replica, e);
+            }
+        }
+        BookstoreMetrics.rutaDataSource("solo_lectura", "primaria");
+        return conexion.abrir(primaria);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+
+    // regla: una réplica vuelve a usarse solo cuando responde y su retraso está dentro del máximo
+    @Scheduled(fixedDelayString = "${bookstore.datasource.replica.check-interval-ms:5000}")
+    public void comprobar() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(TIMEOUT_COMPROBACION_SEGUNDOS)) throw new SQLException("Conexión no válida");
+                replica.retrasoSegundos = lagQuery == null ? 0 : retraso(connection);
+                if (!replica.sana) log.info("Réplica {} disponible de nuevo", replica.nombre);
+                replica.sana = true;
+                if (replica.retrasoSegundos > maxRetrasoSegundos) {
+                    log.warn("Réplica {} con {} s de retraso: las lecturas van a la primaria",
+                            replica.nombre, replica.retrasoSegundos);
+                }
+            } catch (SQLException e) {
+                marcarCaida(replica, e);
+            }
+        }
+    }
+
+    private double retraso(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(TIMEOUT_COMPROBACION_SEGUNDOS);
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                // sin fila o NULL (p. ej. la replicación está detenida) se considera retraso desconocido
+                if (!rs.next()) return Double.POSITIVE_INFINITY;
+                double segundos = rs.getDouble(1);
+                return rs.wasNull() ? Double.POSITIVE_INFINITY : segundos;
+            }
+        }
+    }
+
+    private void marcarCaida(Replica replica, SQLException e) {
+        if (replica.sana) log.warn("Réplica {} no disponible: {}", replica.nombre, e.getMessage());
+        replica.sana = false;
+    }
+
+    @FunctionalInterface
+    private interface Conexion {
+        Connection abrir(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+        final String nombre;
+        final DataSource dataSource;
+        volatile boolean sana = true;
+        volatile double retrasoSegundos;
+
+        Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+
+        boolean utilizable(double maxRetrasoSegundos) {
+            return sana && retrasoSegundos <= maxRetrasoSegundos;
+        }
+    }
+}
@@ -1,30 +1,146 @@
 package com.bookstore.controller;
 
+import com.bookstore.dto.BookRequest;
+import com.bookstore.dto.ImportProgress;
+import com.bookstore.events.CambiosCatalogo;
 import com.bookstore.model.Book;
+import com.bookstore.search.BookSearchResult;
+import com.bookstore.service.BookImportService;
 import com.bookstore.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final CambiosCatalogo cambiosCatalogo;
+    private final ObjectMapper objectMapper;
+    private final CacheControl cacheControl;
 
-    public BookController(BookService bookService) { this.bookService = bookService; }
+    public BookController(BookService bookService, BookImportService bookImportService, CambiosCatalogo cambiosCatalogo,
+                          ObjectMapper objectMapper,
+                          @Value("${bookstore.http.catalog-max-age:0s}") Duration catalogMaxAge) {
+        this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.cambiosCatalogo = cambiosCatalogo;
+        this.objectMapper = objectMapper;
+        // sin max-age los clientes y la CDN guardan la respuesta pero la revalidan siempre (If-None-Match)
+        this.cacheControl = (catalogMaxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(catalogMaxAge))
+                .cachePublic();
+    }
+
+    private <T> ResponseEntity<T> noModificado(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT).build();
+    }
 
     @PostMapping
-    public ResponseEntity<Book> create(@RequestBody Book book) {
-        return ResponseEntity.ok(bookService.saveBook(book));
+    public ResponseEntity<Book> create(@RequestBody BookRequest book) {
+        return ResponseEntity.ok(bookService.saveBook(book.toBook(), book.version() != null));
     }
 
+    // ejemplo: GET /api/books?after=120&size=50 -> la siguiente página viene en X-Next-Cursor
     @GetMapping
-    public List<Book> listAll() { return bookService.getAllBooks(); }
+    public ResponseEntity<List<Book>> listAll(@RequestParam(defaultValue = "0") long after,
+                                              @RequestParam(defaultValue = "" + BookService.DEFAULT_PAGE_SIZE) int size,
+                                              WebRequest request) {
+        // regla: la ETag se obtiene antes de leer los datos; si el cliente ya tiene esa versión, 304 sin ir a la BD
+        // débil: Tomcat no comprime respuestas con ETag fuerte, y el listado sin comprimir y con gzip es el mismo
+        String etag = "W/" + Formatos.etag(bookService.etagCatalogo(), request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(etag)) return noModificado(etag);
+        List<Book> page = bookService.getPage(after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT);
+        if (page.size() == Math.min(size, BookService.MAX_PAGE_SIZE)) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
+    }
+
+    // catálogo completo en NDJSON: una línea por libro, escrita a medida que se lee
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                bookService.streamAll(book -> {
+                    try {
+                        writer.write(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // cambios de precio, stock y bajas (server-sent events); al reconectar, Last-Event-ID o ?desde= con la última seq
+    // sin lugar para otro suscriptor: 503 sin cuerpo (quien pide text/event-stream no acepta el JSON de error)
+    @GetMapping(path = "/cambios", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> cambios(@RequestHeader(name = "Last-Event-ID", required = false) Long ultimo,
+                                              @RequestParam(required = false) Long desde) {
+        return cambiosCatalogo.suscribir(ultimo != null ? ultimo : desde)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5").build());
+    }
+
+    // ejemplo: GET /api/books/search?q=garcia marquez&limit=10
+    @GetMapping("/search")
+    public List<BookSearchResult> search(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return bookService.search(q, limit);
+    }
+
+    // importación masiva: el cuerpo se procesa en streaming; ?id= permite seguir el progreso
+    // con GET /api/books/import/{id} mientras la carga está en curso
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public ImportProgress importCsv(@RequestParam(required = false) String id, InputStream body) {
+        return bookImportService.importar(id, BookImportService.Formato.CSV, body);
+    }
+
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportProgress importNdjson(@RequestParam(required = false) String id, InputStream body) {
+        return bookImportService.importar(id, BookImportService.Formato.NDJSON, body);
+    }
+
+    @GetMapping("/import")
+    public List<ImportProgress> listImports() { return bookImportService.getImportaciones(); }
+
+    @GetMapping("/import/{id}")
+    public ImportProgress getImport(@PathVariable String id) { return bookImportService.getProgreso(id); }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Book> get(@PathVariable Long id) {
-        return ResponseEntity.ok(bookService.getById(id));
+    public ResponseEntity<Book> get(@PathVariable Long id, WebRequest request) {
+        String etag = Formatos.etag(bookService.etagLibro(id), request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(etag)) return noModificado(etag);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT)
+                .body(bookService.getById(id));
+    }
+
+    // stock repartido para un libro muy vendido: shards = 0 lo vuelve a una sola fila
+    @PutMapping("/{id}/stock-shards")
+    public ResponseEntity<Book> repartirStock(@PathVariable Long id, @RequestParam int shards) {
+        return ResponseEntity.ok(bookService.repartirStock(id, shards));
     }
 
     @DeleteMapping("/{id}")
@@ -32,4 +148,4 @@ public class BookController {
         bookService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.bookstore.controller;
 
+import com.bookstore.dto.AltaClientes;
 import com.bookstore.model.Cliente;
 import com.bookstore.service.ClienteService;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +20,12 @@ public class ClienteController {
         return ResponseEntity.ok(clienteService.saveCliente(cliente));
     }
 
+    // alta masiva (hasta ClienteService.MAX_ALTAS por petición): informa creados, duplicados e inválidos
+    @PostMapping("/import")
+    public ResponseEntity<AltaClientes> importar(@RequestBody List<Cliente> clientes) {
+        return ResponseEntity.ok(clienteService.saveClientes(clientes));
+    }
+
     @GetMapping
     public List<Cliente> listAll() { return clienteService.getAllClientes(); }
 
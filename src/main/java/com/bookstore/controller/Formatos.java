@@ -0,0 +1,42 @@
+package com.bookstore.controller;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+// representación que elegirá la negociación de contenido según Accept (el mismo orden que los conversores:
+// JSON, después CBOR y Smile). Una misma versión del catálogo en JSON y en CBOR son cuerpos distintos:
+// la ETag lleva el formato para que un If-None-Match de uno no valide el cuerpo del otro
+final class Formatos {
+    static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    private Formatos() {}
+
+    static String negociado(String accept) {
+        if (accept == null || accept.isBlank()) return "json";
+        String formato = "json";
+        double mejor = -1;
+        try {
+            for (MediaType tipo : MediaType.parseMediaTypes(accept)) {
+                double calidad = tipo.getQualityValue();
+                if (calidad <= mejor) continue;
+                String candidato = tipo.includes(MediaType.APPLICATION_JSON) ? "json"
+                        : tipo.includes(MediaType.APPLICATION_CBOR) ? "cbor"
+                        : tipo.includes(SMILE) ? "smile" : null;
+                if (candidato != null) {
+                    formato = candidato;
+                    mejor = calidad;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Spring responde 406 al escribir el cuerpo
+        }
+        return formato;
+    }
+
+    // "abc-c5" -> "abc-c5+cbor"; en JSON la ETag no cambia
+    static String etag(String etag, String accept) {
+        String formato = negociado(accept);
+        if (formato.equals("json")) return etag;
+        return etag.substring(0, etag.length() - 1) + "+" + formato + "\"";
+    }
+}
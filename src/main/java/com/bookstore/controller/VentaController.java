@@ -1,34 +1,105 @@
 package com.bookstore.controller;
 
+import com.bookstore.dto.VentaEncolada;
+import com.bookstore.dto.VentaPagina;
+import com.bookstore.dto.VentaRequest;
+import com.bookstore.dto.VentaResumen;
+import com.bookstore.dto.VentaStats;
+import com.bookstore.ingest.VentaIngestService;
 import com.bookstore.model.Venta;
+import com.bookstore.service.SalesStatsService;
 import com.bookstore.service.VentaService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/ventas")
 public class VentaController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final VentaService ventaService;
+    private final SalesStatsService salesStatsService;
+    private final VentaIngestService ventaIngestService;
 
-    public VentaController(VentaService ventaService) { this.ventaService = ventaService; }
+    public VentaController(VentaService ventaService, SalesStatsService salesStatsService,
+                           VentaIngestService ventaIngestService) {
+        this.ventaService = ventaService;
+        this.salesStatsService = salesStatsService;
+        this.ventaIngestService = ventaIngestService;
+    }
 
     // ejemplo de body: { "clienteId":1, "libroId":2, "cantidad":1 }
+    // en modo asíncrono responde 202 con el id en la cola (ver GET /api/ventas/cola/{id})
     @PostMapping
-    public ResponseEntity<Venta> create(@RequestBody Map<String, Object> body) {
-        Long clienteId = Long.valueOf(String.valueOf(body.get("clienteId")));
-        Long libroId = Long.valueOf(String.valueOf(body.get("libroId")));
-        int cantidad = Integer.parseInt(String.valueOf(body.get("cantidad")));
-        return ResponseEntity.ok(ventaService.registrarVenta(clienteId, libroId, cantidad));
+    public ResponseEntity<?> create(@RequestBody VentaRequest venta) {
+        if (ventaIngestService.isEnabled()) {
+            VentaEncolada encolada = ventaIngestService.encolar(venta.clienteId(), venta.libroId(), venta.cantidad());
+            return ResponseEntity.accepted().location(URI.create("/api/ventas/cola/" + encolada.id())).body(encolada);
+        }
+        return ResponseEntity.ok(ventaService.registrarVenta(venta.clienteId(), venta.libroId(), venta.cantidad()));
+    }
+
+    @GetMapping("/cola/{id}")
+    public VentaEncolada estadoEncolada(@PathVariable long id) {
+        return ventaIngestService.getEstado(id);
     }
 
+    // ejemplo de body: [ { "clienteId":1, "libroId":2, "cantidad":1 }, ... ]
+    @PostMapping("/batch")
+    public ResponseEntity<List<Venta>> createBatch(@RequestBody List<VentaRequest> lineas) {
+        return ResponseEntity.ok(ventaService.registrarVentas(lineas));
+    }
+
+    // ejemplo: GET /api/ventas?clienteId=1&from=2025-01-01&to=2025-01-31&size=50
+    // -> la siguiente página viene en X-Next-Cursor (pasarla como ?after=)
+    // con referencias=true cada cliente y libro de la página aparece una vez (ver VentaPagina)
     @GetMapping
-    public List<Venta> listAll() { return ventaService.getAllVentas(); }
+    public ResponseEntity<?> listAll(@RequestParam(required = false) Long clienteId,
+                                     @RequestParam(required = false) Long libroId,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                     @RequestParam(required = false) String after,
+                                     @RequestParam(defaultValue = "" + VentaService.DEFAULT_PAGE_SIZE) int size,
+                                     @RequestParam(defaultValue = "false") boolean referencias) {
+        List<VentaResumen> page = ventaService.getHistorial(clienteId, libroId, from, to, after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == Math.min(size, VentaService.MAX_PAGE_SIZE)) {
+            response.header(NEXT_CURSOR_HEADER, VentaService.cursor(page.get(page.size() - 1)));
+        }
+        return referencias ? response.body(VentaPagina.de(page)) : response.body(page);
+    }
 
     @GetMapping("/{id}")
     public ResponseEntity<Venta> get(@PathVariable Long id) {
         return ResponseEntity.ok(ventaService.getById(id));
     }
-}
\ No newline at end of file
+
+    // estadísticas servidas desde los agregados en memoria (no recorren la tabla de ventas)
+    @GetMapping("/stats/top-libros")
+    public List<VentaStats.TopLibro> topLibros(@RequestParam(defaultValue = "10") int n) {
+        return salesStatsService.topLibros(n);
+    }
+
+    // ejemplo: /api/ventas/stats/ingresos?desde=2025-01-01&hasta=2025-01-31
+    @GetMapping("/stats/ingresos")
+    public List<VentaStats.IngresoDiario> ingresos(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return salesStatsService.ingresosPorDia(desde, hasta);
+    }
+
+    @GetMapping("/stats/clientes/{id}")
+    public VentaStats.TotalCliente totalCliente(@PathVariable Long id) {
+        return salesStatsService.totalCliente(id);
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Void> rebuild() {
+        salesStatsService.reconstruir();
+        return ResponseEntity.noContent().build();
+    }
+}
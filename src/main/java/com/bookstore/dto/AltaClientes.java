@@ -0,0 +1,6 @@
+package com.bookstore.dto;
+
+import java.util.List;
+
+// resultado de un alta masiva de clientes: los duplicados (en la BD o repetidos en la petición) no se insertan
+public record AltaClientes(int creados, List<String> duplicados, int invalidos) {}
@@ -0,0 +1,53 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+// ejemplo: { "title":"Clean Code", "author":"Robert C. Martin", "price":45.0, "stock":10 }
+// (id y version opcionales: si viene id, se actualiza ese libro, y con version solo si nadie lo cambió desde entonces; price con a lo sumo dos decimales, se guarda en centavos)
+@JsonDeserialize(using = BookRequest.Deserializer.class)
+public record BookRequest(Long id, String title, String author, long priceCentavos, int stock, Long version) {
+
+    public Book toBook() {
+        Book book = new Book(title, author, Dinero.centavos(priceCentavos), stock);
+        if (id != null) book.setId(id);
+        if (version != null) book.setVersion(version);
+        return book;
+    }
+
+    // lee los campos directamente de los tokens; los campos desconocidos se saltan
+    static final class Deserializer extends StdDeserializer<BookRequest> {
+        Deserializer() { super(BookRequest.class); }
+
+        @Override
+        public BookRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonCampos.inicioObjeto(p, BookRequest.class);
+            Long id = null;
+            String title = null, author = null;
+            long priceCentavos = 0;
+            int stock = 0;
+            Long version = null;
+            for (JsonToken t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                String campo = p.currentName();
+                p.nextToken();
+                switch (campo) {
+                    case "id" -> id = JsonCampos.leerLong(p, BookRequest.class, campo);
+                    case "title" -> title = JsonCampos.leerTexto(p, BookRequest.class, campo);
+                    case "author" -> author = JsonCampos.leerTexto(p, BookRequest.class, campo);
+                    case "price" -> priceCentavos = JsonCampos.leerCentavos(p, BookRequest.class, campo);
+                    case "stock" -> stock = JsonCampos.leerInt(p, BookRequest.class, campo);
+                    case "version" -> version = JsonCampos.leerLong(p, BookRequest.class, campo);
+                    default -> p.skipChildren();
+                }
+            }
+            return new BookRequest(id, title, author, priceCentavos, stock, version);
+        }
+    }
+}
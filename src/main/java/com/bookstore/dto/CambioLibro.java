@@ -0,0 +1,10 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Dinero;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// evento del flujo de cambios del catálogo: el estado actual del libro (tipo "cambio") o su baja (sin precio ni stock).
+// seq es también el id del evento SSE (Last-Event-ID al reconectar)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CambioLibro(long seq, long id, String tipo, Dinero price, Integer stock) {
+}
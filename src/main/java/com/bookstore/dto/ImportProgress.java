@@ -0,0 +1,11 @@
+package com.bookstore.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+// estado de una importación masiva de libros (se puede consultar mientras corre)
+public record ImportProgress(String id, String estado, Instant inicio, long filasLeidas, long filasImportadas,
+                             long filasConError, double filasPorSegundo, List<ImportError> errores) {
+
+    public record ImportError(long linea, String error) {}
+}
@@ -0,0 +1,85 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Dinero;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+
+// lectura de campos sueltos para los deserializadores en streaming de los records de entrada:
+// se lee el valor del token actual sin pasar por árboles ni mapas intermedios.
+// Se aceptan también números entre comillas, como hacía el binding anterior con Map
+final class JsonCampos {
+    private JsonCampos() {}
+
+    // deja el parser en el primer nombre de campo del objeto (o en END_OBJECT si está vacío)
+    static void inicioObjeto(JsonParser p, Class<?> tipo) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) t = p.nextToken();
+        if (t != JsonToken.FIELD_NAME && t != JsonToken.END_OBJECT) {
+            throw MismatchedInputException.from(p, tipo, "Se esperaba un objeto JSON");
+        }
+    }
+
+    static Long leerLong(JsonParser p, Class<?> tipo, String campo) throws IOException {
+        return switch (p.currentToken()) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT -> p.getLongValue();
+            case VALUE_STRING -> {
+                try {
+                    yield Long.parseLong(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    throw invalido(p, tipo, campo, "un número entero");
+                }
+            }
+            default -> throw invalido(p, tipo, campo, "un número entero");
+        };
+    }
+
+    static int leerInt(JsonParser p, Class<?> tipo, String campo) throws IOException {
+        return switch (p.currentToken()) {
+            case VALUE_NULL -> 0;
+            case VALUE_NUMBER_INT -> {
+                if (p.getNumberType() != JsonParser.NumberType.INT) throw invalido(p, tipo, campo, "un número entero");
+                yield p.getIntValue();
+            }
+            case VALUE_STRING -> {
+                try {
+                    yield Integer.parseInt(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    throw invalido(p, tipo, campo, "un número entero");
+                }
+            }
+            default -> throw invalido(p, tipo, campo, "un número entero");
+        };
+    }
+
+    // importe decimal leído del texto del número (sin pasar por double): 45.5 -> 4550 centavos
+    static long leerCentavos(JsonParser p, Class<?> tipo, String campo) throws IOException {
+        return switch (p.currentToken()) {
+            case VALUE_NULL -> 0;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_STRING -> {
+                try {
+                    yield Dinero.parse(p.getText());
+                } catch (NumberFormatException | ArithmeticException e) {
+                    throw invalido(p, tipo, campo, "un importe con a lo sumo dos decimales");
+                }
+            }
+            default -> throw invalido(p, tipo, campo, "un importe con a lo sumo dos decimales");
+        };
+    }
+
+    static String leerTexto(JsonParser p, Class<?> tipo, String campo) throws IOException {
+        return switch (p.currentToken()) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING -> p.getText();
+            default -> throw invalido(p, tipo, campo, "un texto");
+        };
+    }
+
+    private static MismatchedInputException invalido(JsonParser p, Class<?> tipo, String campo, String esperado)
+            throws IOException {
+        return MismatchedInputException.from(p, tipo, "El campo " + campo + " debe ser " + esperado);
+    }
+}
@@ -0,0 +1,6 @@
+package com.bookstore.dto;
+
+// venta aceptada en modo asíncrono: id en la cola, estado (PENDIENTE, GUARDADA, RECHAZADA)
+// y el id de la venta una vez guardada
+public record VentaEncolada(long id, String estado, Long ventaId) {
+}
@@ -0,0 +1,30 @@
+package com.bookstore.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// página de ventas con los clientes y libros una sola vez (GET /api/ventas?referencias=true):
+// cada fila lleva solo los ids y los nombres y títulos se buscan en clientes y libros
+public record VentaPagina(List<Fila> ventas, List<ClienteRef> clientes, List<LibroRef> libros) {
+
+    public record Fila(Long id, LocalDateTime fecha, int cantidad, Long clienteId, Long libroId) {}
+
+    public record ClienteRef(Long id, String nombre) {}
+
+    public record LibroRef(Long id, String titulo) {}
+
+    public static VentaPagina de(List<VentaResumen> page) {
+        List<Fila> ventas = new ArrayList<>(page.size());
+        Map<Long, ClienteRef> clientes = new LinkedHashMap<>();
+        Map<Long, LibroRef> libros = new LinkedHashMap<>();
+        for (VentaResumen v : page) {
+            ventas.add(new Fila(v.id(), v.fecha(), v.cantidad(), v.clienteId(), v.libroId()));
+            clientes.computeIfAbsent(v.clienteId(), id -> new ClienteRef(id, v.clienteNombre()));
+            libros.computeIfAbsent(v.libroId(), id -> new LibroRef(id, v.libroTitulo()));
+        }
+        return new VentaPagina(ventas, List.copyOf(clientes.values()), List.copyOf(libros.values()));
+    }
+}
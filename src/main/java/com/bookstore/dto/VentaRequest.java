@@ -0,0 +1,37 @@
+package com.bookstore.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+// ejemplo: { "clienteId":1, "libroId":2, "cantidad":1 }
+@JsonDeserialize(using = VentaRequest.Deserializer.class)
+public record VentaRequest(Long clienteId, Long libroId, int cantidad) {
+
+    // lee los tres campos directamente de los tokens; los campos desconocidos se saltan
+    static final class Deserializer extends StdDeserializer<VentaRequest> {
+        Deserializer() { super(VentaRequest.class); }
+
+        @Override
+        public VentaRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonCampos.inicioObjeto(p, VentaRequest.class);
+            Long clienteId = null, libroId = null;
+            int cantidad = 0;
+            for (JsonToken t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                String campo = p.currentName();
+                p.nextToken();
+                switch (campo) {
+                    case "clienteId" -> clienteId = JsonCampos.leerLong(p, VentaRequest.class, campo);
+                    case "libroId" -> libroId = JsonCampos.leerLong(p, VentaRequest.class, campo);
+                    case "cantidad" -> cantidad = JsonCampos.leerInt(p, VentaRequest.class, campo);
+                    default -> p.skipChildren();
+                }
+            }
+            return new VentaRequest(clienteId, libroId, cantidad);
+        }
+    }
+}
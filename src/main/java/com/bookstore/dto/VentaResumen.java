@@ -0,0 +1,9 @@
+package com.bookstore.dto;
+
+import java.time.LocalDateTime;
+
+// fila plana para listados de ventas: sin entidades anidadas
+public record VentaResumen(Long id, LocalDateTime fecha, int cantidad,
+                           Long clienteId, String clienteNombre,
+                           Long libroId, String libroTitulo) {
+}
@@ -0,0 +1,14 @@
+package com.bookstore.dto;
+
+import java.time.LocalDate;
+
+// respuestas de /api/ventas/stats; importes en centavos
+public final class VentaStats {
+    private VentaStats() {}
+
+    public record TopLibro(Long libroId, long unidades, long ingresoCentavos) {}
+
+    public record IngresoDiario(LocalDate fecha, long unidades, long ingresoCentavos) {}
+
+    public record TotalCliente(Long clienteId, long unidades, long ingresoCentavos) {}
+}
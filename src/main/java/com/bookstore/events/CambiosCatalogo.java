@@ -0,0 +1,337 @@
+package com.bookstore.events;
+
+import com.bookstore.dto.CambioLibro;
+import com.bookstore.metrics.BookstoreMetrics;
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.service.ShardedStockService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Flujo de cambios del catálogo (GET /api/books/cambios, server-sent events) para que las cachés de la
+ * tienda no tengan que sondear GET /api/books.
+ * - Los servicios avisan qué libro cambió (alta, edición, baja, venta); el aviso cuenta cuando su transacción
+ *   confirma, como las estadísticas de ventas.
+ * - Un único hilo publica cada "ventana": los avisos se agrupan por libro (diez ventas del mismo libro en la
+ *   ventana son un solo evento) y el estado actual de esos libros se lee de la primaria en una consulta.
+ * - Cada evento lleva un número de secuencia creciente, también entre reinicios (parte del reloj al arrancar).
+ *   Se guardan los últimos "historial" eventos: quien reconecta con Last-Event-ID recibe lo que se perdió o,
+ *   si ya no está, un evento "reinicio" para que vuelva a leer el catálogo.
+ * Un suscriptor inactivo no ocupa un hilo (petición asíncrona de Servlet). El hilo publicador no escribe en
+ * las conexiones: deja cada ventana en la cola de cada suscriptor (a lo sumo max-pendientes) y unos pocos
+ * hilos "escritores" las vacían. Un cliente que no lee llena su cola, o deja una escritura bloqueada más de
+ * plazo-escritura, y se desconecta; al reconectar recupera lo perdido del historial. Así un cliente lento no
+ * retrasa a los demás ni hace crecer la memoria. Un latido periódico detecta las conexiones cerradas.
+ */
+@Service
+public class CambiosCatalogo {
+    private static final Logger log = LoggerFactory.getLogger(CambiosCatalogo.class);
+
+    public static final String CAMBIO = "cambio";
+    public static final String BAJA = "baja";
+    public static final String REINICIO = "reinicio";
+    private static final MediaType TEXTO = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    private static final String LATIDO = ":latido\n\n";
+    private static final String CONECTADO = ":conectado\n\n";
+
+    private record Suscripcion(SseEmitter emitter, Long ultimo) {}
+
+    // lo pendiente de escribir en una conexión; la vacía un solo escritor a la vez, en orden
+    private static final class Suscriptor {
+        final SseEmitter emitter;
+        final BlockingQueue<Set<DataWithMediaType>> cola;
+        final AtomicBoolean escribiendo = new AtomicBoolean();
+        // System.nanoTime() al empezar la escritura en curso (0 = ninguna)
+        volatile long escribiendoDesde;
+
+        Suscriptor(SseEmitter emitter, int maxPendientes) {
+            this.emitter = emitter;
+            this.cola = new ArrayBlockingQueue<>(maxPendientes);
+        }
+    }
+
+    // el evento ya escrito en formato SSE (id, event, data)
+    private record Evento(long seq, String texto) {}
+
+    private final BookRepository bookRepository;
+    private final ShardedStockService shardedStockService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ventana;
+    private final Duration latido;
+    private final Duration timeout;
+    private final int historial;
+    private final int maxSuscriptores;
+    private final int maxPendientes;
+    private final Duration plazoEscritura;
+    private final int hilosEscritores;
+
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private final Queue<Suscripcion> nuevas = new ConcurrentLinkedQueue<>();
+    private final Map<SseEmitter, Suscriptor> suscriptores = new ConcurrentHashMap<>();
+    // solo los usa el hilo publicador
+    private final ArrayDeque<Evento> recientes = new ArrayDeque<>();
+    private long siguienteSeq = System.currentTimeMillis() * 1000;
+    private long ultimoEnvio = System.nanoTime();
+    private ScheduledExecutorService publicador;
+    private ExecutorService escritores;
+
+    public CambiosCatalogo(BookRepository bookRepository, ShardedStockService shardedStockService,
+                           PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                           @Value("${bookstore.cambios.ventana:200ms}") Duration ventana,
+                           @Value("${bookstore.cambios.latido:20s}") Duration latido,
+                           @Value("${bookstore.cambios.timeout:30m}") Duration timeout,
+                           @Value("${bookstore.cambios.historial:10000}") int historial,
+                           @Value("${bookstore.cambios.max-suscriptores:5000}") int maxSuscriptores,
+                           @Value("${bookstore.cambios.max-pendientes:32}") int maxPendientes,
+                           @Value("${bookstore.cambios.plazo-escritura:10s}") Duration plazoEscritura,
+                           @Value("${bookstore.cambios.escritores:4}") int hilosEscritores) {
+        this.bookRepository = bookRepository;
+        this.shardedStockService = shardedStockService;
+        // sin readOnly: el estado publicado se lee de la primaria, no de una réplica con retraso
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ventana = ventana;
+        this.latido = latido;
+        this.timeout = timeout;
+        this.historial = historial;
+        this.maxSuscriptores = maxSuscriptores;
+        this.maxPendientes = maxPendientes;
+        this.plazoEscritura = plazoEscritura;
+        this.hilosEscritores = hilosEscritores;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        BookstoreMetrics.suscriptoresCambios(suscriptores, Map::size);
+        escritores = Executors.newFixedThreadPool(hilosEscritores, Thread.ofPlatform().name("cambios-escritor-", 0).daemon().factory());
+        publicador = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cambios-catalogo").daemon().factory());
+        publicador.scheduleWithFixedDelay(this::publicar, ventana.toMillis(), ventana.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        publicador.shutdownNow();
+        publicador.awaitTermination(5, TimeUnit.SECONDS);
+        escritores.shutdownNow();
+        cerrarSuscripciones();
+    }
+
+    // cierra todas las conexiones; los clientes reconectan con Last-Event-ID
+    void cerrarSuscripciones() {
+        for (Suscripcion s; (s = nuevas.poll()) != null; ) s.emitter().complete();
+        suscriptores.keySet().forEach(SseEmitter::complete);
+        suscriptores.clear();
+    }
+
+    int suscriptores() { return suscriptores.size(); }
+
+    // se publica cuando la transacción confirma (si se revierte, no hubo cambio)
+    public void libroCambiado(Long libroId) {
+        if (libroId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { pendientes.add(libroId); }
+            });
+        } else {
+            pendientes.add(libroId);
+        }
+    }
+
+    // regla: "ultimo" es el Last-Event-ID del cliente (null = solo cambios nuevos); vacío con max-suscriptores conectados
+    public Optional<SseEmitter> suscribir(Long ultimo) {
+        if (suscriptores.size() + nuevas.size() >= maxSuscriptores) return Optional.empty();
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        emitter.onCompletion(() -> suscriptores.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> suscriptores.remove(emitter));
+        // Spring envía las cabeceras con la primera escritura: sin esto el cliente no ve la respuesta hasta el primer cambio
+        try {
+            emitter.send(datos(CONECTADO));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nuevas.add(new Suscripcion(emitter, ultimo));
+        return Optional.of(emitter);
+    }
+
+    // un ciclo del hilo publicador: primero las suscripciones nuevas (con lo que se perdieron), después
+    // los cambios de la ventana a todos; así nadie recibe un evento dos veces ni le falta uno
+    void publicar() {
+        try {
+            for (Suscripcion s; (s = nuevas.poll()) != null; ) atender(s);
+            List<Long> ids = tomarPendientes();
+            if (!ids.isEmpty()) {
+                enviarATodos(eventos(ids));
+            } else if (System.nanoTime() - ultimoEnvio >= latido.toNanos()) {
+                enviarATodos(LATIDO);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron publicar los cambios del catálogo: {}", e.getMessage());
+        }
+    }
+
+    private void atender(Suscripcion s) {
+        Suscriptor suscriptor = new Suscriptor(s.emitter(), maxPendientes);
+        suscriptores.put(s.emitter(), suscriptor);
+        Long ultimo = s.ultimo();
+        long ultimoSeq = siguienteSeq - 1;
+        if (ultimo != null && ultimo != ultimoSeq) {
+            if (ultimo < ultimoSeq && !recientes.isEmpty() && recientes.peekFirst().seq() <= ultimo + 1) {
+                StringBuilder perdidos = new StringBuilder();
+                for (Evento evento : recientes) {
+                    if (evento.seq() > ultimo) perdidos.append(evento.texto());
+                }
+                encolar(suscriptor, datos(perdidos.toString()));
+            } else {
+                encolar(suscriptor, datos(reinicio(ultimoSeq)));
+            }
+        }
+    }
+
+    private List<Long> tomarPendientes() {
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<Long> it = pendientes.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    // los eventos de la ventana, juntos: una escritura por conexión, no una por evento
+    private String eventos(List<Long> ids) {
+        Map<Long, Book> libros;
+        try {
+            libros = transactionTemplate.execute(status -> {
+                List<Book> encontrados = bookRepository.findAllById(ids);
+                shardedStockService.completarStock(encontrados);
+                return encontrados.stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+            });
+        } catch (RuntimeException e) {
+            pendientes.addAll(ids); // se reintenta en la próxima ventana
+            throw e;
+        }
+        StringBuilder eventos = new StringBuilder();
+        for (Long id : ids) {
+            Book libro = libros.get(id);
+            long seq = siguienteSeq++;
+            CambioLibro cambio = libro == null
+                    ? new CambioLibro(seq, id, BAJA, null, null)
+                    : new CambioLibro(seq, id, CAMBIO, libro.getPrice(), libro.getStock());
+            Evento evento = new Evento(seq, texto(seq, cambio.tipo(), cambio));
+            recientes.addLast(evento);
+            if (recientes.size() > historial) recientes.removeFirst();
+            eventos.append(evento.texto());
+            BookstoreMetrics.cambioPublicado(cambio.tipo());
+        }
+        return eventos.toString();
+    }
+
+    // el cliente perdió eventos que ya no están en el historial: vuelve a leer el catálogo y sigue desde "seq"
+    private String reinicio(long seq) {
+        BookstoreMetrics.cambioPublicado(REINICIO);
+        return texto(seq, REINICIO, Map.of("seq", seq));
+    }
+
+    // el evento se serializa una vez y se escribe igual en todas las conexiones (el JSON va en una sola línea)
+    private String texto(long seq, String tipo, Object cuerpo) {
+        try {
+            return "id:" + seq + "\nevent:" + tipo + "\ndata:" + objectMapper.writeValueAsString(cuerpo) + "\n\n";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<DataWithMediaType> datos(String texto) {
+        return Set.of(new DataWithMediaType(texto, TEXTO));
+    }
+
+    private void enviarATodos(String texto) {
+        Set<DataWithMediaType> datos = datos(texto);
+        suscriptores.values().forEach(suscriptor -> encolar(suscriptor, datos));
+        ultimoEnvio = System.nanoTime();
+    }
+
+    // regla: cola llena o escritura en curso desde hace más de plazo-escritura = cliente que no lee: se desconecta
+    private void encolar(Suscriptor suscriptor, Set<DataWithMediaType> datos) {
+        long desde = suscriptor.escribiendoDesde;
+        if ((desde != 0 && System.nanoTime() - desde > plazoEscritura.toNanos()) || !suscriptor.cola.offer(datos)) {
+            descartar(suscriptor);
+            return;
+        }
+        programar(suscriptor);
+    }
+
+    private void programar(Suscriptor suscriptor) {
+        if (!suscriptor.escribiendo.compareAndSet(false, true)) return;
+        try {
+            escritores.execute(() -> escribir(suscriptor));
+        } catch (RejectedExecutionException e) {
+            suscriptor.escribiendo.set(false); // se está deteniendo
+        }
+    }
+
+    // en un hilo escritor; una conexión cerrada falla al escribir y se descarta (Spring completa el emisor)
+    private void escribir(Suscriptor suscriptor) {
+        try {
+            for (Set<DataWithMediaType> datos; (datos = suscriptor.cola.poll()) != null; ) {
+                suscriptor.escribiendoDesde = System.nanoTime();
+                try {
+                    suscriptor.emitter.send(datos);
+                } catch (IOException | IllegalStateException e) {
+                    suscriptores.remove(suscriptor.emitter);
+                    suscriptor.cola.clear();
+                    return;
+                } finally {
+                    suscriptor.escribiendoDesde = 0;
+                }
+            }
+        } finally {
+            suscriptor.escribiendo.set(false);
+        }
+        // lo que el publicador encoló entre la última lectura de la cola y soltar la marca
+        if (!suscriptor.cola.isEmpty()) programar(suscriptor);
+    }
+
+    private void descartar(Suscriptor suscriptor) {
+        if (suscriptores.remove(suscriptor.emitter) == null) return;
+        suscriptor.cola.clear();
+        // complete() espera a que termine la escritura en curso: en un hilo virtual, no en el publicador
+        Thread.ofVirtual().start(suscriptor.emitter::complete);
+        BookstoreMetrics.suscriptorCambiosDescartado();
+    }
+}
@@ -0,0 +1,7 @@
+package com.bookstore.exception;
+
+import java.time.Instant;
+
+// cuerpo de todas las respuestas de error: { "status":404, "codigo":"NO_ENCONTRADO", "mensaje":"...", ... }
+public record ApiError(int status, String codigo, String mensaje, String path, Instant timestamp) {
+}
@@ -1,5 +1,8 @@
 package com.bookstore.exception;
 
-public class BadRequestException extends RuntimeException {
+public class BadRequestException extends DomainException {
+    public static final BadRequestException CANTIDAD_INVALIDA = new BadRequestException("Cantidad inválida");
+    public static final BadRequestException EMAIL_DUPLICADO = new BadRequestException("Ya existe un cliente con ese email");
+
     public BadRequestException(String message) { super(message); }
-}
\ No newline at end of file
+}
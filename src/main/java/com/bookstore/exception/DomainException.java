@@ -0,0 +1,13 @@
+package com.bookstore.exception;
+
+/**
+ * Base de los errores de negocio esperados (validación, no encontrado, cola llena).
+ * Son control de flujo normal en caminos calientes, como una venta sin stock: no capturan
+ * la pila (fillInStackTrace es lo más caro de lanzar una excepción) ni admiten suprimidas.
+ * Al no tener estado mutable, las de mensaje fijo pueden preasignarse y reutilizarse.
+ */
+public abstract class DomainException extends RuntimeException {
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+}
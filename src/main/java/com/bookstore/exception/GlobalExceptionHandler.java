@@ -1,18 +1,96 @@
 package com.bookstore.exception;
 
+import com.bookstore.metrics.BookstoreMetrics;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.time.Instant;
+
+// un manejador por tipo de excepción; el estado HTTP nunca se deduce del texto del mensaje
 @ControllerAdvice
 public class GlobalExceptionHandler {
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiError> handleBadRequest(BadRequestException ex, HttpServletRequest request) {
+        return error(HttpStatus.BAD_REQUEST, "SOLICITUD_INVALIDA", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<ApiError> handleNotFound(ResourceNotFoundException ex, HttpServletRequest request) {
+        BookstoreMetrics.noEncontrado();
+        return error(HttpStatus.NOT_FOUND, "NO_ENCONTRADO", ex.getMessage(), request);
+    }
 
-    @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
-        if (ex.getMessage().contains("no encontrado")) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiError> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(body(HttpStatus.SERVICE_UNAVAILABLE, "SERVICIO_NO_DISPONIBLE", ex.getMessage(), request));
+    }
+
+    // JSON mal formado o con tipos incorrectos: se informa el campo, no la traza de Jackson
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiError> handleNotReadable(HttpMessageNotReadableException ex, HttpServletRequest request) {
+        String mensaje = ex.getCause() instanceof MismatchedInputException mie && mie.getOriginalMessage() != null
+                ? mie.getOriginalMessage() : "Cuerpo de la petición mal formado";
+        return error(HttpStatus.BAD_REQUEST, "SOLICITUD_INVALIDA", mensaje, request);
+    }
+
+    @ExceptionHandler({MethodArgumentTypeMismatchException.class, MissingServletRequestParameterException.class})
+    public ResponseEntity<ApiError> handleInvalidParameter(Exception ex, HttpServletRequest request) {
+        String parametro = ex instanceof MethodArgumentTypeMismatchException mismatch
+                ? mismatch.getName() : ((MissingServletRequestParameterException) ex).getParameterName();
+        return error(HttpStatus.BAD_REQUEST, "SOLICITUD_INVALIDA", "Parámetro inválido o ausente: " + parametro, request);
+    }
+
+    // otra transacción modificó o insertó lo mismo a la vez (email duplicado, versión distinta)
+    @ExceptionHandler({DataIntegrityViolationException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ApiError> handleConflict(Exception ex, HttpServletRequest request) {
+        return error(HttpStatus.CONFLICT, "CONFLICTO", "El recurso fue modificado por otra operación, intente nuevamente", request);
+    }
+
+    // el cliente ya cerró la conexión (p. ej. un suscriptor del flujo de cambios desconectado): no hay a quién responder
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleClienteDesconectado() {
+    }
+
+    // errores propios de Spring MVC (método no permitido, ruta inexistente...) conservan su estado;
+    // el resto es un fallo inesperado: se registra con su traza y no se expone el detalle
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiError> handleUnexpected(Exception ex, HttpServletRequest request) {
+        if (ex instanceof ErrorResponse errorResponse) {
+            HttpStatusCode status = errorResponse.getStatusCode();
+            return ResponseEntity.status(status).headers(errorResponse.getHeaders())
+                    .body(new ApiError(status.value(), status.value() == 404 ? "NO_ENCONTRADO" : "SOLICITUD_INVALIDA",
+                            errorResponse.getBody().getDetail(),
+                            request.getRequestURI(), Instant.now()));
         }
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        log.error("Error inesperado en {} {}", request.getMethod(), request.getRequestURI(), ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_INTERNO", "Error interno del servidor", request);
+    }
+
+    private static ResponseEntity<ApiError> error(HttpStatus status, String codigo, String mensaje, HttpServletRequest request) {
+        return ResponseEntity.status(status).body(body(status, codigo, mensaje, request));
+    }
+
+    private static ApiError body(HttpStatus status, String codigo, String mensaje, HttpServletRequest request) {
+        return new ApiError(status.value(), codigo, mensaje, request.getRequestURI(), Instant.now());
     }
 }
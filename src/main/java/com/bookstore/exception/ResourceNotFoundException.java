@@ -1,5 +1,8 @@
 package com.bookstore.exception;
 
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends DomainException {
+    public static final ResourceNotFoundException CLIENTE_NO_ENCONTRADO = new ResourceNotFoundException("Cliente no encontrado");
+    public static final ResourceNotFoundException LIBRO_NO_ENCONTRADO = new ResourceNotFoundException("Libro no encontrado");
+
     public ResourceNotFoundException(String message) { super(message); }
-}
\ No newline at end of file
+}
@@ -0,0 +1,6 @@
+package com.bookstore.exception;
+
+// el servidor no puede aceptar más trabajo por ahora (cola llena); el cliente debe reintentar
+public class ServiceUnavailableException extends DomainException {
+    public ServiceUnavailableException(String message) { super(message); }
+}
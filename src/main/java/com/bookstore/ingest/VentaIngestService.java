@@ -0,0 +1,327 @@
+package com.bookstore.ingest;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.VentaEncolada;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.exception.ServiceUnavailableException;
+import com.bookstore.ingest.VentaLog.Entrada;
+import com.bookstore.ingest.VentaLog.Estado;
+import com.bookstore.metrics.BookstoreMetrics;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Venta;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaRepository;
+import com.bookstore.service.SalesStatsService;
+import com.bookstore.service.ShardedStockService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Modo asíncrono de ventas (bookstore.ventas.async.enabled): la venta se acepta en cuanto
+ * se reserva su stock en memoria y se anota en el registro local (VentaLog); un único hilo
+ * escritor la guarda después en la tabla ventas, en lotes, con un UPDATE de stock por libro
+ * para todo el lote. Al arrancar se reprocesan las entradas que quedaron pendientes.
+ *
+ * La reserva en memoria compara el stock de la base con lo ya aceptado y aún no escrito.
+ * Si el stock baja por otra vía (ventas por lote, edición del libro) una venta aceptada
+ * puede terminar RECHAZADA; su estado se consulta con {@link #getEstado(long)}.
+ */
+@Service
+public class VentaIngestService {
+    private static final Logger log = LoggerFactory.getLogger(VentaIngestService.class);
+    private static final long MAX_ESPERA_REINTENTO_MS = 5_000;
+
+    // unidades aceptadas y no escritas de un libro; version cambia cada vez que el escritor descuenta
+    private static final class Reservas {
+        long pendiente;
+        long version;
+    }
+
+    private final VentaRepository ventaRepository;
+    private final BookRepository bookRepository;
+    private final ClienteRepository clienteRepository;
+    private final ReadCache readCache;
+    private final SalesStatsService salesStatsService;
+    private final ShardedStockService shardedStockService;
+    private final CambiosCatalogo cambiosCatalogo;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path logPath;
+    private final int capacidad;
+    private final int batchSize;
+    private final boolean forceOnAppend;
+
+    private final Map<Long, Reservas> reservas = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Entrada> cola = new LinkedBlockingQueue<>();
+    // entradas reprocesadas al arrancar: pueden haberse guardado justo antes de la caída
+    private final Set<Long> reprocesadas = ConcurrentHashMap.newKeySet();
+    private VentaLog ventaLog;
+    // un permiso por posición libre del anillo: sin permiso, la cola está llena
+    private Semaphore libres;
+    private long siguienteSeq;
+    private volatile boolean activo;
+    private Thread escritor;
+
+    public VentaIngestService(VentaRepository ventaRepository, BookRepository bookRepository,
+                              ClienteRepository clienteRepository, ReadCache readCache,
+                              SalesStatsService salesStatsService, ShardedStockService shardedStockService,
+                              CambiosCatalogo cambiosCatalogo, PlatformTransactionManager transactionManager,
+                              @Value("${bookstore.ventas.async.enabled:false}") boolean enabled,
+                              @Value("${bookstore.ventas.async.log-path:data/ventas.log}") String logPath,
+                              @Value("${bookstore.ventas.async.capacity:10000}") int capacidad,
+                              @Value("${bookstore.ventas.async.batch-size:500}") int batchSize,
+                              @Value("${bookstore.ventas.async.force-on-append:false}") boolean forceOnAppend) {
+        this.ventaRepository = ventaRepository;
+        this.bookRepository = bookRepository;
+        this.clienteRepository = clienteRepository;
+        this.readCache = readCache;
+        this.salesStatsService = salesStatsService;
+        this.shardedStockService = shardedStockService;
+        this.cambiosCatalogo = cambiosCatalogo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.logPath = Path.of(logPath);
+        this.capacidad = capacidad;
+        this.batchSize = batchSize;
+        this.forceOnAppend = forceOnAppend;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!enabled) return;
+        abrir();
+        arrancarEscritor();
+    }
+
+    // abre el registro y vuelve a encolar lo que quedó pendiente en la ejecución anterior
+    void abrir() {
+        ventaLog = new VentaLog(logPath, capacidad);
+        libres = new Semaphore(ventaLog.capacidad());
+        List<Entrada> entradas = ventaLog.leerTodas();
+        siguienteSeq = entradas.stream().mapToLong(Entrada::seq).max().orElse(0) + 1;
+        entradas.stream()
+                .filter(e -> e.estado() == Estado.PENDIENTE)
+                .sorted(Comparator.comparingLong(Entrada::seq))
+                .forEach(e -> {
+                    libres.acquireUninterruptibly();
+                    reservas(e.libroId()).pendiente += e.cantidad();
+                    reprocesadas.add(e.seq());
+                    cola.add(e);
+                });
+        if (!cola.isEmpty()) log.info("Reprocesando {} ventas pendientes de {}", cola.size(), logPath);
+        BookstoreMetrics.colaVentas(this, s -> s.ventaLog.capacidad() - s.libres.availablePermits());
+    }
+
+    void arrancarEscritor() {
+        activo = true;
+        escritor = Thread.ofPlatform().name("venta-writer").daemon().start(this::escribirEnBucle);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException, IOException {
+        activo = false;
+        if (escritor != null) {
+            escritor.interrupt();
+            escritor.join();
+        }
+        if (ventaLog != null) ventaLog.close();
+    }
+
+    // regla: se acepta solo si hay stock para esta venta además de lo ya aceptado
+    public VentaEncolada encolar(Long clienteId, Long libroId, int cantidad) {
+        if (!enabled) throw new BadRequestException("El modo asíncrono de ventas no está habilitado");
+        return BookstoreMetrics.registrarVenta("encolada", () -> {
+            if (clienteId == null || libroId == null) throw new BadRequestException("La venta requiere clienteId y libroId");
+            if (cantidad <= 0) throw BadRequestException.CANTIDAD_INVALIDA;
+            if (!libres.tryAcquire()) throw new ServiceUnavailableException("Cola de ventas llena, intente nuevamente");
+            boolean aceptada = false;
+            try {
+                if (!enPrimaria(() -> clienteRepository.existsById(clienteId))) throw ResourceNotFoundException.CLIENTE_NO_ENCONTRADO;
+                reservar(libroId, cantidad);
+                Entrada entrada = anotar(clienteId, libroId, cantidad);
+                aceptada = true;
+                return estado(entrada);
+            } finally {
+                if (!aceptada) libres.release();
+            }
+        });
+    }
+
+    private void reservar(Long libroId, int cantidad) {
+        Reservas r = reservas(libroId);
+        while (true) {
+            long version;
+            synchronized (r) { version = r.version; }
+            int stock = enPrimaria(() -> bookRepository.findStockById(libroId))
+                    .orElseThrow(() -> ResourceNotFoundException.LIBRO_NO_ENCONTRADO);
+            synchronized (r) {
+                // si el escritor descontó mientras leíamos, el stock leído puede no incluirlo
+                if (r.version != version) continue;
+                if (stock - r.pendiente < cantidad) {
+                    BookstoreMetrics.stockInsuficiente();
+                    throw new BadRequestException("Stock insuficiente para el libro: " + libroId);
+                }
+                r.pendiente += cantidad;
+                return;
+            }
+        }
+    }
+
+    // las lecturas que deciden si se acepta la venta van a la primaria (transacción de escritura):
+    // con réplicas, una atrasada mostraría stock ya vendido y se aceptarían ventas de más
+    private <T> T enPrimaria(Supplier<T> lectura) {
+        return transactionTemplate.execute(status -> lectura.get());
+    }
+
+    private void liberar(long libroId, int cantidad) {
+        Reservas r = reservas(libroId);
+        synchronized (r) {
+            r.pendiente -= cantidad;
+            r.version++;
+        }
+    }
+
+    private Reservas reservas(long libroId) {
+        return reservas.computeIfAbsent(libroId, id -> new Reservas());
+    }
+
+    // el seq y el orden en la cola se asignan juntos: el escritor avanza por el anillo en orden
+    private synchronized Entrada anotar(Long clienteId, Long libroId, int cantidad) {
+        Entrada entrada = new Entrada(siguienteSeq++, clienteId, libroId, cantidad, LocalDateTime.now(), Estado.PENDIENTE, 0);
+        ventaLog.escribir(entrada);
+        if (forceOnAppend) ventaLog.force();
+        cola.add(entrada);
+        return entrada;
+    }
+
+    public VentaEncolada getEstado(long id) {
+        if (!enabled) throw new BadRequestException("El modo asíncrono de ventas no está habilitado");
+        return ventaLog.leer(id).map(VentaIngestService::estado)
+                .orElseThrow(() -> new ResourceNotFoundException("Venta encolada no encontrada"));
+    }
+
+    private static VentaEncolada estado(Entrada entrada) {
+        return new VentaEncolada(entrada.seq(), entrada.estado().name(),
+                entrada.estado() == Estado.GUARDADA ? entrada.ventaId() : null);
+    }
+
+    private void escribirEnBucle() {
+        List<Entrada> lote = new ArrayList<>(batchSize);
+        int fallos = 0;
+        while (activo) {
+            try {
+                if (lote.isEmpty()) {
+                    lote.add(cola.take());
+                    cola.drainTo(lote, batchSize - 1);
+                }
+                guardar(lote);
+                lote.clear();
+                fallos = 0;
+            } catch (InterruptedException e) {
+                return; // lo no guardado sigue PENDIENTE en el registro y se reprocesa al arrancar
+            } catch (RuntimeException e) {
+                // base caída o similar: se reintenta el mismo lote, sin perder el orden
+                log.warn("No se pudo guardar un lote de {} ventas encoladas: {}", lote.size(), e.getMessage());
+                try {
+                    Thread.sleep(Math.min(MAX_ESPERA_REINTENTO_MS, 100L << Math.min(fallos++, 6)));
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // guarda un lote en una transacción; el stock se descuenta con un UPDATE por libro
+    void guardar(List<Entrada> lote) {
+        Map<Long, Venta> guardadas = transactionTemplate.execute(status -> guardarEnTransaccion(lote));
+        for (Entrada entrada : lote) {
+            // solo tras el commit: si la transacción se revierte, el reintento vuelve a buscar la venta ya guardada
+            reprocesadas.remove(entrada.seq());
+            Venta venta = guardadas.get(entrada.seq());
+            ventaLog.marcar(entrada.seq(), venta != null ? Estado.GUARDADA : Estado.RECHAZADA,
+                    venta != null ? venta.getId() : 0);
+            liberar(entrada.libroId(), entrada.cantidad());
+        }
+        libres.release(lote.size());
+    }
+
+    private Map<Long, Venta> guardarEnTransaccion(List<Entrada> lote) {
+        Map<Long, Cliente> clientes = clienteRepository.findAllById(lote.stream().map(Entrada::clienteId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Cliente::getId, Function.identity()));
+        Map<Long, Book> libros = bookRepository.findAllById(lote.stream().map(Entrada::libroId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        // en orden de id de libro, como registrarVentas, para no interbloquear con las ventas por lote
+        Map<Long, Venta> ventas = new LinkedHashMap<>();
+        TreeMap<Long, List<Entrada>> porLibro = new TreeMap<>();
+        for (Entrada entrada : lote) {
+            if (reprocesadas.contains(entrada.seq())) {
+                // caída entre el commit y la marca en el registro: la venta ya está guardada
+                List<Venta> existente = ventaRepository.findByClienteIdAndLibroIdAndFecha(
+                        entrada.clienteId(), entrada.libroId(), entrada.fecha());
+                if (!existente.isEmpty()) {
+                    ventas.put(entrada.seq(), existente.get(0));
+                    continue;
+                }
+            }
+            if (clientes.containsKey(entrada.clienteId()) && libros.containsKey(entrada.libroId())) {
+                porLibro.computeIfAbsent(entrada.libroId(), id -> new ArrayList<>()).add(entrada);
+            }
+        }
+
+        List<Entrada> aceptadas = new ArrayList<>(lote.size());
+        porLibro.forEach((libroId, entradas) -> {
+            readCache.evictStock(libroId);
+            cambiosCatalogo.libroCambiado(libroId);
+            int total = entradas.stream().mapToInt(Entrada::cantidad).sum();
+            Book libro = libros.get(libroId);
+            if (descontar(libro, total)) {
+                aceptadas.addAll(entradas);
+                return;
+            }
+            // no alcanza para todas: se descuentan de a una, en orden de llegada
+            for (Entrada entrada : entradas) {
+                if (descontar(libro, entrada.cantidad())) aceptadas.add(entrada);
+                else BookstoreMetrics.stockInsuficiente();
+            }
+        });
+
+        List<Venta> nuevas = new ArrayList<>(aceptadas.size());
+        for (Entrada entrada : aceptadas) {
+            Venta venta = new Venta(clientes.get(entrada.clienteId()), libros.get(entrada.libroId()), entrada.cantidad());
+            venta.setFecha(entrada.fecha());
+            ventas.put(entrada.seq(), venta);
+            nuevas.add(venta);
+        }
+        ventaRepository.saveAll(nuevas).forEach(salesStatsService::registrar);
+        return ventas;
+    }
+
+    private boolean descontar(Book libro, int cantidad) {
+        if (libro.getStockShards() > 0) return shardedStockService.descontar(libro, cantidad);
+        return bookRepository.decrementStock(libro.getId(), cantidad) > 0;
+    }
+}
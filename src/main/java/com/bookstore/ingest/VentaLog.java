@@ -0,0 +1,122 @@
+package com.bookstore.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Registro local de ventas aceptadas: un archivo mapeado en memoria con capacidad fija de
+ * registros, usado como anillo (la entrada seq va en la posición seq % capacidad).
+ * Lo escrito en el mapeo sobrevive a una caída del proceso; con force() también a una del SO.
+ * El estado se escribe al final: un registro a medio escribir queda vacío y se ignora al leer.
+ */
+final class VentaLog implements Closeable {
+    static final int RECORD_SIZE = 48;
+
+    // posiciones dentro de cada registro
+    private static final int SEQ = 0, CLIENTE = 8, LIBRO = 16, CANTIDAD = 24, ESTADO = 28, FECHA = 32, VENTA = 40;
+
+    enum Estado {
+        PENDIENTE(1), GUARDADA(2), RECHAZADA(3);
+
+        final byte codigo;
+
+        Estado(int codigo) { this.codigo = (byte) codigo; }
+
+        static Estado of(byte codigo) {
+            for (Estado e : values()) if (e.codigo == codigo) return e;
+            return null;
+        }
+    }
+
+    record Entrada(long seq, long clienteId, long libroId, int cantidad, LocalDateTime fecha, Estado estado, long ventaId) {}
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacidad;
+
+    VentaLog(Path path, int capacidad) {
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // un archivo existente conserva su capacidad: cambiarla movería los registros de posición
+            long tamano = channel.size() > 0 ? channel.size() : (long) capacidad * RECORD_SIZE;
+            this.capacidad = (int) (tamano / RECORD_SIZE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) this.capacidad * RECORD_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el registro de ventas " + path, e);
+        }
+    }
+
+    int capacidad() { return capacidad; }
+
+    synchronized void escribir(Entrada entrada) {
+        int base = posicion(entrada.seq());
+        buffer.put(base + ESTADO, (byte) 0);
+        buffer.putLong(base + SEQ, entrada.seq());
+        buffer.putLong(base + CLIENTE, entrada.clienteId());
+        buffer.putLong(base + LIBRO, entrada.libroId());
+        buffer.putInt(base + CANTIDAD, entrada.cantidad());
+        buffer.putLong(base + FECHA, micros(entrada.fecha()));
+        buffer.putLong(base + VENTA, entrada.ventaId());
+        buffer.put(base + ESTADO, entrada.estado().codigo);
+    }
+
+    synchronized void marcar(long seq, Estado estado, long ventaId) {
+        int base = posicion(seq);
+        if (buffer.getLong(base + SEQ) != seq) return;
+        buffer.putLong(base + VENTA, ventaId);
+        buffer.put(base + ESTADO, estado.codigo);
+    }
+
+    // vacío si la entrada nunca existió o ya fue pisada por una más nueva
+    synchronized Optional<Entrada> leer(long seq) {
+        Entrada entrada = leerPosicion(posicion(seq));
+        return entrada != null && entrada.seq() == seq ? Optional.of(entrada) : Optional.empty();
+    }
+
+    synchronized List<Entrada> leerTodas() {
+        List<Entrada> entradas = new ArrayList<>();
+        for (int i = 0; i < capacidad; i++) {
+            Entrada entrada = leerPosicion(i * RECORD_SIZE);
+            if (entrada != null) entradas.add(entrada);
+        }
+        return entradas;
+    }
+
+    void force() { buffer.force(); }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private Entrada leerPosicion(int base) {
+        Estado estado = Estado.of(buffer.get(base + ESTADO));
+        if (estado == null) return null;
+        return new Entrada(buffer.getLong(base + SEQ), buffer.getLong(base + CLIENTE), buffer.getLong(base + LIBRO),
+                buffer.getInt(base + CANTIDAD), fecha(buffer.getLong(base + FECHA)), estado, buffer.getLong(base + VENTA));
+    }
+
+    private int posicion(long seq) { return (int) (seq % capacidad) * RECORD_SIZE; }
+
+    private static long micros(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + fecha.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fecha(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000,
+                ZoneOffset.UTC);
+    }
+}
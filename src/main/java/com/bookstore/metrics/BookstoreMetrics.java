@@ -0,0 +1,139 @@
+package com.bookstore.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Métricas de negocio. Se registran en el registro global de Micrometer, al que Spring Boot
+ * agrega el registro de Prometheus; en tests sin actuator no registran nada.
+ * Las métricas HTTP (http.server.requests), de repositorios (spring.data.repository.invocations)
+ * y del pool (hikaricp.*) las publica Spring Boot.
+ */
+public final class BookstoreMetrics {
+    private static final Counter STOCK_INSUFICIENTE = Counter.builder("bookstore.ventas.rechazadas")
+            .description("Ventas rechazadas por stock insuficiente")
+            .tag("motivo", "stock_insuficiente")
+            .register(Metrics.globalRegistry);
+
+    private static final Counter FILAS_IMPORTADAS = Counter.builder("bookstore.import.filas")
+            .description("Filas procesadas por la importación masiva de libros")
+            .tag("resultado", "ok")
+            .register(Metrics.globalRegistry);
+    private static final Counter FILAS_CON_ERROR = Counter.builder("bookstore.import.filas")
+            .description("Filas procesadas por la importación masiva de libros")
+            .tag("resultado", "error")
+            .register(Metrics.globalRegistry);
+
+    private BookstoreMetrics() {}
+
+    // mide una venta completa, con el resultado (ok / error) como tag
+    public static <T> T registrarVenta(String operacion, Supplier<T> venta) {
+        Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+        String resultado = "error";
+        try {
+            T t = venta.get();
+            resultado = "ok";
+            return t;
+        } finally {
+            sample.stop(Timer.builder("bookstore.ventas.registrar")
+                    .description("Duración de registrarVenta")
+                    .tag("operacion", operacion)
+                    .tag("resultado", resultado)
+                    .publishPercentileHistogram()
+                    .register(Metrics.globalRegistry));
+        }
+    }
+
+    // ventas aceptadas en modo asíncrono que aún no están en la tabla ventas
+    public static <T> void colaVentas(T cola, ToDoubleFunction<T> pendientes) {
+        Gauge.builder("bookstore.ventas.cola", cola, pendientes)
+                .description("Ventas encoladas pendientes de guardar")
+                .register(Metrics.globalRegistry);
+    }
+
+    // conexiones entregadas por destino: las de solo lectura a una réplica (o a la primaria si no hay ninguna
+    // disponible), el resto siempre a la primaria
+    public static void rutaDataSource(String tipo, String destino) {
+        Metrics.counter("bookstore.datasource.rutas", "tipo", tipo, "destino", destino).increment();
+    }
+
+    // estado de cada réplica según la última comprobación (1 = disponible) y su retraso en segundos
+    public static <T> void replica(String nombre, T replica, ToDoubleFunction<T> disponible, ToDoubleFunction<T> retraso) {
+        Gauge.builder("bookstore.datasource.replica.disponible", replica, disponible)
+                .description("Réplica disponible para lecturas según la última comprobación")
+                .tag("replica", nombre)
+                .register(Metrics.globalRegistry);
+        Gauge.builder("bookstore.datasource.replica.retraso", replica, retraso)
+                .description("Retraso de replicación medido en la última comprobación")
+                .tag("replica", nombre)
+                .baseUnit("seconds")
+                .register(Metrics.globalRegistry);
+    }
+
+    // altas masivas de clientes según el filtro de emails: descartado (seguro nuevo, sin consulta),
+    // duplicado (confirmado en la BD o rechazado sin confirmar) o falso_positivo (confirmado como nuevo)
+    public static void filtroEmails(String resultado, int cantidad) {
+        if (cantidad > 0) Metrics.counter("bookstore.clientes.filtro", "resultado", resultado).increment(cantidad);
+    }
+
+    // desde el arranque de la JVM hasta la primera respuesta correcta de GET /api/books (NaN mientras no la haya)
+    public static <T> void primeraRespuesta(T estado, ToDoubleFunction<T> milisegundos) {
+        TimeGauge.builder("bookstore.arranque.primera.respuesta", estado, TimeUnit.MILLISECONDS, milisegundos)
+                .description("Tiempo desde el arranque de la JVM hasta el primer GET /api/books correcto")
+                .register(Metrics.globalRegistry);
+    }
+
+    // escrituras rechazadas antes de llegar a los servicios: ritmo (429, el cliente superó su cuota)
+    // o concurrencia (503, el límite adaptativo de ventas en curso está completo)
+    public static void admisionRechazada(String motivo) {
+        Metrics.counter("bookstore.admision.rechazos", "motivo", motivo).increment();
+    }
+
+    // límite adaptativo de ventas en curso, cuántas hay ahora y clientes con cuota activa
+    public static <C, R> void admision(C concurrencia, ToDoubleFunction<C> limite, ToDoubleFunction<C> enCurso,
+                                       R ritmo, ToDoubleFunction<R> clientes) {
+        Gauge.builder("bookstore.admision.concurrencia.limite", concurrencia, limite)
+                .description("Límite adaptativo de ventas en curso")
+                .register(Metrics.globalRegistry);
+        Gauge.builder("bookstore.admision.concurrencia.en_curso", concurrencia, enCurso)
+                .description("Ventas en curso admitidas por el límite adaptativo")
+                .register(Metrics.globalRegistry);
+        Gauge.builder("bookstore.admision.clientes", ritmo, clientes)
+                .description("Clientes con cuota de escrituras activa")
+                .register(Metrics.globalRegistry);
+    }
+
+    // suscriptores conectados a GET /api/books/cambios
+    public static <T> void suscriptoresCambios(T cambios, ToDoubleFunction<T> suscriptores) {
+        Gauge.builder("bookstore.cambios.suscriptores", cambios, suscriptores)
+                .description("Suscriptores conectados al flujo de cambios del catálogo")
+                .register(Metrics.globalRegistry);
+    }
+
+    // eventos publicados en el flujo de cambios (una vez por evento, no por suscriptor): cambio, baja o reinicio
+    public static void cambioPublicado(String tipo) {
+        Metrics.counter("bookstore.cambios.eventos", "tipo", tipo).increment();
+    }
+
+    // suscriptores desconectados por no leer a tiempo (cola llena o escritura bloqueada)
+    public static void suscriptorCambiosDescartado() {
+        Metrics.counter("bookstore.cambios.descartados").increment();
+    }
+
+    public static void stockInsuficiente() { STOCK_INSUFICIENTE.increment(); }
+
+    public static void filasImportadas(int filas) { FILAS_IMPORTADAS.increment(filas); }
+
+    public static void filasConError() { FILAS_CON_ERROR.increment(); }
+
+    public static void noEncontrado() {
+        Metrics.counter("bookstore.errores", "tipo", "no_encontrado").increment();
+    }
+}
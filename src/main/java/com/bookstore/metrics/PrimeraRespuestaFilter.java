@@ -0,0 +1,47 @@
+package com.bookstore.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+// tiempo hasta que la instancia sirve de verdad: desde el arranque de la JVM (no desde main) hasta
+// la primera respuesta correcta (2xx o 304) de GET /api/books. Métrica bookstore.arranque.primera.respuesta;
+// después de medirla el filtro no hace nada más que una lectura por petición
+@Component
+public class PrimeraRespuestaFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(PrimeraRespuestaFilter.class);
+    static final String RUTA = "/api/books";
+
+    private final AtomicLong milisegundos = new AtomicLong(-1);
+
+    public PrimeraRespuestaFilter() {
+        BookstoreMetrics.primeraRespuesta(milisegundos, m -> m.get() < 0 ? Double.NaN : m.get());
+    }
+
+    public long getMilisegundos() { return milisegundos.get(); }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return milisegundos.get() >= 0 || !"GET".equals(request.getMethod()) || !RUTA.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+        if (response.getStatus() >= 400) return;
+        long transcurrido = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        if (milisegundos.compareAndSet(-1, transcurrido)) {
+            log.info("Primera respuesta de GET {} a los {} ms del arranque de la JVM", RUTA, transcurrido);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bookstore.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas de Hikari (las mismas hikaricp.* que publica Spring Boot) más un aviso cuando
+ * obtener una conexión tarda más que el umbral: el pool está saturado. El aviso incluye el
+ * estado del pool (activas, libres, hilos esperando) y se emite como mucho una vez por segundo.
+ */
+public class SlowAcquireMetricsTrackerFactory implements MetricsTrackerFactory {
+    private static final Logger log = LoggerFactory.getLogger(SlowAcquireMetricsTrackerFactory.class);
+    private static final long INTERVALO_AVISOS_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MetricsTrackerFactory delegate;
+    private final long umbralNanos;
+
+    public SlowAcquireMetricsTrackerFactory(MetricsTrackerFactory delegate, Duration umbral) {
+        this.delegate = delegate;
+        this.umbralNanos = umbral.toNanos();
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        IMetricsTracker tracker = delegate.create(poolName, poolStats);
+        AtomicLong ultimoAviso = new AtomicLong(System.nanoTime() - INTERVALO_AVISOS_NANOS);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long millis) { tracker.recordConnectionCreatedMillis(millis); }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long nanos) {
+                tracker.recordConnectionAcquiredNanos(nanos);
+                if (nanos < umbralNanos) return;
+                Metrics.counter("bookstore.pool.adquisiciones.lentas", "pool", poolName).increment();
+                long ahora = System.nanoTime(), anterior = ultimoAviso.get();
+                if (ahora - anterior >= INTERVALO_AVISOS_NANOS && ultimoAviso.compareAndSet(anterior, ahora)) {
+                    log.warn("Pool {} saturado: conexión obtenida en {} ms (activas={}, libres={}, esperando={}, máximo={})",
+                            poolName, TimeUnit.NANOSECONDS.toMillis(nanos), poolStats.getActiveConnections(),
+                            poolStats.getIdleConnections(), poolStats.getPendingThreads(), poolStats.getMaxConnections());
+                }
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long millis) { tracker.recordConnectionUsageMillis(millis); }
+
+            @Override
+            public void recordConnectionTimeout() { tracker.recordConnectionTimeout(); }
+
+            @Override
+            public void close() { tracker.close(); }
+        };
+    }
+}
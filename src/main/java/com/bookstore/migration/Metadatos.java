@@ -0,0 +1,62 @@
+package com.bookstore.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// consultas al catálogo de la base para las migraciones en Java que dependen de la base de partida
+// (MySQL guarda los nombres en minúsculas, H2 en mayúsculas: se prueban ambos)
+final class Metadatos {
+    private Metadatos() {}
+
+    static boolean existeTabla(Connection connection, String tabla) throws SQLException {
+        return tabla(connection, tabla) || tabla(connection, tabla.toUpperCase());
+    }
+
+    static boolean existeColumna(Connection connection, String tabla, String columna) throws SQLException {
+        return columna(connection, tabla, columna) || columna(connection, tabla.toUpperCase(), columna.toUpperCase());
+    }
+
+    static boolean existeIndice(Connection connection, String tabla, String indice) throws SQLException {
+        return indice(connection, tabla, indice) || indice(connection, tabla.toUpperCase(), indice);
+    }
+
+    static boolean existeClaveForanea(Connection connection, String tabla, String restriccion) throws SQLException {
+        return claveForanea(connection, tabla, restriccion) || claveForanea(connection, tabla.toUpperCase(), restriccion);
+    }
+
+    private static boolean tabla(Connection connection, String tabla) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getTables(connection.getCatalog(), connection.getSchema(), tabla, null)) {
+            return rs.next();
+        }
+    }
+
+    private static boolean columna(Connection connection, String tabla, String columna) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getColumns(connection.getCatalog(), connection.getSchema(), tabla, columna)) {
+            return rs.next();
+        }
+    }
+
+    private static boolean indice(Connection connection, String tabla, String indice) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), connection.getSchema(), tabla, false, true)) {
+            while (rs.next()) {
+                if (indice.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+            }
+            return false;
+        }
+    }
+
+    private static boolean claveForanea(Connection connection, String tabla, String restriccion) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getImportedKeys(connection.getCatalog(), connection.getSchema(), tabla)) {
+            while (rs.next()) {
+                if (restriccion.equalsIgnoreCase(rs.getString("FK_NAME"))) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.bookstore.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static com.bookstore.migration.Metadatos.existeClaveForanea;
+import static com.bookstore.migration.Metadatos.existeColumna;
+import static com.bookstore.migration.Metadatos.existeIndice;
+import static com.bookstore.migration.Metadatos.existeTabla;
+
+/**
+ * Lleva una base tomada como línea base (versión 1) hasta el esquema de V1. V1 describe el esquema
+ * completo, pero una base creada antes con ddl-auto=update puede ser de cualquier momento anterior: sin
+ * books.version ni los fragmentos de stock (o con ellos pero sin su clave foránea), sin los agregados de
+ * ventas, con ventas.id autoincremental y sin la tabla de su secuencia ni los índices por fecha. En una base
+ * nueva todo existe y no se hace nada.
+ * ventas.id puede seguir siendo autoincremental: Hibernate siempre envía el id, y MySQL solo adelanta su contador.
+ */
+public class V1_1__Esquema_completo extends BaseJavaMigration {
+    private static final Logger log = LoggerFactory.getLogger(V1_1__Esquema_completo.class);
+
+    // regla: igual que allocationSize de Venta; Hibernate reparte los ids anteriores al valor que lee de la tabla
+    private static final long BLOQUE_IDS_VENTAS = 50;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            if (!existeColumna(connection, "books", "version")) {
+                statement.execute("alter table books add column version bigint default 0 not null");
+            }
+            if (!existeColumna(connection, "books", "stock_shards")) {
+                statement.execute("alter table books add column stock_shards integer default 0");
+            }
+            if (!existeTabla(connection, "books_stock_shards")) {
+                statement.execute("create table books_stock_shards (shard integer not null, stock integer not null, "
+                        + "libro_id bigint not null, primary key (shard, libro_id)) engine=InnoDB");
+            }
+            if (!existeClaveForanea(connection, "books_stock_shards", "fk_stock_shards_libro")) {
+                // ddl-auto no creaba la clave: puede haber shards de libros ya borrados
+                int huerfanos = statement.executeUpdate("delete from books_stock_shards where libro_id not in (select id from books)");
+                if (huerfanos > 0) log.info("Borrados {} shards de stock de libros inexistentes", huerfanos);
+                statement.execute("alter table books_stock_shards add constraint fk_stock_shards_libro "
+                        + "foreign key (libro_id) references books (id) on delete cascade");
+            }
+            if (!existeTabla(connection, "ventas_agregados")) {
+                statement.execute("create table ventas_agregados (clave bigint not null, ingreso_centavos bigint not null, "
+                        + "unidades bigint not null, tipo enum ('CLIENTE','DIA','LIBRO') not null, primary key (clave, tipo)) engine=InnoDB");
+            }
+            if (!existeTabla(connection, "ventas_seq")) {
+                statement.execute("create table ventas_seq (next_val bigint) engine=InnoDB");
+            }
+            sembrarSecuencia(statement);
+            crearIndice(connection, statement, "idx_ventas_cliente_fecha", "cliente_id, fecha, id");
+            crearIndice(connection, statement, "idx_ventas_libro_fecha", "libro_id, fecha, id");
+            crearIndice(connection, statement, "idx_ventas_fecha", "fecha, id");
+        }
+    }
+
+    // la secuencia empieza por encima de las ventas existentes para que los ids nuevos no choquen con ellas
+    private static void sembrarSecuencia(Statement statement) throws SQLException {
+        long maximo;
+        try (ResultSet rs = statement.executeQuery("select coalesce(max(id), 0) from ventas")) {
+            rs.next();
+            maximo = rs.getLong(1);
+        }
+        long siguiente = maximo + BLOQUE_IDS_VENTAS + 1;
+        boolean vacia;
+        try (ResultSet rs = statement.executeQuery("select count(*) from ventas_seq")) {
+            rs.next();
+            vacia = rs.getLong(1) == 0;
+        }
+        int sembradas = vacia
+                ? statement.executeUpdate("insert into ventas_seq values (" + siguiente + ")")
+                : maximo == 0 ? 0
+                : statement.executeUpdate("update ventas_seq set next_val = " + siguiente + " where next_val < " + siguiente);
+        if (sembradas > 0) log.info("Secuencia de ventas en {} (venta máxima {})", siguiente, maximo);
+    }
+
+    private static void crearIndice(Connection connection, Statement statement, String indice, String columnas) throws SQLException {
+        if (!existeIndice(connection, "ventas", indice)) {
+            statement.execute("create index " + indice + " on ventas (" + columnas + ")");
+        }
+    }
+}
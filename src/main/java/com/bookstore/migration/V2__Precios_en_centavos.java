@@ -0,0 +1,43 @@
+package com.bookstore.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static com.bookstore.migration.Metadatos.existeColumna;
+
+/**
+ * Paso de las bases creadas con books.price (double) a importes en centavos. En Java porque MySQL 8
+ * no tiene ADD/DROP COLUMN IF [NOT] EXISTS y la base de partida varía: una base nueva (V1) ya está
+ * en centavos y aquí no se hace nada; una tomada como línea base puede venir de antes del cambio.
+ * Se agregan las columnas que falten, se copian los precios redondeados, las ventas sin precio toman
+ * el precio actual de su libro (el único conocido) y se elimina books.price, que además es NOT NULL
+ * y haría fallar los INSERT nuevos.
+ */
+public class V2__Precios_en_centavos extends BaseJavaMigration {
+    private static final Logger log = LoggerFactory.getLogger(V2__Precios_en_centavos.class);
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            if (!existeColumna(connection, "books", "price_centavos")) {
+                statement.execute("alter table books add column price_centavos bigint default 0 not null");
+            }
+            if (!existeColumna(connection, "ventas", "precio_unitario_centavos")) {
+                statement.execute("alter table ventas add column precio_unitario_centavos bigint default 0 not null");
+            }
+            if (!existeColumna(connection, "books", "price")) return;
+            int libros = statement.executeUpdate("update books set price_centavos = round(price * 100) where price_centavos = 0");
+            int ventas = statement.executeUpdate("update ventas set precio_unitario_centavos = "
+                    + "(select b.price_centavos from books b where b.id = ventas.libro_id) where precio_unitario_centavos = 0");
+            statement.execute("alter table books drop column price");
+            log.info("Precios migrados a centavos: {} libros, {} ventas", libros, ventas);
+        }
+    }
+}
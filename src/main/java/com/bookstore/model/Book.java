@@ -1,6 +1,8 @@
 package com.bookstore.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "books")
@@ -11,15 +13,26 @@ public class Book {
 
     private String title;
     private String author;
-    private double price;
+    // precio en centavos; en JSON sale como "price" decimal (ver getPrice)
+    @ColumnDefault("0")
+    @Column(name = "price_centavos", nullable = false)
+    private long priceCentavos;
     private int stock;
 
+    // > 0: stock repartido en esa cantidad de filas de books_stock_shards (ver ShardedStockService)
+    @ColumnDefault("0")
+    @Column(name = "stock_shards")
+    private int stockShards;
+
+    @Version
+    private long version;
+
     public Book() {}
 
-    public Book(String title, String author, double price, int stock) {
+    public Book(String title, String author, Dinero price, int stock) {
         this.title = title;
         this.author = author;
-        this.price = price;
+        this.priceCentavos = price.centavos();
         this.stock = stock;
     }
 
@@ -30,8 +43,15 @@ public class Book {
     public void setTitle(String title) { this.title = title; }
     public String getAuthor() { return author; }
     public void setAuthor(String author) { this.author = author; }
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public Dinero getPrice() { return Dinero.centavos(priceCentavos); }
+    public void setPrice(Dinero price) { this.priceCentavos = price.centavos(); }
+    @JsonIgnore
+    public long getPriceCentavos() { return priceCentavos; }
+    public void setPriceCentavos(long priceCentavos) { this.priceCentavos = priceCentavos; }
     public int getStock() { return stock; }
     public void setStock(int stock) { this.stock = stock; }
+    public int getStockShards() { return stockShards; }
+    public void setStockShards(int stockShards) { this.stockShards = stockShards; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.bookstore.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+
+/**
+ * Importe en centavos. Las entidades y los acumuladores guardan el long directamente (sin objetos
+ * ni redondeos de double); este tipo se usa en los bordes: JSON, validación y mensajes.
+ * En JSON se lee y escribe como número decimal con a lo sumo dos decimales ("price": 45.50).
+ */
+public record Dinero(long centavos) implements Comparable<Dinero> {
+    public static final Dinero CERO = new Dinero(0);
+
+    public static Dinero centavos(long centavos) {
+        return centavos == 0 ? CERO : new Dinero(centavos);
+    }
+
+    // "45", "45.5", "45.50", "-1.25": más de dos decimales no es un importe válido (no se redondea)
+    public static Dinero of(String texto) {
+        return centavos(parse(texto));
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Dinero of(BigDecimal valor) {
+        try {
+            return centavos(valor.movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Importe inválido (máximo dos decimales): " + valor.toPlainString());
+        }
+    }
+
+    public static long parse(String texto) {
+        String s = texto.trim();
+        int punto = s.indexOf('.');
+        if (punto < 0) return Math.multiplyExact(Long.parseLong(s), 100);
+        String decimales = s.substring(punto + 1);
+        if (decimales.isEmpty() || decimales.length() > 2 || !decimales.chars().allMatch(Character::isDigit)) {
+            throw new NumberFormatException("Importe inválido (máximo dos decimales): " + texto);
+        }
+        String entero = s.substring(0, punto);
+        boolean negativo = entero.startsWith("-");
+        long unidades = entero.isEmpty() || entero.equals("-") || entero.equals("+") ? 0 : Long.parseLong(entero);
+        long fraccion = Long.parseLong(decimales) * (decimales.length() == 1 ? 10 : 1);
+        return Math.addExact(Math.multiplyExact(unidades, 100), negativo ? -fraccion : fraccion);
+    }
+
+    // "45.50", sin String.format ni BigDecimal
+    public static String formato(long centavos) {
+        long abs = Math.abs(centavos);
+        long resto = abs % 100;
+        return (centavos < 0 ? "-" : "") + abs / 100 + (resto < 10 ? ".0" : ".") + resto;
+    }
+
+    public Dinero por(int cantidad) {
+        return centavos(Math.multiplyExact(centavos, cantidad));
+    }
+
+    public Dinero mas(Dinero otro) {
+        return centavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public boolean esPositivo() { return centavos > 0; }
+
+    @JsonValue
+    public BigDecimal decimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public String toString() {
+        return formato(centavos);
+    }
+}
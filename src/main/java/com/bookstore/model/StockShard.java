@@ -0,0 +1,53 @@
+package com.bookstore.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+// una porción del stock de un libro repartido; el stock del libro es la suma de sus shards
+@Entity
+@Table(name = "books_stock_shards")
+public class StockShard {
+
+    @Embeddable
+    public static class Clave implements Serializable {
+        @Column(name = "libro_id")
+        private long libroId;
+        private int shard;
+
+        public Clave() {}
+
+        public Clave(long libroId, int shard) {
+            this.libroId = libroId;
+            this.shard = shard;
+        }
+
+        public long getLibroId() { return libroId; }
+        public int getShard() { return shard; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave c && libroId == c.libroId && shard == c.shard;
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(libroId, shard); }
+    }
+
+    @EmbeddedId
+    private Clave id;
+
+    private int stock;
+
+    public StockShard() {}
+
+    public StockShard(long libroId, int shard, int stock) {
+        this.id = new Clave(libroId, shard);
+        this.stock = stock;
+    }
+
+    public Clave getId() { return id; }
+    public int getStock() { return stock; }
+    public void setStock(int stock) { this.stock = stock; }
+}
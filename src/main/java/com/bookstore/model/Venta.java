@@ -1,23 +1,54 @@
 package com.bookstore.model;
 
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ventas")
+// índices compuestos para el historial por cliente, por libro y por rango de fechas; terminan en
+// (fecha, id) para que el orden y el cursor de paginación salgan del propio índice.
+// En MySQL los dos primeros también sirven a las claves foráneas, que no crean otro índice.
+@Table(name = "ventas", indexes = {
+        @Index(name = "idx_ventas_cliente_fecha", columnList = "cliente_id, fecha, id"),
+        @Index(name = "idx_ventas_libro_fecha", columnList = "libro_id, fecha, id"),
+        @Index(name = "idx_ventas_fecha", columnList = "fecha, id")
+})
 public class Venta {
+    // secuencia con asignación por bloques (pooled): permite agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "venta_seq")
+    @SequenceGenerator(name = "venta_seq", sequenceName = "ventas_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    // en una misma respuesta (p. ej. POST /api/ventas/batch) cada cliente y libro se escribe completo
+    // la primera vez y como su id en las siguientes: "cliente": 3
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
     private Cliente cliente;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
     private Book libro;
 
+    // las mismas claves foráneas, solo lectura: el historial filtra por ventas.cliente_id / ventas.libro_id
+    // (v.libro.id con el libro ya unido se traduce a books.id y el plan deja de empezar por el índice de ventas)
+    @Column(name = "cliente_id", insertable = false, updatable = false)
+    private Long clienteId;
+
+    @Column(name = "libro_id", insertable = false, updatable = false)
+    private Long libroId;
+
     private int cantidad;
 
+    // precio del libro al momento de la venta: los ingresos históricos no dependen del precio actual
+    @ColumnDefault("0")
+    @Column(name = "precio_unitario_centavos", nullable = false)
+    private long precioUnitarioCentavos;
+
     private LocalDateTime fecha = LocalDateTime.now();
 
     public Venta() {}
@@ -26,6 +57,7 @@ public class Venta {
         this.cliente = cliente;
         this.libro = libro;
         this.cantidad = cantidad;
+        this.precioUnitarioCentavos = libro.getPriceCentavos();
     }
 
     // getters & setters
@@ -36,6 +68,13 @@ public class Venta {
     public void setLibro(Book libro) { this.libro = libro; }
     public int getCantidad() { return cantidad; }
     public void setCantidad(int cantidad) { this.cantidad = cantidad; }
+    public Dinero getPrecioUnitario() { return Dinero.centavos(precioUnitarioCentavos); }
+    @JsonIgnore
+    public long getPrecioUnitarioCentavos() { return precioUnitarioCentavos; }
+    public void setPrecioUnitarioCentavos(long precioUnitarioCentavos) { this.precioUnitarioCentavos = precioUnitarioCentavos; }
+    // importe de la venta en centavos (cantidad por el precio capturado)
+    @JsonIgnore
+    public long getImporteCentavos() { return Math.multiplyExact(precioUnitarioCentavos, cantidad); }
     public LocalDateTime getFecha() { return fecha; }
     public void setFecha(LocalDateTime fecha) { this.fecha = fecha; }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.bookstore.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+// totales acumulados de ventas por libro, cliente o día (tabla resumen, la mantiene SalesStatsService)
+@Entity
+@Table(name = "ventas_agregados")
+public class VentaAgregado {
+    public enum Tipo { LIBRO, CLIENTE, DIA }
+
+    @Embeddable
+    public static class Clave implements Serializable {
+        @Enumerated(EnumType.STRING)
+        @Column(length = 10)
+        private Tipo tipo;
+        // id del libro/cliente, o día como epochDay
+        private long clave;
+
+        public Clave() {}
+
+        public Clave(Tipo tipo, long clave) {
+            this.tipo = tipo;
+            this.clave = clave;
+        }
+
+        public Tipo getTipo() { return tipo; }
+        public long getClave() { return clave; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave c && tipo == c.tipo && clave == c.clave;
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(tipo, clave); }
+    }
+
+    @EmbeddedId
+    private Clave id;
+
+    private long unidades;
+    private long ingresoCentavos;
+
+    public VentaAgregado() {}
+
+    public VentaAgregado(Tipo tipo, long clave, long unidades, long ingresoCentavos) {
+        this.id = new Clave(tipo, clave);
+        this.unidades = unidades;
+        this.ingresoCentavos = ingresoCentavos;
+    }
+
+    // getters & setters
+    public Clave getId() { return id; }
+    public long getUnidades() { return unidades; }
+    public void setUnidades(long unidades) { this.unidades = unidades; }
+    public long getIngresoCentavos() { return ingresoCentavos; }
+    public void setIngresoCentavos(long ingresoCentavos) { this.ingresoCentavos = ingresoCentavos; }
+}
@@ -1,9 +1,51 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
-}
\ No newline at end of file
+
+    // paginación por cursor (keyset) sobre el id: no usa OFFSET
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // lectura secuencial para el modo streaming; requiere una transacción abierta
+    @Query("select b from Book b order by b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAllOrderById();
+
+    // descuento atómico: solo afecta la fila si hay stock suficiente (0 filas = sin stock).
+    // Sube la versión: una edición con la versión leída antes de la venta es un conflicto
+    @Modifying(flushAutomatically = true)
+    @Query("update Book b set b.stock = b.stock - :cantidad, b.version = b.version + 1 " +
+            "where b.id = :id and b.stock >= :cantidad")
+    int decrementStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    // stock total: el de la fila del libro más el de sus shards (0 filas si no está repartido)
+    @Query("select cast(b.stock + coalesce((select sum(s.stock) from StockShard s where s.id.libroId = b.id), 0) as Integer) " +
+            "from Book b where b.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    @Query("select b.stockShards from Book b where b.id = :id")
+    Optional<Integer> findStockShardsById(@Param("id") Long id);
+
+    // cambia el reparto; sube la versión porque cambia el stock de la fila
+    @Modifying(flushAutomatically = true)
+    @Query("update Book b set b.stock = :stock, b.stockShards = :shards, b.version = b.version + 1 where b.id = :id")
+    int fijarReparto(@Param("id") Long id, @Param("stock") int stock, @Param("shards") int shards);
+}
@@ -2,11 +2,18 @@ package com.bookstore.repository;
 
 import com.bookstore.model.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     Optional<Cliente> findByEmail(String email);
+
+    // confirma en una sola consulta los emails que el filtro de Bloom marca como posibles duplicados
+    @Query("select c.email from Cliente c where c.email in :emails")
+    List<String> findEmailsIn(Collection<String> emails);
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.StockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockShardRepository extends JpaRepository<StockShard, StockShard.Clave> {
+
+    // descuento atómico sobre un solo shard (0 filas = ese shard no alcanza)
+    @Modifying(flushAutomatically = true)
+    @Query("update StockShard s set s.stock = s.stock - :cantidad " +
+            "where s.id.libroId = :libroId and s.id.shard = :shard and s.stock >= :cantidad")
+    int decrementar(@Param("libroId") long libroId, @Param("shard") int shard, @Param("cantidad") int cantidad);
+
+    // lectura sin bloqueo de los shards que hoy cubren la cantidad
+    @Query("select s.id.shard from StockShard s where s.id.libroId = :libroId and s.stock >= :cantidad")
+    List<Integer> findShardsConStock(@Param("libroId") long libroId, @Param("cantidad") int cantidad);
+
+    // todos los shards del libro bloqueados, siempre en el mismo orden
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StockShard s where s.id.libroId = :libroId order by s.id.shard")
+    List<StockShard> findForUpdate(@Param("libroId") long libroId);
+
+    // [libroId, stock total] de los libros indicados que tienen shards
+    @Query("select s.id.libroId, sum(s.stock) from StockShard s where s.id.libroId in :ids group by s.id.libroId")
+    List<Object[]> sumarPorLibro(@Param("ids") Collection<Long> ids);
+
+    // limpia el contexto de persistencia: los shards borrados pueden estar cargados
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from StockShard s where s.id.libroId = :libroId")
+    int borrarPorLibro(@Param("libroId") long libroId);
+}
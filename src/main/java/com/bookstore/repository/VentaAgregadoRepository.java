@@ -0,0 +1,36 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.VentaAgregado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VentaAgregadoRepository extends JpaRepository<VentaAgregado, VentaAgregado.Clave> {
+
+    @Modifying
+    @Query("delete from VentaAgregado")
+    void deleteAllInBulk();
+
+    // suma sobre lo que haya en la fila (otras instancias también vuelcan); 0 si la clave no existe todavía
+    @Modifying
+    @Query("update VentaAgregado a set a.unidades = a.unidades + :unidades, a.ingresoCentavos = a.ingresoCentavos + :ingresoCentavos " +
+            "where a.id = :clave")
+    int sumar(@Param("clave") VentaAgregado.Clave clave, @Param("unidades") long unidades,
+              @Param("ingresoCentavos") long ingresoCentavos);
+
+    // reconstrucción desde el historial de ventas, al precio capturado en cada venta (sin join a books)
+    @Query("select v.libro.id, sum(v.cantidad), sum(v.cantidad * v.precioUnitarioCentavos) from Venta v group by v.libro.id")
+    List<Object[]> totalesPorLibro();
+
+    @Query("select v.cliente.id, sum(v.cantidad), sum(v.cantidad * v.precioUnitarioCentavos) from Venta v group by v.cliente.id")
+    List<Object[]> totalesPorCliente();
+
+    @Query("select extract(date from v.fecha), sum(v.cantidad), sum(v.cantidad * v.precioUnitarioCentavos) from Venta v " +
+            "group by extract(date from v.fecha)")
+    List<Object[]> totalesPorDia();
+}
@@ -0,0 +1,14 @@
+package com.bookstore.repository;
+
+import com.bookstore.dto.VentaResumen;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// historial de ventas filtrado y paginado por cursor (fecha, id), de la más reciente a la más antigua
+public interface VentaHistorialRepository {
+
+    // los filtros nulos no se aplican; despuesDeFecha/despuesDeId es la última fila de la página anterior
+    List<VentaResumen> findHistorial(Long clienteId, Long libroId, LocalDateTime desde, LocalDateTime hasta,
+                                     LocalDateTime despuesDeFecha, Long despuesDeId, int limite);
+}
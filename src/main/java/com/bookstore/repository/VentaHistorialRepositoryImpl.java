@@ -0,0 +1,54 @@
+package com.bookstore.repository;
+
+import com.bookstore.dto.VentaResumen;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// la consulta se arma solo con los filtros presentes: un "(:x is null or ...)" impediría
+// que MySQL use los índices (cliente_id, fecha, id) / (libro_id, fecha, id) / (fecha, id) de Venta
+class VentaHistorialRepositoryImpl implements VentaHistorialRepository {
+    private final EntityManager entityManager;
+
+    VentaHistorialRepositoryImpl(EntityManager entityManager) { this.entityManager = entityManager; }
+
+    @Override
+    public List<VentaResumen> findHistorial(Long clienteId, Long libroId, LocalDateTime desde, LocalDateTime hasta,
+                                            LocalDateTime despuesDeFecha, Long despuesDeId, int limite) {
+        StringBuilder jpql = new StringBuilder(
+                "select new com.bookstore.dto.VentaResumen(v.id, v.fecha, v.cantidad, c.id, c.nombre, l.id, l.title) " +
+                "from Venta v join v.cliente c join v.libro l where 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        if (clienteId != null) {
+            jpql.append(" and v.clienteId = :clienteId");
+            params.put("clienteId", clienteId);
+        }
+        if (libroId != null) {
+            jpql.append(" and v.libroId = :libroId");
+            params.put("libroId", libroId);
+        }
+        if (desde != null) {
+            jpql.append(" and v.fecha >= :desde");
+            params.put("desde", desde);
+        }
+        if (hasta != null) {
+            jpql.append(" and v.fecha < :hasta");
+            params.put("hasta", hasta);
+        }
+        if (despuesDeFecha != null) {
+            // el "fecha <=" delante del OR acota el rango del índice; el OR solo no lo usa
+            jpql.append(" and v.fecha <= :despuesDeFecha and (v.fecha < :despuesDeFecha or v.id < :despuesDeId)");
+            params.put("despuesDeFecha", despuesDeFecha);
+            params.put("despuesDeId", despuesDeId);
+        }
+        jpql.append(" order by v.fecha desc, v.id desc");
+
+        TypedQuery<VentaResumen> query = entityManager.createQuery(jpql.toString(), VentaResumen.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limite).getResultList();
+    }
+}
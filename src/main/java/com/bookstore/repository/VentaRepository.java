@@ -1,9 +1,26 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.Venta;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface VentaRepository extends JpaRepository<Venta, Long> {
-}
\ No newline at end of file
+public interface VentaRepository extends JpaRepository<Venta, Long>, VentaHistorialRepository {
+
+    // cliente y libro son LAZY: las lecturas de entidades los traen en el mismo SELECT
+    @Override
+    @EntityGraph(attributePaths = {"cliente", "libro"})
+    List<Venta> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"cliente", "libro"})
+    Optional<Venta> findById(Long id);
+
+    // usa el índice (cliente_id, fecha, id)
+    List<Venta> findByClienteIdAndLibroIdAndFecha(Long clienteId, Long libroId, LocalDateTime fecha);
+}
@@ -0,0 +1,328 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre título y autor de los libros.
+ * Cada término de la consulta se compara de forma exacta, por prefijo y con una errata
+ * (distancia de edición 1, vía índice de borrados). Se devuelven los documentos que cubren
+ * todos los términos y, solo si no hay ninguno, los que cubren parte; se ordenan por
+ * puntuación (exacto > prefijo > errata, con bonus si coincide en el título) y, a igual
+ * puntuación, por id. Los candidatos se recorren en orden de id y el recorrido se corta en
+ * cuanto los k primeros tienen la mejor puntuación posible: un término frecuente no obliga
+ * a puntuar todos sus documentos.
+ */
+@Component
+public class BookSearchIndex {
+    static final int MAX_PREFIX_EXPANSION = 64;
+    static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final double EXACT_SCORE = 3.0;
+    private static final double PREFIX_SCORE = 2.0;
+    private static final double FUZZY_SCORE = 1.0;
+    private static final double TITLE_BONUS = 0.5;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private record Documento(String title, String author, Set<String> terminosTitulo, Set<String> terminos) {}
+
+    // término del vocabulario que satisface un término de la consulta, con su puntuación y sus documentos
+    private record Coincidencia(double base, LongPostings postings) {}
+
+    private static final Comparator<BookSearchResult> ORDEN = Comparator
+            .comparingDouble(BookSearchResult::score)
+            .thenComparing(BookSearchResult::id, Comparator.reverseOrder());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final TreeMap<String, LongPostings> terminos = new TreeMap<>();
+    // término -> cuántos documentos lo tienen en el título (para saber si el bonus es alcanzable)
+    private final Map<String, Integer> enTitulos = new HashMap<>();
+    // borrado de un carácter -> términos del vocabulario que lo generan
+    private final Map<String, Set<String>> borrados = new HashMap<>();
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) return;
+        Set<String> terminosTitulo = new HashSet<>(tokenize(book.getTitle()));
+        Set<String> todos = new HashSet<>(terminosTitulo);
+        todos.addAll(tokenize(book.getAuthor()));
+        Documento documento = new Documento(book.getTitle(), book.getAuthor(), terminosTitulo, todos);
+
+        lock.writeLock().lock();
+        try {
+            Documento anterior = documentos.put(book.getId(), documento);
+            if (anterior != null) quitarTerminos(book.getId(), anterior);
+            for (String termino : todos) {
+                LongPostings postings = terminos.get(termino);
+                if (postings == null) {
+                    postings = new LongPostings();
+                    terminos.put(termino, postings);
+                    if (termino.length() >= MIN_FUZZY_LENGTH) {
+                        for (String borrado : borrados(termino)) {
+                            borrados.computeIfAbsent(borrado, k -> new HashSet<>()).add(termino);
+                        }
+                    }
+                }
+                postings.add(book.getId());
+            }
+            for (String termino : terminosTitulo) enTitulos.merge(termino, 1, Integer::sum);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) return;
+        lock.writeLock().lock();
+        try {
+            Documento anterior = documentos.remove(id);
+            if (anterior != null) quitarTerminos(id, anterior);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documentos.clear();
+            terminos.clear();
+            enTitulos.clear();
+            borrados.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<BookSearchResult> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            // por cada término de la consulta: términos del vocabulario que lo satisfacen y su puntuación
+            List<Map<String, Coincidencia>> coincidencias = new ArrayList<>(tokens.size());
+            int masRaro = 0;
+            long menorTamano = Long.MAX_VALUE;
+            for (String token : tokens) {
+                Map<String, Coincidencia> terminosToken = expandir(token);
+                long tamano = 0;
+                for (Coincidencia coincidencia : terminosToken.values()) tamano += coincidencia.postings().size();
+                if (tamano < menorTamano) {
+                    menorTamano = tamano;
+                    masRaro = coincidencias.size();
+                }
+                coincidencias.add(terminosToken);
+            }
+
+            // la mejor puntuación que puede aportar cada término de la consulta
+            double[] mejores = new double[tokens.size()];
+            for (int i = 0; i < tokens.size(); i++) {
+                for (Map.Entry<String, Coincidencia> e : coincidencias.get(i).entrySet()) {
+                    double conBonus = e.getValue().base() + (enTitulos.containsKey(e.getKey()) ? TITLE_BONUS : 0);
+                    mejores[i] = Math.max(mejores[i], conBonus);
+                }
+            }
+
+            // primero solo los documentos del término más selectivo (los únicos que pueden cubrirlos todos)
+            PriorityQueue<BookSearchResult> heap = new PriorityQueue<>(limit + 1, ORDEN);
+            puntuar(postings(List.of(coincidencias.get(masRaro))), coincidencias, tokens.size(),
+                    cota(mejores, tokens.size()), heap, limit);
+
+            // si ninguno los cubre todos, se aceptan documentos que cubren solo parte de la consulta
+            // (como mucho todos menos uno: eso acota la mejor puntuación posible)
+            if (heap.isEmpty() && tokens.size() > 1) {
+                puntuar(postings(coincidencias), coincidencias, 1, cota(mejores, tokens.size() - 1), heap, limit);
+            }
+
+            List<BookSearchResult> resultados = new ArrayList<>(heap);
+            resultados.sort(ORDEN.reversed());
+            return resultados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Coincidencia> expandir(String token) {
+        Map<String, Coincidencia> resultado = new HashMap<>();
+        LongPostings exacto = terminos.get(token);
+        if (exacto != null) resultado.put(token, new Coincidencia(EXACT_SCORE, exacto));
+        int expansiones = 0;
+        for (Map.Entry<String, LongPostings> e : terminos.tailMap(token, false).entrySet()) {
+            if (!e.getKey().startsWith(token) || ++expansiones > MAX_PREFIX_EXPANSION) break;
+            resultado.put(e.getKey(), new Coincidencia(PREFIX_SCORE, e.getValue()));
+        }
+        if (token.length() >= MIN_FUZZY_LENGTH) agregarErratas(token, resultado);
+        return resultado;
+    }
+
+    private static List<LongPostings> postings(List<Map<String, Coincidencia>> coincidencias) {
+        List<LongPostings> listas = new ArrayList<>();
+        for (Map<String, Coincidencia> terminosToken : coincidencias) {
+            for (Coincidencia coincidencia : terminosToken.values()) listas.add(coincidencia.postings());
+        }
+        return listas;
+    }
+
+    // puntuación máxima de un documento que cubre como mucho maxCubiertos términos: los de mejor puntuación
+    private static double cota(double[] mejores, int maxCubiertos) {
+        double[] orden = mejores.clone();
+        Arrays.sort(orden);
+        int cubiertos = 0;
+        double score = 0;
+        for (int i = orden.length - 1; i >= 0 && cubiertos < maxCubiertos; i--) {
+            if (orden[i] == 0) break;
+            cubiertos++;
+            score += orden[i];
+        }
+        return cubiertos * 100 + score;
+    }
+
+    // puntúa cada candidato mirando sus propios términos (pocos) en vez de recorrer postings. Van en orden
+    // de id y a igual puntuación gana el menor: con k resultados en la cota, ningún candidato posterior entra
+    private void puntuar(List<LongPostings> candidatos, List<Map<String, Coincidencia>> coincidencias, int minimoTerminos,
+                         double cota, PriorityQueue<BookSearchResult> heap, int limit) {
+        enOrden(candidatos, id -> {
+            Documento documento = documentos.get(id);
+            int cubiertos = 0;
+            double score = 0;
+            for (Map<String, Coincidencia> terminosToken : coincidencias) {
+                double mejor = 0;
+                for (String termino : documento.terminos()) {
+                    Coincidencia coincidencia = terminosToken.get(termino);
+                    if (coincidencia != null) {
+                        mejor = Math.max(mejor, coincidencia.base() + (documento.terminosTitulo().contains(termino) ? TITLE_BONUS : 0));
+                    }
+                }
+                if (mejor > 0) {
+                    cubiertos++;
+                    score += mejor;
+                }
+            }
+            if (cubiertos >= minimoTerminos) {
+                // cada término cubierto pesa más que cualquier suma de puntuaciones
+                heap.offer(new BookSearchResult(id, documento.title(), documento.author(), cubiertos * 100 + score));
+                if (heap.size() > limit) heap.poll();
+            }
+            return heap.size() < limit || heap.peek().score() < cota;
+        });
+    }
+
+    // unión de las listas en orden creciente de id y sin repetidos, mientras la acción devuelva true
+    private static void enOrden(List<LongPostings> listas, LongPredicate accion) {
+        PriorityQueue<Cursor> cola = new PriorityQueue<>(Math.max(1, listas.size()), Comparator.comparingLong(Cursor::actual));
+        for (LongPostings lista : listas) {
+            if (!lista.isEmpty()) cola.add(new Cursor(lista));
+        }
+        boolean primero = true;
+        long anterior = 0;
+        while (!cola.isEmpty()) {
+            Cursor cursor = cola.poll();
+            long id = cursor.actual();
+            if (primero || id != anterior) {
+                if (!accion.test(id)) return;
+                primero = false;
+                anterior = id;
+            }
+            if (cursor.avanzar()) cola.add(cursor);
+        }
+    }
+
+    private static final class Cursor {
+        private final LongPostings lista;
+        private int posicion;
+
+        Cursor(LongPostings lista) { this.lista = lista; }
+
+        long actual() { return lista.get(posicion); }
+
+        boolean avanzar() { return ++posicion < lista.size(); }
+    }
+
+    // términos a una errata del token: los que comparten con él un borrado (o son uno de sus borrados,
+    // o él es uno de los suyos). Los que ya coinciden exacto o por prefijo conservan esa puntuación
+    private void agregarErratas(String token, Map<String, Coincidencia> resultado) {
+        agregarErratas(token, borrados.getOrDefault(token, Set.of()), resultado);
+        for (String borrado : borrados(token)) {
+            agregarErratas(token, Set.of(borrado), resultado);
+            agregarErratas(token, borrados.getOrDefault(borrado, Set.of()), resultado);
+        }
+    }
+
+    private void agregarErratas(String token, Set<String> candidatos, Map<String, Coincidencia> resultado) {
+        for (String candidato : candidatos) {
+            if (resultado.containsKey(candidato) || !unaErrata(token, candidato)) continue;
+            LongPostings postings = terminos.get(candidato);
+            if (postings != null) resultado.put(candidato, new Coincidencia(FUZZY_SCORE, postings));
+        }
+    }
+
+    private void quitarTerminos(Long id, Documento documento) {
+        for (String termino : documento.terminosTitulo()) {
+            enTitulos.computeIfPresent(termino, (t, n) -> n > 1 ? n - 1 : null);
+        }
+        for (String termino : documento.terminos()) {
+            LongPostings postings = terminos.get(termino);
+            if (postings == null) continue;
+            postings.remove(id);
+            if (postings.isEmpty()) {
+                terminos.remove(termino);
+                if (termino.length() >= MIN_FUZZY_LENGTH) {
+                    for (String borrado : borrados(termino)) {
+                        Set<String> origen = borrados.get(borrado);
+                        if (origen != null && origen.remove(termino) && origen.isEmpty()) borrados.remove(borrado);
+                    }
+                }
+            }
+        }
+    }
+
+    static List<String> tokenize(String texto) {
+        if (texto == null || texto.isBlank()) return List.of();
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizado.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static Set<String> borrados(String termino) {
+        Set<String> resultado = new HashSet<>(termino.length());
+        for (int i = 0; i < termino.length(); i++) {
+            resultado.add(termino.substring(0, i) + termino.substring(i + 1));
+        }
+        return resultado;
+    }
+
+    // distancia de Damerau (alineamiento óptimo de cadenas) exactamente 1: un borrado, una inserción,
+    // una sustitución o una transposición de dos letras contiguas. Sin matriz: se salta el prefijo común
+    static boolean unaErrata(String a, String b) {
+        if (a.length() < b.length()) return unaErrata(b, a);
+        if (a.length() - b.length() > 1) return false;
+        int i = 0;
+        while (i < b.length() && a.charAt(i) == b.charAt(i)) i++;
+        if (a.length() > b.length()) return a.regionMatches(i + 1, b, i, b.length() - i);
+        if (i == a.length()) return false;
+        if (a.regionMatches(i + 1, b, i + 1, a.length() - i - 1)) return true;
+        return i + 1 < a.length() && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                && a.regionMatches(i + 2, b, i + 2, a.length() - i - 2);
+    }
+}
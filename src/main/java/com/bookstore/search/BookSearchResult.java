@@ -0,0 +1,4 @@
+package com.bookstore.search;
+
+public record BookSearchResult(Long id, String title, String author, double score) {
+}
@@ -0,0 +1,41 @@
+package com.bookstore.search;
+
+import java.util.Arrays;
+
+// lista de ids ordenada sobre un long[]: sin boxing y con inserción O(1) cuando los ids llegan en orden
+final class LongPostings {
+    private long[] ids = new long[4];
+    private int size;
+
+    void add(long id) {
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) return;
+        pos = -pos - 1;
+        ensureCapacity();
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        ids[pos] = id;
+        size++;
+    }
+
+    void remove(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) return;
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+    }
+
+    boolean isEmpty() { return size == 0; }
+
+    int size() { return size; }
+
+    long get(int i) { return ids[i]; }
+
+    private void ensureCapacity() {
+        if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+    }
+}
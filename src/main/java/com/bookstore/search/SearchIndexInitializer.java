@@ -0,0 +1,31 @@
+package com.bookstore.search;
+
+import com.bookstore.service.BookService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// carga inicial del índice de búsqueda recorriendo el catálogo en streaming
+@Component
+public class SearchIndexInitializer {
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    private final BookService bookService;
+    private final BookSearchIndex bookSearchIndex;
+
+    public SearchIndexInitializer(BookService bookService, BookSearchIndex bookSearchIndex) {
+        this.bookService = bookService;
+        this.bookSearchIndex = bookSearchIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        bookSearchIndex.clear();
+        bookService.streamAll(bookSearchIndex::index);
+        log.info("Índice de búsqueda cargado: {} libros en {} ms",
+                bookSearchIndex.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
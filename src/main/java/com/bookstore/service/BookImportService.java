@@ -0,0 +1,308 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.BookRequest;
+import com.bookstore.dto.ImportProgress;
+import com.bookstore.dto.ImportProgress.ImportError;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.metrics.BookstoreMetrics;
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import com.bookstore.search.BookSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Importación masiva de libros desde CSV (title,author,price,stock[,id]) o NDJSON.
+ * El archivo se lee línea a línea en bloques de chunkSize filas: cada bloque se convierte y
+ * valida en paralelo (reglas de BookService.validateBook) y se escribe en lotes JDBC dentro
+ * de su propia transacción. Las filas con id actualizan el libro existente (o lo crean con ese id).
+ * Una fila inválida se informa sin detener el resto. Si la BD rechaza alguna fila del bloque (p. ej. un título
+ * más largo que la columna), el bloque se revierte y se reintenta fila a fila, cada una en su transacción:
+ * se guardan las demás y solo se informan las que fallan.
+ */
+@Service
+public class BookImportService {
+    public enum Formato { CSV, NDJSON }
+
+    static final int MAX_ERRORES_INFORMADOS = 1000;
+    private static final int MAX_IMPORTACIONES_RECIENTES = 20;
+
+    private static final String INSERT = "insert into books (title, author, price_centavos, stock, version) values (?, ?, ?, ?, 0)";
+    private static final String INSERT_CON_ID = "insert into books (id, title, author, price_centavos, stock, version) values (?, ?, ?, ?, ?, 0)";
+    // el stock importado reemplaza al anterior: un libro repartido vuelve a tener todo su stock en una fila
+    private static final String UPDATE = "update books set title = ?, author = ?, price_centavos = ?, stock = ?, stock_shards = 0, version = version + 1 where id = ?";
+    private static final String BORRAR_SHARDS = "delete from books_stock_shards where libro_id = ?";
+
+    private final BookService bookService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ReadCache readCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final CambiosCatalogo cambiosCatalogo;
+    private final int chunkSize;
+    private final Map<String, Importacion> importaciones = new ConcurrentHashMap<>();
+
+    public BookImportService(BookService bookService, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, ReadCache readCache, BookSearchIndex bookSearchIndex,
+                             CambiosCatalogo cambiosCatalogo, @Value("${bookstore.import.chunk-size:1000}") int chunkSize) {
+        this.bookService = bookService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.readCache = readCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.cambiosCatalogo = cambiosCatalogo;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportProgress importar(String id, Formato formato, InputStream entrada) {
+        Importacion importacion = new Importacion(id == null || id.isBlank() ? UUID.randomUUID().toString() : id);
+        if (importaciones.putIfAbsent(importacion.id, importacion) != null) {
+            throw new BadRequestException("Ya existe una importación con id " + importacion.id);
+        }
+        limpiarAntiguas();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            long numeroLinea = 0;
+            if (formato == Formato.CSV) {
+                reader.readLine(); // cabecera
+                numeroLinea++;
+            }
+            List<Linea> bloque = new ArrayList<>(chunkSize);
+            String texto;
+            while ((texto = reader.readLine()) != null) {
+                numeroLinea++;
+                if (texto.isBlank()) continue;
+                bloque.add(new Linea(numeroLinea, texto));
+                importacion.leidas.incrementAndGet();
+                if (bloque.size() == chunkSize) {
+                    procesarBloque(importacion, formato, bloque);
+                    bloque = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!bloque.isEmpty()) procesarBloque(importacion, formato, bloque);
+            importacion.estado = "COMPLETADA";
+        } catch (IOException | RuntimeException e) {
+            importacion.estado = "FALLIDA";
+            importacion.error(0, "Lectura interrumpida: " + e.getMessage());
+        } finally {
+            importacion.fin = System.nanoTime();
+        }
+        return importacion.progreso();
+    }
+
+    public ImportProgress getProgreso(String id) {
+        Importacion importacion = importaciones.get(id);
+        if (importacion == null) throw new ResourceNotFoundException("Importación no encontrada");
+        return importacion.progreso();
+    }
+
+    public List<ImportProgress> getImportaciones() {
+        return importaciones.values().stream().map(Importacion::progreso).toList();
+    }
+
+    private void procesarBloque(Importacion importacion, Formato formato, List<Linea> bloque) {
+        // conversión y validación en paralelo; el orden del bloque se conserva
+        List<Fila> filas = bloque.parallelStream().map(linea -> convertir(formato, linea)).toList();
+        List<Fila> validas = new ArrayList<>(filas.size());
+        for (Fila fila : filas) {
+            if (fila.error != null) importacion.error(fila.linea, fila.error);
+            else validas.add(fila);
+        }
+        if (validas.isEmpty()) return;
+        List<Fila> guardadas = validas;
+        List<Fila> sinId = validas.stream().filter(fila -> fila.book.getId() == null).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> escribir(validas));
+        } catch (RuntimeException e) {
+            sinId.forEach(fila -> fila.book.setId(null)); // ids de un insert revertido
+            guardadas = new ArrayList<>(validas.size());
+            for (Fila fila : validas) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> escribir(List.of(fila)));
+                    guardadas.add(fila);
+                } catch (RuntimeException rechazo) {
+                    importacion.error(fila.linea, "Error al guardar la fila: "
+                            + NestedExceptionUtils.getMostSpecificCause(rechazo).getMessage());
+                }
+            }
+        }
+        guardadas.forEach(fila -> {
+            readCache.evictLibro(fila.book.getId());
+            bookSearchIndex.index(fila.book);
+            cambiosCatalogo.libroCambiado(fila.book.getId());
+        });
+        importacion.importadas.addAndGet(guardadas.size());
+        BookstoreMetrics.filasImportadas(guardadas.size());
+    }
+
+    private Fila convertir(Formato formato, Linea linea) {
+        try {
+            Book book = formato == Formato.CSV ? desdeCsv(linea.texto) : desdeJson(linea.texto);
+            bookService.validateBook(book);
+            return new Fila(linea.numero, book, null);
+        } catch (BadRequestException e) {
+            return new Fila(linea.numero, null, e.getMessage());
+        } catch (RuntimeException | IOException e) {
+            return new Fila(linea.numero, null, "Fila mal formada: " + e.getMessage());
+        }
+    }
+
+    private void escribir(List<Fila> filas) {
+        List<Book> nuevos = new ArrayList<>();
+        List<Book> existentes = new ArrayList<>();
+        for (Fila fila : filas) (fila.book.getId() == null ? nuevos : existentes).add(fila.book);
+
+        if (!existentes.isEmpty()) {
+            jdbcTemplate.batchUpdate(BORRAR_SHARDS, lote(existentes, (ps, b) -> ps.setLong(1, b.getId())));
+            int[] actualizados = jdbcTemplate.batchUpdate(UPDATE, lote(existentes, (ps, b) -> {
+                setCampos(ps, b, 1);
+                ps.setLong(5, b.getId());
+            }));
+            List<Book> faltantes = new ArrayList<>();
+            for (int i = 0; i < actualizados.length; i++) {
+                if (actualizados[i] == 0) faltantes.add(existentes.get(i));
+            }
+            if (!faltantes.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_CON_ID, lote(faltantes, (ps, b) -> {
+                    ps.setLong(1, b.getId());
+                    setCampos(ps, b, 2);
+                }));
+            }
+        }
+        if (!nuevos.isEmpty()) {
+            GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT, new String[]{"id"}),
+                    lote(nuevos, (ps, b) -> setCampos(ps, b, 1)), keys);
+            List<Map<String, Object>> ids = keys.getKeyList();
+            for (int i = 0; i < nuevos.size() && i < ids.size(); i++) {
+                nuevos.get(i).setId(((Number) ids.get(i).values().iterator().next()).longValue());
+            }
+        }
+    }
+
+    private Book desdeCsv(String texto) {
+        List<String> campos = camposCsv(texto);
+        if (campos.size() < 4) throw new IllegalArgumentException("se esperaban title,author,price,stock[,id]");
+        Book book = new Book(campos.get(0), campos.get(1), Dinero.of(campos.get(2)),
+                Integer.parseInt(campos.get(3).trim()));
+        if (campos.size() > 4 && !campos.get(4).isBlank()) book.setId(Long.parseLong(campos.get(4).trim()));
+        return book;
+    }
+
+    private Book desdeJson(String texto) throws IOException {
+        return objectMapper.readValue(texto, BookRequest.class).toBook();
+    }
+
+    // CSV de una línea: comas como separador, comillas dobles para campos con comas ("" = comilla literal)
+    static List<String> camposCsv(String linea) {
+        List<String> campos = new ArrayList<>(5);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private static void setCampos(PreparedStatement ps, Book book, int desde) throws SQLException {
+        ps.setString(desde, book.getTitle());
+        ps.setString(desde + 1, book.getAuthor());
+        ps.setLong(desde + 2, book.getPriceCentavos());
+        ps.setInt(desde + 3, book.getStock());
+    }
+
+    private interface Setter {
+        void set(PreparedStatement ps, Book book) throws SQLException;
+    }
+
+    private static BatchPreparedStatementSetter lote(List<Book> books, Setter setter) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException { setter.set(ps, books.get(i)); }
+
+            @Override
+            public int getBatchSize() { return books.size(); }
+        };
+    }
+
+    private void limpiarAntiguas() {
+        if (importaciones.size() <= MAX_IMPORTACIONES_RECIENTES) return;
+        importaciones.values().stream()
+                .filter(i -> i.fin != 0)
+                .sorted(Comparator.comparingLong(i -> i.inicioNanos))
+                .limit(importaciones.size() - MAX_IMPORTACIONES_RECIENTES)
+                .forEach(i -> importaciones.remove(i.id));
+    }
+
+    private record Linea(long numero, String texto) {}
+
+    private record Fila(long linea, Book book, String error) {}
+
+    private static final class Importacion {
+        final String id;
+        final Instant inicio = Instant.now();
+        final long inicioNanos = System.nanoTime();
+        final AtomicLong leidas = new AtomicLong();
+        final AtomicLong importadas = new AtomicLong();
+        final AtomicLong conError = new AtomicLong();
+        final Queue<ImportError> errores = new ConcurrentLinkedQueue<>();
+        volatile String estado = "EN_CURSO";
+        volatile long fin;
+
+        Importacion(String id) { this.id = id; }
+
+        void error(long linea, String mensaje) {
+            if (conError.incrementAndGet() <= MAX_ERRORES_INFORMADOS) errores.add(new ImportError(linea, mensaje));
+            BookstoreMetrics.filasConError();
+        }
+
+        ImportProgress progreso() {
+            long hasta = fin != 0 ? fin : System.nanoTime();
+            double segundos = Math.max((hasta - inicioNanos) / 1_000_000_000.0, 1e-9);
+            return new ImportProgress(id, estado, inicio, leidas.get(), importadas.get(), conError.get(),
+                    importadas.get() / segundos, List.copyOf(errores));
+        }
+    }
+}
@@ -1,53 +1,179 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.LibroCatalogo;
+import com.bookstore.cache.ReadCache;
+import com.bookstore.events.CambiosCatalogo;
 import com.bookstore.exception.BadRequestException;
 import com.bookstore.exception.ResourceNotFoundException;
 import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.search.BookSearchIndex;
+import com.bookstore.search.BookSearchResult;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_SEARCH_RESULTS = 100;
+
     private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final ReadCache readCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final ShardedStockService shardedStockService;
+    private final CambiosCatalogo cambiosCatalogo;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, EntityManager entityManager, ReadCache readCache,
+                       BookSearchIndex bookSearchIndex, ShardedStockService shardedStockService,
+                       CambiosCatalogo cambiosCatalogo) {
         this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.readCache = readCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.shardedStockService = shardedStockService;
+        this.cambiosCatalogo = cambiosCatalogo;
     }
 
+    @Transactional
     public Book saveBook(Book book) {
+        return saveBook(book, true);
+    }
+
+    // regla: el reparto del stock no viene en la petición; se conserva y el stock recibido se reparte de nuevo
+    // regla: sin versión del cliente (conVersion = false) los campos se copian sobre el libro guardado, sin
+    // control de concurrencia; con versión, si otro lo cambió antes (edición o venta) es un conflicto (409).
+    // Las ventas de un libro repartido descuentan de sus shards sin tocar la fila y no cambian la versión
+    @Transactional
+    public Book saveBook(Book book, boolean conVersion) {
         validateBook(book);
-        return bookRepository.save(book);
+        if (book.getId() != null && !conVersion) {
+            Book actual = bookRepository.findById(book.getId()).orElse(null);
+            if (actual != null) {
+                actual.setTitle(book.getTitle());
+                actual.setAuthor(book.getAuthor());
+                actual.setPriceCentavos(book.getPriceCentavos());
+                actual.setStock(book.getStock());
+                book = actual;
+            }
+        }
+        int shards = book.getId() == null ? 0 : bookRepository.findStockShardsById(book.getId()).orElse(0);
+        book.setStockShards(shards);
+        Book saved = bookRepository.save(book);
+        if (shards > 0) {
+            shardedStockService.fijarStock(saved.getId(), shards, saved.getStock());
+            // fijarReparto subió la versión en la fila: la respuesta lleva la que vale para la próxima edición
+            saved.setVersion(saved.getVersion() + 1);
+        }
+        if (saved.getId() != null) readCache.evictLibro(saved.getId());
+        bookSearchIndex.index(saved);
+        cambiosCatalogo.libroCambiado(saved.getId());
+        return saved;
     }
 
-    private void validateBook(Book book) {
+    public void validateBook(Book book) {
         if (book == null) {
             throw new BadRequestException("El libro no puede ser nulo");
         }
-        if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
+        if (book.getTitle() == null || book.getTitle().isBlank()) {
             throw new BadRequestException("El título del libro es obligatorio");
         }
-        if (book.getAuthor() == null || book.getAuthor().trim().isEmpty()) {
+        if (book.getAuthor() == null || book.getAuthor().isBlank()) {
             throw new BadRequestException("El autor del libro es obligatorio");
         }
-        if (book.getPrice() <= 0) {
-            throw new BadRequestException(String.format("El precio debe ser mayor que 0, valor recibido: %.2f", book.getPrice()));
+        if (book.getPriceCentavos() <= 0) {
+            throw new BadRequestException("El precio debe ser mayor que 0, valor recibido: " + Dinero.formato(book.getPriceCentavos()));
         }
         if (book.getStock() < 0) {
-            throw new BadRequestException(String.format("El stock no puede ser negativo, valor recibido: %d", book.getStock()));
+            throw new BadRequestException("El stock no puede ser negativo, valor recibido: " + book.getStock());
         }
     }
 
+    @Transactional(readOnly = true)
     public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+        List<Book> books = bookRepository.findAll();
+        shardedStockService.completarStock(books);
+        return books;
+    }
+
+    // regla: página acotada a MAX_PAGE_SIZE; el cursor es el último id recibido (0 = inicio)
+    @Transactional(readOnly = true)
+    public List<Book> getPage(long afterId, int size) {
+        if (afterId < 0) throw new BadRequestException("Cursor inválido");
+        if (size <= 0) throw new BadRequestException("Tamaño de página inválido");
+        List<Book> page = bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(Math.min(size, MAX_PAGE_SIZE)));
+        shardedStockService.completarStock(page);
+        return page;
+    }
+
+    // recorre todo el catálogo fila a fila; cada libro se desacopla del contexto
+    // de persistencia tras procesarlo para que la memoria no crezca con la tabla
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAllOrderById()) {
+            books.forEach(book -> {
+                if (book.getStockShards() > 0) shardedStockService.completarStock(List.of(book));
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        }
     }
 
+    // catálogo y stock se resuelven por separado en la caché; solo se va a la BD por lo que falte.
+    // La generación se toma antes de leer: lo leído no queda en caché si un cambio lo invalidó mientras tanto
     public Book getById(Long id) {
-        return bookRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Libro no encontrado"));
+        long generacion = readCache.generacion(id);
+        LibroCatalogo catalogo = readCache.getLibro(id);
+        if (catalogo == null) {
+            Book book = bookRepository.findById(id).orElseThrow(() -> ResourceNotFoundException.LIBRO_NO_ENCONTRADO);
+            shardedStockService.completarStock(List.of(book));
+            readCache.putLibro(LibroCatalogo.of(id, book), book.getStock(), generacion);
+            return book;
+        }
+        Integer stock = readCache.getStock(id);
+        if (stock == null) {
+            stock = bookRepository.findStockById(id).orElseThrow(() -> {
+                readCache.evictLibro(id);
+                return ResourceNotFoundException.LIBRO_NO_ENCONTRADO;
+            });
+            readCache.putStock(id, stock, generacion);
+        }
+        return catalogo.toBook(stock);
     }
 
+    @Transactional
     public void deleteById(Long id) {
+        shardedStockService.eliminar(id);
         bookRepository.deleteById(id);
+        readCache.evictLibro(id);
+        bookSearchIndex.remove(id);
+        cambiosCatalogo.libroCambiado(id);
+    }
+
+    // versiones del catálogo en memoria: sirven para responder 304 sin consultar la BD
+    public String etagLibro(Long id) { return readCache.etagLibro(id); }
+
+    public String etagCatalogo() { return readCache.etagCatalogo(); }
+
+    // activa, cambia o desactiva (shards = 0) el stock repartido de un libro; devuelve el libro con su stock total
+    public Book repartirStock(Long id, int shards) {
+        shardedStockService.repartir(id, shards);
+        readCache.evictLibro(id);
+        return getById(id);
+    }
+
+    // búsqueda por título/autor sobre el índice en memoria (no consulta la BD)
+    public List<BookSearchResult> search(String q, int limit) {
+        if (q == null || q.isBlank()) throw new BadRequestException("El texto de búsqueda es obligatorio");
+        if (limit <= 0) throw new BadRequestException("Límite inválido");
+        return bookSearchIndex.search(q, Math.min(limit, MAX_SEARCH_RESULTS));
     }
-}
\ No newline at end of file
+}
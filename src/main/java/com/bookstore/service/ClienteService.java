@@ -1,44 +1,212 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.BloomFilter;
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.AltaClientes;
 import com.bookstore.exception.BadRequestException;
 import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.metrics.BookstoreMetrics;
 import com.bookstore.model.Cliente;
 import com.bookstore.repository.ClienteRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Servicio para la gestión de clientes.
+ * La unicidad del email la garantiza la restricción única de clientes.email: las altas insertan
+ * directamente y la violación se traduce a BadRequestException.EMAIL_DUPLICADO.
+ * Las altas masivas consultan antes un filtro de Bloom con los emails existentes: lo que el filtro
+ * descarta se inserta sin consultar la BD; los posibles duplicados se confirman en una sola consulta
+ * (o se rechazan sin consultar con bookstore.clientes.bloom.confirmar-positivos=false).
  * TODO: mejorar logs en el futuro
  */
 
 @Service
 public class ClienteService {
+    private static final Logger log = LoggerFactory.getLogger(ClienteService.class);
+
+    public static final int MAX_ALTAS = 1000;
+    private static final String INSERT = "insert into clientes (nombre, email) values (?, ?)";
+
     private final ClienteRepository clienteRepository;
+    private final ReadCache readCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long bloomEsperados;
+    private final double bloomFpp;
+    private final boolean confirmarPositivos;
+    // null hasta cargar los emails existentes: mientras tanto todo email se confirma en la BD
+    private volatile BloomFilter emails;
+
+    public ClienteService(ClienteRepository clienteRepository, ReadCache readCache, JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${bookstore.clientes.bloom.expected-insertions:1000000}") long bloomEsperados,
+                          @Value("${bookstore.clientes.bloom.fpp:0.01}") double bloomFpp,
+                          @Value("${bookstore.clientes.bloom.confirmar-positivos:true}") boolean confirmarPositivos) {
+        this.clienteRepository = clienteRepository;
+        this.readCache = readCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bloomEsperados = bloomEsperados;
+        this.bloomFpp = bloomFpp;
+        this.confirmarPositivos = confirmarPositivos;
+    }
 
-    public ClienteService(ClienteRepository clienteRepository) { this.clienteRepository = clienteRepository; }
+    // los emails que se den de alta mientras se carga entran en el filtro nuevo (que ya es el visible);
+    // si alguno falta, la restricción única lo detecta igual al insertar
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarEmails() {
+        long inicio = System.nanoTime();
+        BloomFilter filtro = new BloomFilter(bloomEsperados, bloomFpp);
+        BloomFilter anterior = emails;
+        emails = filtro;
+        try {
+            jdbcTemplate.query("select email from clientes", rs -> {
+                String email = rs.getString(1);
+                if (email != null) filtro.agregar(clave(email));
+            });
+        } catch (RuntimeException e) {
+            emails = anterior;
+            log.warn("No se pudo cargar el filtro de emails: las altas masivas consultarán la BD", e);
+            return;
+        }
+        log.info("Filtro de emails cargado: {} bits, {} funciones hash, {} ms", filtro.bits(), filtro.funcionesHash(),
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
 
-    // regla: email único antes de guardar
+    // regla: email único; lo decide la restricción única al insertar (una ida a la BD y sin carrera
+    // entre dos altas simultáneas con el mismo email)
     public Cliente saveCliente(Cliente cliente) {
         if (cliente.getEmail() == null || cliente.getEmail().trim().isEmpty()) {
             throw new BadRequestException(" El email es obligatorio ");
         }
-        if (clienteRepository.findByEmail(cliente.getEmail()).isPresent()) {
-            throw new BadRequestException(" Ya existe un cliente con ese email ");
+        Cliente saved;
+        try {
+            saved = clienteRepository.saveAndFlush(cliente);
+        } catch (DataIntegrityViolationException e) {
+            if (esEmailDuplicado(e)) throw BadRequestException.EMAIL_DUPLICADO;
+            throw e;
         }
-        return clienteRepository.save(cliente);
+        BloomFilter filtro = emails;
+        if (filtro != null) filtro.agregar(clave(saved.getEmail()));
+        readCache.evictCliente(saved.getId());
+        return saved;
     }
 
+    // regla: alta masiva; emails vacíos se cuentan como inválidos y los repetidos (en la petición o en la BD)
+    // se informan como duplicados sin cortar el resto
+    public AltaClientes saveClientes(List<Cliente> clientes) {
+        if (clientes == null || clientes.isEmpty()) throw new BadRequestException("La lista de clientes está vacía");
+        if (clientes.size() > MAX_ALTAS) {
+            throw new BadRequestException("Se admiten como máximo " + MAX_ALTAS + " clientes por petición");
+        }
+        int invalidos = 0;
+        List<String> duplicados = new ArrayList<>();
+        Map<String, Cliente> porClave = new LinkedHashMap<>();
+        for (Cliente cliente : clientes) {
+            if (cliente == null || cliente.getEmail() == null || cliente.getEmail().isBlank()) {
+                invalidos++;
+            } else if (porClave.putIfAbsent(clave(cliente.getEmail()), cliente) != null) {
+                duplicados.add(cliente.getEmail());
+            }
+        }
+
+        BloomFilter filtro = emails;
+        List<String> posibles = new ArrayList<>();
+        for (Map.Entry<String, Cliente> entrada : porClave.entrySet()) {
+            if (filtro == null || filtro.puedeContener(entrada.getKey())) posibles.add(entrada.getValue().getEmail());
+        }
+        BookstoreMetrics.filtroEmails("descartado", porClave.size() - posibles.size());
+        if (!posibles.isEmpty()) {
+            Collection<String> existentes = confirmarPositivos || filtro == null
+                    ? clienteRepository.findEmailsIn(posibles) : posibles;
+            for (String email : existentes) {
+                Cliente repetido = porClave.remove(clave(email));
+                if (repetido != null) duplicados.add(repetido.getEmail());
+            }
+            BookstoreMetrics.filtroEmails("duplicado", existentes.size());
+            if (filtro != null) BookstoreMetrics.filtroEmails("falso_positivo", posibles.size() - existentes.size());
+        }
+
+        int creados = insertar(new ArrayList<>(porClave.values()), duplicados);
+        return new AltaClientes(creados, duplicados, invalidos);
+    }
+
+    // un lote JDBC en una transacción; si otra alta ganó la carrera por algún email, el lote se revierte
+    // y se reintenta fila a fila para insertar el resto
+    private int insertar(List<Cliente> nuevos, List<String> duplicados) {
+        if (nuevos.isEmpty()) return 0;
+        List<Cliente> insertados;
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT, nuevos, nuevos.size(), (ps, cliente) -> {
+                        ps.setString(1, cliente.getNombre());
+                        ps.setString(2, cliente.getEmail());
+                    }));
+            insertados = nuevos;
+        } catch (DuplicateKeyException e) {
+            insertados = new ArrayList<>(nuevos.size());
+            for (Cliente cliente : nuevos) {
+                try {
+                    jdbcTemplate.update(INSERT, cliente.getNombre(), cliente.getEmail());
+                    insertados.add(cliente);
+                } catch (DuplicateKeyException duplicado) {
+                    duplicados.add(cliente.getEmail());
+                }
+            }
+        }
+        BloomFilter filtro = emails;
+        if (filtro != null) insertados.forEach(cliente -> filtro.agregar(clave(cliente.getEmail())));
+        return insertados.size();
+    }
+
+    @Transactional(readOnly = true)
     public List<Cliente> getAllClientes() { return clienteRepository.findAll(); }
 
     public Cliente getById(Long id) {
-        return clienteRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado"));
+        Cliente cached = readCache.getCliente(id);
+        if (cached != null) return cached;
+        Cliente cliente = clienteRepository.findById(id).orElseThrow(() -> ResourceNotFoundException.CLIENTE_NO_ENCONTRADO);
+        readCache.putCliente(id, cliente);
+        return cliente;
     }
 
-    public void deleteById(Long id) { clienteRepository.deleteById(id); }
+    // el email queda en el filtro: a lo sumo cuesta una confirmación en la próxima alta masiva
+    public void deleteById(Long id) {
+        clienteRepository.deleteById(id);
+        readCache.evictCliente(id);
+    }
 
+    @Transactional(readOnly = true)
     public long countClientes() {
         return clienteRepository.count();
     }
-}
\ No newline at end of file
+
+    // la restricción única de clientes es solo la del email; otras violaciones (p. ej. columnas nulas) se propagan
+    private static boolean esEmailDuplicado(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) return true;
+        for (Throwable causa = e.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacion) return violacion.getKind() == ConstraintKind.UNIQUE;
+        }
+        return false;
+    }
+
+    // MySQL compara el email sin distinguir mayúsculas: el filtro usa la misma clave para no dar falsos negativos
+    private static String clave(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
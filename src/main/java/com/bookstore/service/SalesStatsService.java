@@ -0,0 +1,274 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.VentaStats.IngresoDiario;
+import com.bookstore.dto.VentaStats.TopLibro;
+import com.bookstore.dto.VentaStats.TotalCliente;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.Venta;
+import com.bookstore.model.VentaAgregado;
+import com.bookstore.model.VentaAgregado.Tipo;
+import com.bookstore.repository.VentaAgregadoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Estadísticas de ventas mantenidas de forma incremental: cada venta confirmada suma en
+ * contadores en memoria (LongAdder por clave, sin contención entre hilos) y lo sumado desde
+ * el último volcado se agrega periódicamente a la tabla ventas_agregados (unidades = unidades + ?),
+ * así varias instancias suman sobre las mismas filas sin pisarse. Las consultas leen solo
+ * memoria: la venta solo anota el libro vendido y el top se reordena fuera de ella (en cada volcado
+ * y al consultarlo); los ingresos por día se recorren por rango de fechas, sin tocar la tabla de ventas.
+ * Si el proceso termina sin volcar (caída), la tabla queda corta en lo vendido desde el último
+ * volcado hasta que se llama a reconstruir().
+ */
+@Service
+public class SalesStatsService {
+    private static final Logger log = LoggerFactory.getLogger(SalesStatsService.class);
+
+    public static final int MAX_TOP = 100;
+    public static final int MAX_DIAS = 366;
+
+    private static final class Totales {
+        final LongAdder unidades = new LongAdder();
+        final LongAdder ingresoCentavos = new LongAdder();
+    }
+
+    private record Top(long libroId, long unidades) {}
+
+    private final VentaAgregadoRepository agregadoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Tipo, ConcurrentHashMap<Long, Totales>> totales = new EnumMap<>(Tipo.class);
+    // lo sumado desde el último volcado; flush lo reemplaza por un mapa vacío con el lock de escritura
+    private volatile ConcurrentHashMap<VentaAgregado.Clave, Totales> porVolcar = new ConcurrentHashMap<>();
+    // las ventas suman con el lock de lectura (en paralelo); reconstruir y flush toman el de escritura
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object topLock = new Object();
+    private volatile List<Top> top = List.of();
+    // libros vendidos desde que se ordenó el top por última vez
+    private final Set<Long> vendidosSinOrdenar = ConcurrentHashMap.newKeySet();
+
+    public SalesStatsService(VentaAgregadoRepository agregadoRepository, PlatformTransactionManager transactionManager) {
+        this.agregadoRepository = agregadoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Tipo tipo : Tipo.values()) totales.put(tipo, new ConcurrentHashMap<>());
+    }
+
+    // suma la venta cuando su transacción confirma (si se revierte, no cuenta)
+    public void registrar(Venta venta) {
+        long libroId = venta.getLibro().getId();
+        long clienteId = venta.getCliente().getId();
+        long dia = venta.getFecha().toLocalDate().toEpochDay();
+        int cantidad = venta.getCantidad();
+        long ingreso = venta.getImporteCentavos();
+        Runnable sumar = () -> sumar(libroId, clienteId, dia, cantidad, ingreso);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { sumar.run(); }
+            });
+        } else {
+            sumar.run();
+        }
+    }
+
+    void sumar(long libroId, long clienteId, long dia, int cantidad, long ingresoCentavos) {
+        lock.readLock().lock();
+        try {
+            sumar(Tipo.CLIENTE, clienteId, cantidad, ingresoCentavos);
+            sumar(Tipo.DIA, dia, cantidad, ingresoCentavos);
+            sumar(Tipo.LIBRO, libroId, cantidad, ingresoCentavos);
+            // después de sumar: quien lo saque del conjunto ya ve estas unidades
+            vendidosSinOrdenar.add(libroId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void sumar(Tipo tipo, long clave, long unidades, long ingresoCentavos) {
+        Totales t = totales.get(tipo).computeIfAbsent(clave, k -> new Totales());
+        t.unidades.add(unidades);
+        t.ingresoCentavos.add(ingresoCentavos);
+        porVolcar(new VentaAgregado.Clave(tipo, clave), unidades, ingresoCentavos);
+    }
+
+    private void porVolcar(VentaAgregado.Clave clave, long unidades, long ingresoCentavos) {
+        Totales delta = porVolcar.computeIfAbsent(clave, k -> new Totales());
+        delta.unidades.add(unidades);
+        delta.ingresoCentavos.add(ingresoCentavos);
+    }
+
+    // las unidades de un libro solo crecen: basta con mezclar el top anterior con los libros vendidos desde entonces
+    private void ordenarTop() {
+        if (vendidosSinOrdenar.isEmpty()) return;
+        synchronized (topLock) {
+            Map<Long, Long> candidatos = new HashMap<>();
+            for (Top t : top) candidatos.put(t.libroId(), t.unidades());
+            for (Iterator<Long> it = vendidosSinOrdenar.iterator(); it.hasNext(); ) {
+                Long libroId = it.next();
+                it.remove();
+                Totales t = totales.get(Tipo.LIBRO).get(libroId);
+                if (t != null) candidatos.put(libroId, t.unidades.sum());
+            }
+            List<Top> nuevo = new ArrayList<>(candidatos.size());
+            candidatos.forEach((libroId, unidades) -> nuevo.add(new Top(libroId, unidades)));
+            nuevo.sort(Comparator.comparingLong(Top::unidades).reversed().thenComparingLong(Top::libroId));
+            top = List.copyOf(nuevo.size() > MAX_TOP ? nuevo.subList(0, MAX_TOP) : nuevo);
+        }
+    }
+
+    public List<TopLibro> topLibros(int n) {
+        if (n <= 0 || n > MAX_TOP) throw new BadRequestException("n debe estar entre 1 y " + MAX_TOP);
+        // con el lock de lectura: cargar/reconstruir no pueden vaciar los totales entre leer el top y sus totales
+        lock.readLock().lock();
+        try {
+            ordenarTop();
+            List<Top> actual = top;
+            List<TopLibro> resultado = new ArrayList<>(Math.min(n, actual.size()));
+            for (Top t : actual.subList(0, Math.min(n, actual.size()))) {
+                Totales totalesLibro = totales.get(Tipo.LIBRO).get(t.libroId());
+                resultado.add(new TopLibro(t.libroId(), totalesLibro.unidades.sum(), totalesLibro.ingresoCentavos.sum()));
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<IngresoDiario> ingresosPorDia(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) throw new BadRequestException("Rango de fechas inválido");
+        if (hasta.toEpochDay() - desde.toEpochDay() >= MAX_DIAS) {
+            throw new BadRequestException("El rango no puede superar " + MAX_DIAS + " días");
+        }
+        List<IngresoDiario> resultado = new ArrayList<>();
+        for (long dia = desde.toEpochDay(); dia <= hasta.toEpochDay(); dia++) {
+            Totales t = totales.get(Tipo.DIA).get(dia);
+            if (t != null) resultado.add(new IngresoDiario(LocalDate.ofEpochDay(dia), t.unidades.sum(), t.ingresoCentavos.sum()));
+        }
+        return resultado;
+    }
+
+    public TotalCliente totalCliente(Long clienteId) {
+        Totales t = totales.get(Tipo.CLIENTE).get(clienteId);
+        return t == null ? new TotalCliente(clienteId, 0, 0) : new TotalCliente(clienteId, t.unidades.sum(), t.ingresoCentavos.sum());
+    }
+
+    // suma a la tabla resumen lo vendido desde el último volcado (una fila nueva si la clave no estaba)
+    @Scheduled(fixedDelayString = "${bookstore.stats.flush-interval-ms:10000}")
+    @PreDestroy
+    public void flush() {
+        Map<VentaAgregado.Clave, Totales> lote;
+        lock.writeLock().lock();
+        try {
+            ordenarTop();
+            if (porVolcar.isEmpty()) return;
+            lote = porVolcar;
+            porVolcar = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> lote.forEach((clave, delta) -> {
+                long unidades = delta.unidades.sum();
+                long ingresoCentavos = delta.ingresoCentavos.sum();
+                if (agregadoRepository.sumar(clave, unidades, ingresoCentavos) == 0) {
+                    agregadoRepository.save(new VentaAgregado(clave.getTipo(), clave.getClave(), unidades, ingresoCentavos));
+                }
+            }));
+        } catch (RuntimeException e) {
+            // se reintenta en el próximo volcado, junto con lo vendido mientras tanto
+            lock.readLock().lock();
+            try {
+                lote.forEach((clave, delta) -> porVolcar(clave, delta.unidades.sum(), delta.ingresoCentavos.sum()));
+            } finally {
+                lock.readLock().unlock();
+            }
+            log.warn("No se pudieron volcar {} agregados de ventas: {}", lote.size(), e.getMessage());
+        }
+    }
+
+    // al arrancar se parte de la tabla resumen; si está vacía se reconstruye desde el historial
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        if (agregadoRepository.count() == 0) {
+            reconstruir();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            limpiar();
+            for (VentaAgregado agregado : agregadoRepository.findAll()) {
+                cargar(agregado.getId().getTipo(), agregado.getId().getClave(), agregado.getUnidades(), agregado.getIngresoCentavos());
+            }
+            recalcularTop();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // recalcula todo desde la tabla de ventas y reemplaza la tabla resumen en una sola transacción.
+    // La tabla se vacía antes de leer las ventas: el borrado bloquea sus filas, así que lo que otra
+    // instancia vuelque mientras tanto se suma después sobre el resultado en lugar de perderse
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            List<VentaAgregado> filas = transactionTemplate.execute(status -> {
+                agregadoRepository.deleteAllInBulk();
+                List<VentaAgregado> nuevas = new ArrayList<>();
+                agregadoRepository.totalesPorLibro().forEach(f -> nuevas.add(fila(Tipo.LIBRO, ((Number) f[0]).longValue(), f)));
+                agregadoRepository.totalesPorCliente().forEach(f -> nuevas.add(fila(Tipo.CLIENTE, ((Number) f[0]).longValue(), f)));
+                agregadoRepository.totalesPorDia().forEach(f -> nuevas.add(fila(Tipo.DIA, ((LocalDate) f[0]).toEpochDay(), f)));
+                agregadoRepository.saveAll(nuevas);
+                return nuevas;
+            });
+            // lo pendiente de volcar ya está en las ventas leídas
+            limpiar();
+            for (VentaAgregado fila : filas) {
+                cargar(fila.getId().getTipo(), fila.getId().getClave(), fila.getUnidades(), fila.getIngresoCentavos());
+            }
+            recalcularTop();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static VentaAgregado fila(Tipo tipo, long clave, Object[] fila) {
+        return new VentaAgregado(tipo, clave, ((Number) fila[1]).longValue(), ((Number) fila[2]).longValue());
+    }
+
+    private void cargar(Tipo tipo, long clave, long unidades, long ingresoCentavos) {
+        Totales t = totales.get(tipo).computeIfAbsent(clave, k -> new Totales());
+        t.unidades.add(unidades);
+        t.ingresoCentavos.add(ingresoCentavos);
+    }
+
+    private void limpiar() {
+        totales.values().forEach(Map::clear);
+        vendidosSinOrdenar.clear();
+        porVolcar = new ConcurrentHashMap<>();
+    }
+
+    private void recalcularTop() {
+        List<Top> todos = new ArrayList<>();
+        totales.get(Tipo.LIBRO).forEach((id, t) -> todos.add(new Top(id, t.unidades.sum())));
+        todos.sort(Comparator.comparingLong(Top::unidades).reversed().thenComparingLong(Top::libroId));
+        synchronized (topLock) {
+            top = List.copyOf(todos.size() > MAX_TOP ? todos.subList(0, MAX_TOP) : todos);
+        }
+    }
+}
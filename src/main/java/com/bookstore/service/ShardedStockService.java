@@ -0,0 +1,127 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.model.Book;
+import com.bookstore.model.StockShard;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.StockShardRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock repartido para los libros más vendidos (SKU caliente).
+ * Con stockShards = N el stock del libro vive en N filas de books_stock_shards y books.stock queda en 0:
+ * cada venta descuenta de un shard elegido al azar entre los que la cubren, así las compras simultáneas
+ * del mismo libro bloquean filas distintas en lugar de esperar todas por la misma. El total se calcula al
+ * leerlo (suma). Contrapartida: un shard puede agotarse antes que el resto, y las ventas que no caben en
+ * ninguno bloquean todos los shards del libro.
+ */
+@Service
+public class ShardedStockService {
+    public static final int MAX_SHARDS = 64;
+
+    private final BookRepository bookRepository;
+    private final StockShardRepository stockShardRepository;
+    private final EntityManager entityManager;
+
+    public ShardedStockService(BookRepository bookRepository, StockShardRepository stockShardRepository,
+                               EntityManager entityManager) {
+        this.bookRepository = bookRepository;
+        this.stockShardRepository = stockShardRepository;
+        this.entityManager = entityManager;
+    }
+
+    // debe llamarse dentro de la transacción de la venta; false = no hay stock suficiente.
+    // regla: un único UPDATE condicional sobre un shard al azar de los que, según una lectura sin bloqueo,
+    // cubren la venta; si no hay ninguno o otra venta lo vació antes, se bloquean todos en orden de shard.
+    // No se prueban shards uno tras otro: en MySQL (REPEATABLE READ) un UPDATE que no cumple la condición
+    // mantiene el bloqueo de la fila, y dos ventas recorriendo shards en órdenes distintos se interbloquean
+    public boolean descontar(Book libro, int cantidad) {
+        List<Integer> candidatos = stockShardRepository.findShardsConStock(libro.getId(), cantidad);
+        if (!candidatos.isEmpty()) {
+            int shard = candidatos.get(ThreadLocalRandom.current().nextInt(candidatos.size()));
+            if (stockShardRepository.decrementar(libro.getId(), shard, cantidad) > 0) return true;
+        }
+        List<StockShard> bloqueados = stockShardRepository.findForUpdate(libro.getId());
+        if (bloqueados.isEmpty()) {
+            // el reparto se desactivó después de leer el libro: el stock volvió a su fila
+            return bookRepository.decrementStock(libro.getId(), cantidad) > 0;
+        }
+        if (bloqueados.stream().mapToLong(StockShard::getStock).sum() < cantidad) return false;
+        int restante = cantidad;
+        for (StockShard shard : bloqueados) {
+            int parte = Math.min(shard.getStock(), restante);
+            shard.setStock(shard.getStock() - parte);
+            restante -= parte;
+            if (restante == 0) break;
+        }
+        return true;
+    }
+
+    // activa (shards > 0), cambia o desactiva (0) el reparto de un libro conservando su stock total
+    @Transactional
+    public void repartir(Long libroId, int shards) {
+        if (shards < 0 || shards > MAX_SHARDS) {
+            throw new BadRequestException("La cantidad de shards debe estar entre 0 y " + MAX_SHARDS);
+        }
+        Book libro = entityManager.find(Book.class, libroId, LockModeType.PESSIMISTIC_WRITE);
+        if (libro == null) throw ResourceNotFoundException.LIBRO_NO_ENCONTRADO;
+        long total = libro.getStock() + stockShardRepository.findForUpdate(libroId).stream()
+                .mapToLong(StockShard::getStock).sum();
+        fijar(libroId, shards, (int) total);
+    }
+
+    // reemplaza el stock total de un libro repartido (edición del libro); mismo número de shards
+    @Transactional
+    public void fijarStock(Long libroId, int shards, int stock) {
+        stockShardRepository.findForUpdate(libroId);
+        fijar(libroId, shards, stock);
+    }
+
+    @Transactional
+    public void eliminar(Long libroId) {
+        stockShardRepository.borrarPorLibro(libroId);
+    }
+
+    private void fijar(Long libroId, int shards, int total) {
+        stockShardRepository.borrarPorLibro(libroId);
+        if (shards == 0) {
+            bookRepository.fijarReparto(libroId, total, 0);
+            return;
+        }
+        for (int i = 0; i < shards; i++) {
+            // el resto de la división va a los primeros shards
+            entityManager.persist(new StockShard(libroId, i, total / shards + (i < total % shards ? 1 : 0)));
+        }
+        bookRepository.fijarReparto(libroId, 0, shards);
+    }
+
+    // reemplaza el stock de los libros repartidos por su total; se desacoplan del contexto de
+    // persistencia para que el valor calculado nunca se escriba en books.stock
+    public void completarStock(List<Book> libros) {
+        List<Long> ids = new ArrayList<>();
+        for (Book libro : libros) {
+            if (libro.getStockShards() > 0) ids.add(libro.getId());
+        }
+        if (ids.isEmpty()) return;
+        Map<Long, Integer> totales = new HashMap<>();
+        for (Object[] fila : stockShardRepository.sumarPorLibro(ids)) {
+            totales.put((Long) fila[0], ((Number) fila[1]).intValue());
+        }
+        for (Book libro : libros) {
+            if (libro.getStockShards() > 0) {
+                entityManager.detach(libro);
+                libro.setStock(libro.getStock() + totales.getOrDefault(libro.getId(), 0));
+            }
+        }
+    }
+}
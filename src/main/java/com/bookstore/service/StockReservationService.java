@@ -0,0 +1,102 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.metrics.BookstoreMetrics;
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reserva de stock para las ventas.
+ * ATOMIC: un único UPDATE condicional (stock >= cantidad), sin leer-modificar-escribir.
+ * OPTIMISTIC: lectura + escritura validada con @Version; los conflictos se reintentan
+ * reejecutando la transacción completa hasta maxRetries veces.
+ * Los libros con stock repartido (stockShards > 0) descuentan de sus shards en ambos modos.
+ */
+@Service
+public class StockReservationService {
+    public enum Mode { ATOMIC, OPTIMISTIC }
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final ReadCache readCache;
+    private final ShardedStockService shardedStockService;
+    private final Mode mode;
+    private final int maxRetries;
+
+    public StockReservationService(BookRepository bookRepository, EntityManager entityManager, ReadCache readCache,
+                                   ShardedStockService shardedStockService,
+                                   @Value("${bookstore.stock.reservation-mode:atomic}") String mode,
+                                   @Value("${bookstore.stock.max-retries:3}") int maxRetries) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.readCache = readCache;
+        this.shardedStockService = shardedStockService;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.maxRetries = maxRetries;
+    }
+
+    public Mode getMode() { return mode; }
+
+    // debe llamarse dentro de la transacción de la venta
+    public void reservar(Book libro, int cantidad) {
+        readCache.evictStock(libro.getId());
+        if (libro.getStockShards() > 0) {
+            if (!shardedStockService.descontar(libro, cantidad)) throw stockInsuficiente(libro);
+            return;
+        }
+        if (mode == Mode.ATOMIC) {
+            if (bookRepository.decrementStock(libro.getId(), cantidad) == 0) {
+                throw stockInsuficiente(libro);
+            }
+            // el UPDATE no pasa por el contexto de persistencia: recargamos el stock real
+            entityManager.refresh(libro);
+            return;
+        }
+        if (libro.getStock() < cantidad) {
+            throw stockInsuficiente(libro);
+        }
+        libro.setStock(libro.getStock() - cantidad);
+        bookRepository.saveAndFlush(libro); // falla si otra transacción cambió la versión
+    }
+
+    // ejecuta una transacción completa, reintentando los conflictos de versión y las transacciones
+    // elegidas como víctima de un interbloqueo (p. ej. dos ventas repartidas entre varios shards)
+    public <T> T conReintentos(Supplier<T> transaccion) {
+        for (int intento = 0; ; intento++) {
+            try {
+                return transaccion.get();
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException e) {
+                boolean reintentable = mode == Mode.OPTIMISTIC || e instanceof PessimisticLockingFailureException;
+                if (!reintentable || intento >= maxRetries) {
+                    throw new BadRequestException("No se pudo reservar el stock por concurrencia, intente nuevamente");
+                }
+                esperar(intento);
+            }
+        }
+    }
+
+    // backoff exponencial con jitter para no reintentar todos a la vez
+    private void esperar(int intento) {
+        long maxMillis = 1L << Math.min(intento + 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BadRequestException("Reserva de stock interrumpida");
+        }
+    }
+
+    private BadRequestException stockInsuficiente(Book libro) {
+        BookstoreMetrics.stockInsuficiente();
+        return new BadRequestException("Stock insuficiente para el libro: " + libro.getTitle());
+    }
+}
@@ -1,7 +1,11 @@
 package com.bookstore.service;
 
+import com.bookstore.dto.VentaRequest;
+import com.bookstore.dto.VentaResumen;
+import com.bookstore.events.CambiosCatalogo;
 import com.bookstore.exception.BadRequestException;
 import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.metrics.BookstoreMetrics;
 import com.bookstore.model.Book;
 import com.bookstore.model.Cliente;
 import com.bookstore.model.Venta;
@@ -9,49 +13,163 @@ import com.bookstore.repository.BookRepository;
 import com.bookstore.repository.ClienteRepository;
 import com.bookstore.repository.VentaRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class VentaService {
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final VentaRepository ventaRepository;
     private final BookRepository bookRepository;
     private final ClienteRepository clienteRepository;
+    private final StockReservationService stockReservationService;
+    private final SalesStatsService salesStatsService;
+    private final CambiosCatalogo cambiosCatalogo;
+    private final TransactionTemplate transactionTemplate;
 
-    public VentaService(VentaRepository ventaRepository, BookRepository bookRepository, ClienteRepository clienteRepository) {
+    public VentaService(VentaRepository ventaRepository, BookRepository bookRepository, ClienteRepository clienteRepository,
+                        StockReservationService stockReservationService, SalesStatsService salesStatsService,
+                        CambiosCatalogo cambiosCatalogo, PlatformTransactionManager transactionManager) {
         this.ventaRepository = ventaRepository;
         this.bookRepository = bookRepository;
         this.clienteRepository = clienteRepository;
+        this.stockReservationService = stockReservationService;
+        this.salesStatsService = salesStatsService;
+        this.cambiosCatalogo = cambiosCatalogo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     // regla: validar stock antes de registrar; todo en una transacción
-    @Transactional
+    // (en modo optimista la transacción se reintenta si hay conflicto de versión)
     public Venta registrarVenta(Long clienteId, Long libroId, int cantidad) {
-        if (cantidad <= 0) throw new BadRequestException("Cantidad inválida");
+        return BookstoreMetrics.registrarVenta("individual", () -> {
+            if (clienteId == null || libroId == null) throw new BadRequestException("La venta requiere clienteId y libroId");
+            if (cantidad <= 0) throw BadRequestException.CANTIDAD_INVALIDA;
+            return stockReservationService.conReintentos(() ->
+                    transactionTemplate.execute(status -> registrarEnTransaccion(clienteId, libroId, cantidad)));
+        });
+    }
 
+    private Venta registrarEnTransaccion(Long clienteId, Long libroId, int cantidad) {
         Cliente cliente = clienteRepository.findById(clienteId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado"));
+                .orElseThrow(() -> ResourceNotFoundException.CLIENTE_NO_ENCONTRADO);
 
         Book libro = bookRepository.findById(libroId)
-                .orElseThrow(() -> new ResourceNotFoundException("Libro no encontrado"));
-
-        if (libro.getStock() < cantidad) {
-            throw new BadRequestException("Stock insuficiente para el libro: " + libro.getTitle());
-        }
+                .orElseThrow(() -> ResourceNotFoundException.LIBRO_NO_ENCONTRADO);
 
         // descontar stock
-        libro.setStock(libro.getStock() - cantidad);
-        bookRepository.save(libro);
+        stockReservationService.reservar(libro, cantidad);
+        cambiosCatalogo.libroCambiado(libroId);
 
         // crear y guardar venta
-        Venta venta = new Venta(cliente, libro, cantidad);
-        return ventaRepository.save(venta);
+        Venta venta = ventaRepository.save(new Venta(cliente, libro, cantidad));
+        salesStatsService.registrar(venta);
+        return venta;
+    }
+
+    // regla: un lote se registra completo o no se registra; una consulta por tabla
+    // y descuentos de stock en orden de id de libro para evitar interbloqueos
+    public List<Venta> registrarVentas(List<VentaRequest> lineas) {
+        if (lineas == null || lineas.isEmpty()) throw new BadRequestException("El lote de ventas está vacío");
+        if (lineas.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("El lote supera el máximo de " + MAX_BATCH_SIZE + " ventas");
+        }
+        for (VentaRequest linea : lineas) {
+            if (linea == null || linea.clienteId() == null || linea.libroId() == null) {
+                throw new BadRequestException("Cada venta requiere clienteId y libroId");
+            }
+            if (linea.cantidad() <= 0) throw BadRequestException.CANTIDAD_INVALIDA;
+        }
+        return BookstoreMetrics.registrarVenta("lote", () -> stockReservationService.conReintentos(() ->
+                transactionTemplate.execute(status -> registrarLoteEnTransaccion(lineas))));
+    }
+
+    private List<Venta> registrarLoteEnTransaccion(List<VentaRequest> lineas) {
+        Map<Long, Cliente> clientes = cargarPorId(clienteRepository.findAllById(ids(lineas, VentaRequest::clienteId)),
+                Cliente::getId);
+        Map<Long, Book> libros = cargarPorId(bookRepository.findAllById(ids(lineas, VentaRequest::libroId)),
+                Book::getId);
+
+        TreeMap<Long, Integer> cantidadPorLibro = new TreeMap<>();
+        for (VentaRequest linea : lineas) {
+            if (!clientes.containsKey(linea.clienteId())) {
+                throw new ResourceNotFoundException("Cliente no encontrado: " + linea.clienteId());
+            }
+            if (!libros.containsKey(linea.libroId())) {
+                throw new ResourceNotFoundException("Libro no encontrado: " + linea.libroId());
+            }
+            cantidadPorLibro.merge(linea.libroId(), linea.cantidad(), Integer::sum);
+        }
+
+        cantidadPorLibro.forEach((libroId, cantidad) -> {
+            stockReservationService.reservar(libros.get(libroId), cantidad);
+            cambiosCatalogo.libroCambiado(libroId);
+        });
+
+        List<Venta> ventas = new ArrayList<>(lineas.size());
+        for (VentaRequest linea : lineas) {
+            ventas.add(new Venta(clientes.get(linea.clienteId()), libros.get(linea.libroId()), linea.cantidad()));
+        }
+        List<Venta> guardadas = ventaRepository.saveAll(ventas);
+        guardadas.forEach(salesStatsService::registrar);
+        return guardadas;
+    }
+
+    private static Set<Long> ids(List<VentaRequest> lineas, Function<VentaRequest, Long> id) {
+        return lineas.stream().map(id).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, T> cargarPorId(List<T> entidades, Function<T, Long> id) {
+        return entidades.stream().collect(Collectors.toMap(id, Function.identity()));
     }
 
+    @Transactional(readOnly = true)
     public List<Venta> getAllVentas() { return ventaRepository.findAll(); }
 
+    // historial filtrado, de la venta más reciente a la más antigua; fechas inclusivas.
+    // "after" es el cursor devuelto por cursor() para la última venta de la página anterior
+    @Transactional(readOnly = true)
+    public List<VentaResumen> getHistorial(Long clienteId, Long libroId, LocalDate desde, LocalDate hasta,
+                                           String after, int size) {
+        if (size <= 0) throw new BadRequestException("Tamaño de página inválido");
+        if (desde != null && hasta != null && hasta.isBefore(desde)) throw new BadRequestException("Rango de fechas inválido");
+        LocalDateTime despuesDeFecha = null;
+        Long despuesDeId = null;
+        if (after != null && !after.isBlank()) {
+            int separador = after.lastIndexOf('_');
+            try {
+                despuesDeFecha = LocalDateTime.parse(after.substring(0, Math.max(separador, 0)));
+                despuesDeId = Long.valueOf(after.substring(separador + 1));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new BadRequestException("Cursor inválido");
+            }
+        }
+        return ventaRepository.findHistorial(clienteId, libroId,
+                desde == null ? null : desde.atStartOfDay(),
+                hasta == null ? null : hasta.plusDays(1).atStartOfDay(),
+                despuesDeFecha, despuesDeId, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    public static String cursor(VentaResumen venta) {
+        return venta.fecha() + "_" + venta.id();
+    }
+
     public Venta getById(Long id) {
         return ventaRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Venta no encontrada"));
     }
-}
\ No newline at end of file
+}
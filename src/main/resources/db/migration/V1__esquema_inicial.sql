@@ -0,0 +1,64 @@
+-- Esquema tal como lo generaba ddl-auto=update para MySQL (mismos nombres de restricciones), así una
+-- base creada antes por Hibernate se toma como versión 1 (spring.flyway.baseline-on-migrate)
+-- y una base vacía queda igual que aquellas.
+
+create table books (
+    stock integer not null,
+    stock_shards integer default 0,
+    id bigint not null auto_increment,
+    price_centavos bigint default 0 not null,
+    version bigint not null,
+    author varchar(255),
+    title varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table books_stock_shards (
+    shard integer not null,
+    stock integer not null,
+    libro_id bigint not null,
+    primary key (shard, libro_id)
+) engine=InnoDB;
+
+create table clientes (
+    id bigint not null auto_increment,
+    email varchar(255),
+    nombre varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table ventas (
+    cantidad integer not null,
+    cliente_id bigint,
+    fecha datetime(6),
+    id bigint not null,
+    libro_id bigint,
+    precio_unitario_centavos bigint default 0 not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table ventas_agregados (
+    clave bigint not null,
+    ingreso_centavos bigint not null,
+    unidades bigint not null,
+    tipo enum ('CLIENTE','DIA','LIBRO') not null,
+    primary key (clave, tipo)
+) engine=InnoDB;
+
+-- secuencia de ventas (MySQL no tiene secuencias: Hibernate usa una tabla de una fila)
+create table ventas_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into ventas_seq values (1);
+
+alter table clientes add constraint UK1c96wv36rk2hwui7qhjks3mvg unique (email);
+
+create index idx_ventas_cliente_fecha on ventas (cliente_id, fecha, id);
+create index idx_ventas_libro_fecha on ventas (libro_id, fecha, id);
+create index idx_ventas_fecha on ventas (fecha, id);
+
+alter table ventas add constraint FK4dgjhccl2uuo8swmxlxb4ipb5 foreign key (cliente_id) references clientes (id);
+alter table ventas add constraint FKgwvdqvenx732i3xjn9nc8sbp1 foreign key (libro_id) references books (id);
+-- no la generaba Hibernate (StockShard no mapea la relación): los shards se van con su libro
+alter table books_stock_shards add constraint fk_stock_shards_libro foreign key (libro_id) references books (id) on delete cascade;
@@ -0,0 +1,126 @@
+package com.bookstore;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Una integración que inunda POST /api/ventas (HILOS_ABUSIVO peticiones a la vez, sin pausa) mientras una
+ * tienda registra ventas de una en una. Sin admisión las ventas de la tienda esperan detrás de la
+ * inundación (hilos de Tomcat y conexiones del pool); con admisión la inundación recibe 429/503 en el acto.
+ * Informa p50/p99 de la tienda y las respuestas por estado de cada cliente.
+ * Solo a pedido: mvn test -Dbenchmark=true -Dtest=AdmisionLoadTest
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AdmisionLoadTest {
+    private static final int HILOS_ABUSIVO = 100;
+    private static final int VENTAS_TIENDA = 200;
+
+    @ParameterizedTest(name = "admision={0}")
+    @ValueSource(booleans = {false, true})
+    void loadTest(boolean admision) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=50",
+                        "spring.datasource.hikari.maximum-pool-size=5",
+                        "spring.datasource.url=jdbc:h2:mem:admision" + admision + ";DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "bookstore.admision.enabled=" + admision,
+                        "bookstore.admision.por-segundo=20",
+                        "bookstore.admision.rafaga=40",
+                        // los dos clientes llegan desde localhost, que hace de proxy: se distinguen por X-Client-Id
+                        "bookstore.admision.proxies-confiables=127.0.0.1,0:0:0:0:0:0:0:1",
+                        "logging.level.root=WARN")
+                .run()) {
+            Long clienteId = context.getBean(ClienteRepository.class).save(new Cliente("Carga", "carga@test.com")).getId();
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            List<Long> libros = new ArrayList<>();
+            for (int i = 0; i < 16; i++) libros.add(bookRepository.save(new Book("Libro " + i, "Autor", Dinero.of("10.0"), Integer.MAX_VALUE)).getId());
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            URI uri = URI.create("http://localhost:" + port + "/api/ventas");
+
+            Map<Integer, AtomicInteger> estadosAbusivo = new ConcurrentHashMap<>();
+            Map<Integer, AtomicInteger> estadosTienda = new ConcurrentHashMap<>();
+            List<Long> latenciasTienda = Collections.synchronizedList(new ArrayList<>());
+            AtomicBoolean terminado = new AtomicBoolean();
+
+            try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder().executor(hilos).connectTimeout(Duration.ofSeconds(5)).build();
+                List<Future<?>> inundacion = new ArrayList<>();
+                for (int t = 0; t < HILOS_ABUSIVO; t++) {
+                    int hilo = t;
+                    inundacion.add(hilos.submit(() -> {
+                        while (!terminado.get()) {
+                            venta(http, uri, "abusivo", clienteId, libros.get(hilo % libros.size()), estadosAbusivo);
+                        }
+                        return null;
+                    }));
+                }
+                Thread.sleep(500);
+                for (int i = 0; i < VENTAS_TIENDA; i++) {
+                    long t0 = System.nanoTime();
+                    venta(http, uri, "tienda", clienteId, libros.get(i % libros.size()), estadosTienda);
+                    latenciasTienda.add(System.nanoTime() - t0);
+                    Thread.sleep(10);
+                }
+                terminado.set(true);
+                for (Future<?> f : inundacion) f.get();
+            }
+
+            List<Long> ordenadas = new ArrayList<>(latenciasTienda);
+            Collections.sort(ordenadas);
+            System.out.printf("[admision=%s] tienda: p50=%.1f ms p99=%.1f ms estados=%s | abusivo: estados=%s%n",
+                    admision, percentil(ordenadas, 0.50), percentil(ordenadas, 0.99), estadosTienda, estadosAbusivo);
+            assertEquals(VENTAS_TIENDA, ordenadas.size());
+            if (admision) assertFalse(estadosTienda.containsKey(429));
+        }
+    }
+
+    private static void venta(HttpClient http, URI uri, String cliente, Long clienteId, Long libroId,
+                              Map<Integer, AtomicInteger> estados) {
+        int estado;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .header("X-Client-Id", cliente)
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"clienteId\":" + clienteId + ",\"libroId\":" + libroId + ",\"cantidad\":1}"))
+                    .build();
+            estado = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            estado = -1;
+        }
+        estados.computeIfAbsent(estado, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static double percentil(List<Long> ordenadas, double p) {
+        return ordenadas.get((int) Math.min(ordenadas.size() - 1, Math.ceil(p * ordenadas.size()) - 1)) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.bookstore;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.service.VentaService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SUSCRIPTORES conexiones a GET /api/books/cambios que solo escuchan (Tomcat con HILOS_TOMCAT hilos), mientras
+ * se registran VENTAS ventas repartidas en LIBROS libros. Informa los hilos de Tomcat, los eventos que
+ * recibió cada uno (agrupados por libro y ventana, frente a las ventas) y cuánto tardó el último en ver
+ * el último cambio.
+ * Solo a pedido: mvn test -Dbenchmark=true -Dtest=CambiosLoadTest
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CambiosLoadTest {
+    private static final int SUSCRIPTORES = 2000;
+    private static final int HILOS_TOMCAT = 8;
+    private static final int LIBROS = 10;
+    private static final int VENTAS = 2000;
+
+    @Test
+    void loadTest() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=" + HILOS_TOMCAT,
+                        "spring.datasource.url=jdbc:h2:mem:cambios;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "bookstore.cambios.ventana=200ms",
+                        "logging.level.root=WARN")
+                .run()) {
+            Long clienteId = context.getBean(ClienteRepository.class).save(new Cliente("Carga", "carga@test.com")).getId();
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            List<Long> libros = new ArrayList<>();
+            for (int i = 0; i < LIBROS; i++) libros.add(bookRepository.save(new Book("Libro " + i, "Autor", Dinero.of("10.0"), VENTAS)).getId());
+            Long ultimoLibro = libros.get(LIBROS - 1);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/cambios"))
+                    .header("Accept", "text/event-stream").build();
+
+            HttpClient http = HttpClient.newHttpClient();
+            AtomicLong eventos = new AtomicLong();
+            CountDownLatch conectados = new CountDownLatch(SUSCRIPTORES);
+            CountDownLatch vieronElFinal = new CountDownLatch(SUSCRIPTORES);
+            for (int i = 0; i < SUSCRIPTORES; i++) {
+                Thread.ofVirtual().start(() -> {
+                    try (Stream<String> lineas = http.send(request, HttpResponse.BodyHandlers.ofLines()).body()) {
+                        conectados.countDown();
+                        lineas.forEach(linea -> {
+                            if (!linea.startsWith("data:")) return;
+                            eventos.incrementAndGet();
+                            if (linea.contains("\"id\":" + ultimoLibro + ",") && linea.contains("\"stock\":" + (VENTAS - 1) + "}")) {
+                                vieronElFinal.countDown();
+                            }
+                        });
+                    } catch (UncheckedIOException e) {
+                        // conexión cerrada al terminar
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+            assertTrue(conectados.await(60, TimeUnit.SECONDS), "no se conectaron todos los suscriptores");
+            Thread.sleep(1000);
+            long hilosTomcat = Thread.getAllStackTraces().keySet().stream()
+                    .filter(t -> t.getName().startsWith("http-nio-")).count();
+
+            VentaService ventaService = context.getBean(VentaService.class);
+            for (int i = 0; i < VENTAS - 1; i++) ventaService.registrarVenta(clienteId, libros.get(i % (LIBROS - 1)), 1);
+            long t0 = System.nanoTime();
+            ventaService.registrarVenta(clienteId, ultimoLibro, 1);
+            assertTrue(vieronElFinal.await(60, TimeUnit.SECONDS), "no todos los suscriptores vieron el último cambio");
+            long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+            System.out.printf("[cambios] suscriptores=%d hilos de Tomcat=%d | ventas=%d eventos por suscriptor=%.0f | " +
+                            "último cambio visto por todos en %d ms%n",
+                    SUSCRIPTORES, hilosTomcat, VENTAS, eventos.get() / (double) SUSCRIPTORES, ms);
+            http.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.bookstore;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.service.VentaService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clientes que sondean el catálogo (primera página y libros sueltos) mientras se registran ventas.
+ * Sin ETag cada sondeo trae el cuerpo completo; con If-None-Match solo cuando algo cambió.
+ * Informa peticiones/s, respuestas 304, sentencias SQL ejecutadas y bytes de cuerpo recibidos.
+ * Solo a pedido: mvn test -Dbenchmark=true -Dtest=CatalogEtagLoadTest
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CatalogEtagLoadTest {
+    private static final int LIBROS = 200;
+    private static final int CLIENTES = 20;
+    private static final int SONDEOS_POR_CLIENTE = 200;
+    private static final long VENTA_CADA_MS = 500;
+
+    @ParameterizedTest(name = "etag={0}")
+    @ValueSource(booleans = {false, true})
+    void loadTest(boolean etag) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:etag" + etag + ";DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "logging.level.root=WARN")
+                .run()) {
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            List<Long> libros = new ArrayList<>();
+            for (int i = 0; i < LIBROS; i++) libros.add(bookRepository.save(new Book("Libro " + i, "Autor", Dinero.of("10.0"), 1_000_000)).getId());
+            Long clienteId = context.getBean(ClienteRepository.class).save(new Cliente("Ventas", "ventas@test.com")).getId();
+            VentaService ventaService = context.getBean(VentaService.class);
+            Statistics estadisticas = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            String base = "http://localhost:" + port + "/api/books";
+
+            AtomicInteger respuestas304 = new AtomicInteger();
+            AtomicInteger errores = new AtomicInteger();
+            AtomicLong bytes = new AtomicLong();
+            AtomicBoolean activo = new AtomicBoolean(true);
+            estadisticas.clear();
+
+            try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder().executor(hilos).connectTimeout(Duration.ofSeconds(5)).build();
+                // un libro cambia de stock cada VENTA_CADA_MS: invalida ese libro y los listados
+                AtomicInteger vendidas = new AtomicInteger();
+                Future<?> ventas = hilos.submit(() -> {
+                    while (activo.get()) {
+                        vendidas.incrementAndGet();
+                        ventaService.registrarVenta(clienteId, libros.get(ThreadLocalRandom.current().nextInt(LIBROS)), 1);
+                        Thread.sleep(VENTA_CADA_MS);
+                    }
+                    return null;
+                });
+
+                long inicio = System.nanoTime();
+                List<Future<?>> clientes = new ArrayList<>();
+                for (int c = 0; c < CLIENTES; c++) {
+                    clientes.add(hilos.submit(() -> {
+                        // la caché del cliente: última ETag recibida por URL
+                        Map<URI, String> etags = new ConcurrentHashMap<>();
+                        for (int i = 0; i < SONDEOS_POR_CLIENTE; i++) {
+                            URI uri = URI.create(i % 2 == 0 ? base + "?size=50"
+                                    : base + "/" + libros.get(ThreadLocalRandom.current().nextInt(20)));
+                            HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30));
+                            String conocida = etags.get(uri);
+                            if (etag && conocida != null) request.header("If-None-Match", conocida);
+                            try {
+                                HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                                bytes.addAndGet(response.body().length);
+                                if (response.statusCode() == 304) respuestas304.incrementAndGet();
+                                else if (response.statusCode() != 200) errores.incrementAndGet();
+                                response.headers().firstValue("ETag").ifPresent(e -> etags.put(uri, e));
+                            } catch (Exception e) {
+                                errores.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> cliente : clientes) cliente.get();
+                double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+                activo.set(false);
+                ventas.get();
+
+                int total = CLIENTES * SONDEOS_POR_CLIENTE;
+                System.out.printf("[etag=%s] peticiones=%d ventas=%d -> %.0f req/s 304=%d sentencias SQL=%d bytes=%d errores=%d%n",
+                        etag, total, vendidas.get(), total / segundos, respuestas304.get(),
+                        estadisticas.getPrepareStatementCount(), bytes.get(), errores.get());
+                assertEquals(0, errores.get());
+                if (!etag) assertEquals(0, respuestas304.get());
+            }
+        }
+    }
+}
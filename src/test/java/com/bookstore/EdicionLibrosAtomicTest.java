@@ -0,0 +1,11 @@
+package com.bookstore;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+// las mismas ediciones con las reservas ATOMIC (el modo por defecto): el UPDATE condicional de la venta
+// también sube la versión
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "bookstore.stock.reservation-mode=atomic"
+})
+class EdicionLibrosAtomicTest extends EdicionLibrosTest {
+}
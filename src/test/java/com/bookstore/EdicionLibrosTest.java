@@ -0,0 +1,95 @@
+package com.bookstore;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaRepository;
+import com.bookstore.service.VentaService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// servidor real y reservas OPTIMISTIC (cada venta sube la versión del libro): cada POST es su propia transacción
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "bookstore.stock.reservation-mode=optimistic"
+})
+class EdicionLibrosTest {
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ClienteRepository clienteRepository;
+    @Autowired
+    VentaRepository ventaRepository;
+    @Autowired
+    VentaService ventaService;
+
+    @AfterEach
+    void limpiar() {
+        ventaRepository.deleteAll();
+        bookRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    private HttpResponse<String> guardar(String json) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void updatesWithoutVersionApplyToTheCurrentRow() throws Exception {
+        Long id = bookRepository.save(new Book("Rayuela", "Cortázar", Dinero.of("20.00"), 10)).getId();
+        Long clienteId = clienteRepository.save(new Cliente("Edición", "edicion@test.com")).getId();
+
+        assertEquals(200, guardar("{\"id\":" + id + ",\"title\":\"Rayuela\",\"author\":\"Cortázar\",\"price\":21,\"stock\":10}").statusCode());
+        assertEquals(200, guardar("{\"id\":" + id + ",\"title\":\"Rayuela\",\"author\":\"Cortázar\",\"price\":22,\"stock\":10}").statusCode());
+        ventaService.registrarVenta(clienteId, id, 1);
+        HttpResponse<String> tercera = guardar("{\"id\":" + id + ",\"title\":\"Rayuela (2.ª ed.)\",\"author\":\"Cortázar\",\"price\":23,\"stock\":8}");
+        assertEquals(200, tercera.statusCode());
+
+        JsonNode libro = objectMapper.readTree(tercera.body());
+        assertEquals("Rayuela (2.ª ed.)", libro.get("title").asText());
+        assertEquals(8, libro.get("stock").asInt());
+        Book guardado = bookRepository.findById(id).orElseThrow();
+        assertEquals(2300, guardado.getPriceCentavos());
+        assertEquals(libro.get("version").asLong(), guardado.getVersion());
+
+        // con versión sí se comprueba: la de antes de la venta ya no vale
+        assertEquals(409, guardar("{\"id\":" + id + ",\"title\":\"Rayuela\",\"author\":\"Cortázar\",\"price\":24,\"stock\":8,"
+                + "\"version\":" + (guardado.getVersion() - 1) + "}").statusCode());
+        assertEquals(200, guardar("{\"id\":" + id + ",\"title\":\"Rayuela\",\"author\":\"Cortázar\",\"price\":24,\"stock\":8,"
+                + "\"version\":" + guardado.getVersion() + "}").statusCode());
+    }
+
+    // la versión leída antes de una venta ya no vale: la edición no puede pisar el stock vendido
+    @Test
+    void versionReadBeforeASaleConflicts() throws Exception {
+        Long id = bookRepository.save(new Book("Ficciones", "Borges", Dinero.of("15.00"), 5)).getId();
+        Long clienteId = clienteRepository.save(new Cliente("Venta", "venta@test.com")).getId();
+        long leida = bookRepository.findById(id).orElseThrow().getVersion();
+
+        ventaService.registrarVenta(clienteId, id, 2);
+
+        assertEquals(409, guardar("{\"id\":" + id + ",\"title\":\"Ficciones\",\"author\":\"Borges\",\"price\":16,\"stock\":5,"
+                + "\"version\":" + leida + "}").statusCode());
+        assertEquals(3, bookRepository.findById(id).orElseThrow().getStock());
+    }
+}
@@ -0,0 +1,104 @@
+package com.bookstore;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.service.VentaService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ventas concurrentes con el pool por defecto (10 conexiones, sin ajustes) y con el perfil prod
+ * (núcleos * 2 + 1 conexiones fijas; contra MySQL también las opciones de Connector/J).
+ * Informa ventas/s y errores para cada nivel de concurrencia.
+ * Solo a pedido: mvn test -Dbenchmark=true -Dtest=PoolTuningLoadTest
+ * Contra MySQL: -Dbookstore.load.url=jdbc:mysql://localhost:3306/bookstoredb (usuario root/admin123).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PoolTuningLoadTest {
+    private static final int[] CONCURRENCIA = {8, 64};
+    private static final int VENTAS_POR_HILO = 100;
+
+    @ParameterizedTest(name = "prod={0}")
+    @ValueSource(booleans = {false, true})
+    void loadTest(boolean prod) throws Exception {
+        String url = System.getProperty("bookstore.load.url", "jdbc:h2:mem:pool" + prod + ";DB_CLOSE_DELAY=-1");
+        boolean mysql = url.startsWith("jdbc:mysql");
+        List<String> propiedades = new ArrayList<>(List.of(
+                "spring.datasource.url=" + url,
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "logging.level.root=WARN"));
+        if (!mysql) propiedades.add("spring.datasource.driver-class-name=org.h2.Driver");
+        if (!prod) propiedades.add("spring.datasource.hikari.maximum-pool-size=10");
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(propiedades.toArray(String[]::new));
+        if (prod && mysql) {
+            builder.profiles("prod");
+        } else if (prod) {
+            // las opciones de Connector/J no aplican a H2: solo el tamaño del pool y los avisos
+            builder.properties("bookstore.datasource.pool-size-per-core=2", "bookstore.datasource.slow-acquire-threshold=50ms");
+        }
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            VentaService ventaService = context.getBean(VentaService.class);
+            Long clienteId = context.getBean(ClienteRepository.class).save(new Cliente("Carga", "carga-" + prod + "@test.com")).getId();
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            List<Long> libros = new ArrayList<>();
+            // varios libros para que la contención sea del pool y no de una sola fila
+            for (int i = 0; i < 32; i++) libros.add(bookRepository.save(new Book("Libro " + i, "Autor", Dinero.of("10.0"), Integer.MAX_VALUE)).getId());
+            int conexiones = context.getBean(HikariDataSource.class).getMaximumPoolSize();
+
+            for (int concurrencia : CONCURRENCIA) {
+                medir(prod, conexiones, concurrencia, () -> {
+                    Long libroId = libros.get(ThreadLocalRandom.current().nextInt(libros.size()));
+                    ventaService.registrarVenta(clienteId, libroId, 1);
+                });
+            }
+        }
+    }
+
+    private void medir(boolean prod, int conexiones, int concurrencia, Runnable venta) throws Exception {
+        int total = concurrencia * VENTAS_POR_HILO;
+        AtomicInteger errores = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrencia);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int t = 0; t < concurrencia; t++) {
+            tareas.add(pool.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < VENTAS_POR_HILO; i++) {
+                    try {
+                        venta.run();
+                    } catch (RuntimeException e) {
+                        errores.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long t0 = System.nanoTime();
+        inicio.countDown();
+        for (Future<?> tarea : tareas) tarea.get();
+        double segundos = (System.nanoTime() - t0) / 1_000_000_000.0;
+        pool.shutdown();
+
+        System.out.printf("[pool prod=%s conexiones=%d] concurrencia=%d ventas=%d -> %.0f ventas/s errores=%d%n",
+                prod, conexiones, concurrencia, total, total / segundos, errores.get());
+        assertEquals(0, errores.get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookstore;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// servidor real: la compresión la hace Tomcat, no se ve con MockMvc
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.compression.enabled=true",
+        "server.compression.mime-types=application/json,application/x-ndjson,application/cbor,application/x-jackson-smile",
+        "server.compression.min-response-size=2KB"
+})
+class RespuestasComprimidasTest {
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    BookRepository bookRepository;
+
+    @BeforeEach
+    void catalogo() {
+        List<Book> libros = new ArrayList<>();
+        for (int i = 0; i < 100; i++) libros.add(new Book("Libro " + i, "Autor " + i % 10, Dinero.of("19.99"), 5));
+        bookRepository.saveAll(libros);
+    }
+
+    @AfterEach
+    void limpiar() {
+        bookRepository.deleteAll();
+    }
+
+    private HttpResponse<byte[]> getLibros(String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books?size=100"))
+                .header("Accept", accept);
+        if (acceptEncoding != null) request.header("Accept-Encoding", acceptEncoding);
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void catalogListingIsGzippedWhenAccepted() throws Exception {
+        HttpResponse<byte[]> plano = getLibros("application/json", null);
+        HttpResponse<byte[]> gzip = getLibros("application/json", "gzip");
+
+        assertTrue(plano.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(gzip.headers().firstValue("ETag").orElseThrow().startsWith("W/"));
+        assertTrue(gzip.body().length < plano.body().length / 4);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.body()))) {
+            assertArrayEquals(plano.body(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void cborListingIsSmallerAndReadsBackTheSameBooks() throws Exception {
+        HttpResponse<byte[]> json = getLibros("application/json", null);
+        HttpResponse<byte[]> cbor = getLibros("application/cbor", null);
+
+        assertEquals("application/cbor", cbor.headers().firstValue("Content-Type").orElseThrow());
+        assertNotEquals(json.headers().firstValue("ETag"), cbor.headers().firstValue("ETag"));
+        assertTrue(cbor.body().length < json.body().length);
+        // el precio en CBOR es un decimal etiquetado (BigDecimal) y en JSON un número: se compara su valor
+        JsonNode desdeJson = new ObjectMapper().readTree(json.body());
+        JsonNode desdeCbor = new CBORMapper().readTree(cbor.body());
+        assertEquals(desdeJson.size(), desdeCbor.size());
+        for (int i = 0; i < desdeJson.size(); i++) {
+            assertEquals(desdeJson.get(i).get("title"), desdeCbor.get(i).get("title"));
+            assertEquals(desdeJson.get(i).get("price").decimalValue(), desdeCbor.get(i).get("price").decimalValue());
+        }
+    }
+}
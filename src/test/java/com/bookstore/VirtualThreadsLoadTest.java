@@ -0,0 +1,105 @@
+package com.bookstore;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Carga sobre GET /api/books con hilos de plataforma (Tomcat, 50 hilos) y con hilos virtuales.
+ * Informa throughput, p50/p99 y errores para cada nivel de concurrencia.
+ * Solo a pedido: mvn test -Dbenchmark=true -Dtest=VirtualThreadsLoadTest
+ * (contra MySQL: -Dspring.datasource.url=jdbc:mysql://... para tener latencia de red real).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadsLoadTest {
+    private static final int[] CONCURRENCIA = {25, 100, 400};
+    private static final int PETICIONES_POR_CLIENTE = 20;
+
+    @ParameterizedTest(name = "virtual={0}")
+    @ValueSource(booleans = {false, true})
+    void loadTest(boolean virtual) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=50",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "spring.datasource.url=jdbc:h2:mem:load" + virtual + ";DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "logging.level.root=WARN")
+                .run()) {
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            for (int i = 0; i < 200; i++) bookRepository.save(new Book("Libro " + i, "Autor", Dinero.of("10.0"), 5));
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            URI uri = URI.create("http://localhost:" + port + "/api/books?size=50");
+
+            try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder().executor(clientes).connectTimeout(Duration.ofSeconds(5)).build();
+                for (int concurrencia : CONCURRENCIA) {
+                    medir(virtual, http, clientes, uri, concurrencia);
+                }
+            }
+        }
+    }
+
+    private void medir(boolean virtual, HttpClient http, ExecutorService clientes, URI uri, int concurrencia)
+            throws Exception {
+        int total = concurrencia * PETICIONES_POR_CLIENTE;
+        List<Long> latencias = Collections.synchronizedList(new ArrayList<>(total));
+        AtomicInteger errores = new AtomicInteger();
+        Semaphore enVuelo = new Semaphore(concurrencia);
+        List<Future<?>> tareas = new ArrayList<>(total);
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            enVuelo.acquire();
+            tareas.add(clientes.submit(() -> {
+                long t0 = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = http.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) errores.incrementAndGet();
+                } catch (Exception e) {
+                    errores.incrementAndGet();
+                } finally {
+                    latencias.add(System.nanoTime() - t0);
+                    enVuelo.release();
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) tarea.get();
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+
+        List<Long> ordenadas = new ArrayList<>(latencias);
+        Collections.sort(ordenadas);
+        System.out.printf("[carga virtual=%s] concurrencia=%d peticiones=%d -> %.0f req/s p50=%.1f ms p99=%.1f ms errores=%d%n",
+                virtual, concurrencia, total, total / segundos,
+                percentil(ordenadas, 0.50), percentil(ordenadas, 0.99), errores.get());
+        assertEquals(total, ordenadas.size());
+    }
+
+    private static double percentil(List<Long> ordenadas, double p) {
+        return ordenadas.get((int) Math.min(ordenadas.size() - 1, Math.ceil(p * ordenadas.size()) - 1)) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bookstore.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong reloj = new AtomicLong(10_000 * MS);
+
+    private AdaptiveConcurrencyLimiter limiter(int inicial) {
+        return new AdaptiveConcurrencyLimiter(inicial, 2, 50, Duration.ofMillis(100), 0.5, reloj::get);
+    }
+
+    // adquiere "n" operaciones y las libera todas tras "duracion" ms
+    private static void operaciones(AdaptiveConcurrencyLimiter limiter, AtomicLong reloj, int n, long duracion) {
+        long inicio = limiter.inicio();
+        for (int i = 0; i < n; i++) assertTrue(limiter.adquirir());
+        reloj.addAndGet(duracion * MS);
+        for (int i = 0; i < n; i++) limiter.liberar(inicio, false);
+    }
+
+    @Test
+    void rejectsAboveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(3);
+
+        assertTrue(limiter.adquirir());
+        assertTrue(limiter.adquirir());
+        assertTrue(limiter.adquirir());
+        assertFalse(limiter.adquirir());
+        assertEquals(3, limiter.getEnCurso());
+
+        limiter.liberar(limiter.inicio(), false);
+        assertTrue(limiter.adquirir());
+    }
+
+    @Test
+    void fastOperationsAtCapacityGrowTheLimitAdditively() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        // siempre lleno: cada operación rápida que termina deja lugar a otra
+        while (limiter.adquirir()) { }
+        for (int i = 0; i < 100; i++) {
+            limiter.liberar(limiter.inicio(), false);
+            while (limiter.adquirir()) { }
+        }
+        // +1/límite por operación: de 10 a ~16 en 100 operaciones
+        assertTrue(limiter.getLimite() >= 15 && limiter.getLimite() <= 17, "límite " + limiter.getLimite());
+        assertEquals(limiter.getLimite(), limiter.getEnCurso());
+    }
+
+    @Test
+    void fastOperationsWithLowUsageDoNotGrowTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 100; i++) operaciones(limiter, reloj, 1, 10);
+        assertEquals(10, limiter.getLimite());
+    }
+
+    @Test
+    void slowOperationsOrOverloadShrinkTheLimitOncePerWindow() {
+        AdaptiveConcurrencyLimiter limiter = limiter(40);
+
+        // 40 operaciones lentas que terminan juntas: una sola reducción
+        operaciones(limiter, reloj, 40, 300);
+        assertEquals(20, limiter.getLimite());
+
+        reloj.addAndGet(100 * MS);
+        long inicio = limiter.inicio();
+        assertTrue(limiter.adquirir());
+        limiter.liberar(inicio, true);
+        assertEquals(10, limiter.getLimite());
+
+        for (int i = 0; i < 10; i++) {
+            reloj.addAndGet(200 * MS);
+            operaciones(limiter, reloj, 1, 300);
+        }
+        assertEquals(2, limiter.getLimite());
+    }
+
+    @Test
+    void invalidConfigurationIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(1, 2, 10, Duration.ofMillis(100), 0.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(5, 2, 10, Duration.ofMillis(100), 1.0));
+    }
+}
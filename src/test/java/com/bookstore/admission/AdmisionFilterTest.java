@@ -0,0 +1,124 @@
+package com.bookstore.admission;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// las peticiones de MockHttpServletRequest llegan desde 127.0.0.1, que aquí es el proxy confiable
+class AdmisionFilterTest {
+    private static final String PROXY = "127.0.0.1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private AdmisionFilter filter(int rafaga, int concurrencia) {
+        return new AdmisionFilter(objectMapper, true, "X-Client-Id", Set.of(PROXY), new TokenBucketLimiter(0.001, rafaga),
+                new AdaptiveConcurrencyLimiter(concurrencia, 1, concurrencia, Duration.ofSeconds(10), 0.5));
+    }
+
+    private static MockHttpServletRequest request(String metodo, String uri, String cliente) {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, uri);
+        if (cliente != null) request.addHeader("X-Client-Id", cliente);
+        return request;
+    }
+
+    private static MockHttpServletRequest directa(String ip, String cliente) {
+        MockHttpServletRequest request = request("POST", "/api/books", cliente);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    @Test
+    void clientOverItsRateGets429WhileOthersAreServed() throws Exception {
+        AdmisionFilter filter = filter(2, 10);
+        AtomicInteger servidas = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("POST", "/api/books", "abusivo"), response, (rq, rs) -> servidas.incrementAndGet());
+            assertEquals(200, response.getStatus());
+        }
+        MockHttpServletResponse rechazada = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/books", "abusivo"), rechazada, (rq, rs) -> servidas.incrementAndGet());
+
+        assertEquals(429, rechazada.getStatus());
+        assertTrue(Long.parseLong(rechazada.getHeader("Retry-After")) > 1);
+        JsonNode body = objectMapper.readTree(rechazada.getContentAsByteArray());
+        assertEquals("DEMASIADAS_SOLICITUDES", body.get("codigo").asText());
+        assertEquals("/api/books", body.get("path").asText());
+        assertEquals(2, servidas.get());
+
+        // otro cliente (otra cabecera del proxy o, sin ella, la IP) tiene su propia cuota; las lecturas no cuentan
+        filter.doFilter(request("POST", "/api/books", "tienda"), new MockHttpServletResponse(), (rq, rs) -> servidas.incrementAndGet());
+        filter.doFilter(request("POST", "/api/books", null), new MockHttpServletResponse(), (rq, rs) -> servidas.incrementAndGet());
+        filter.doFilter(request("GET", "/api/books", "abusivo"), new MockHttpServletResponse(), (rq, rs) -> servidas.incrementAndGet());
+        assertEquals(5, servidas.get());
+    }
+
+    @Test
+    void headerFromUntrustedAddressIsIgnored() throws Exception {
+        AdmisionFilter filter = filter(2, 10);
+        AtomicInteger servidas = new AtomicInteger();
+
+        // cambiar la cabecera en cada petición no da una cuota nueva: cuenta la IP
+        int[] estados = new int[4];
+        for (int i = 0; i < estados.length; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(directa("203.0.113.7", "rotado-" + i), response, (rq, rs) -> servidas.incrementAndGet());
+            estados[i] = response.getStatus();
+        }
+        assertArrayEquals(new int[]{200, 200, 429, 429}, estados);
+
+        // ni gasta la de otro: "tienda" detrás del proxy conserva su cuota
+        for (int i = 0; i < 3; i++) filter.doFilter(directa("198.51.100.9", "tienda"), new MockHttpServletResponse(), (rq, rs) -> { });
+        MockHttpServletResponse tienda = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/books", "tienda"), tienda, (rq, rs) -> servidas.incrementAndGet());
+        assertEquals(200, tienda.getStatus());
+        assertEquals(3, servidas.get());
+    }
+
+    @Test
+    void salesOverTheConcurrencyLimitGet503AndSlotsAreReleased() throws Exception {
+        AdmisionFilter filter = filter(100, 1);
+        MockHttpServletResponse rechazada = new MockHttpServletResponse();
+
+        // mientras una venta está en curso, la siguiente se rechaza sin esperar
+        filter.doFilter(request("POST", "/api/ventas", "tienda"), new MockHttpServletResponse(), (rq, rs) -> {
+            filter.doFilter(request("POST", "/api/ventas/batch", "otra"), rechazada, new MockFilterChain());
+            // un alta de libro no pasa por el límite de ventas
+            MockHttpServletResponse libro = new MockHttpServletResponse();
+            filter.doFilter(request("POST", "/api/books", "otra"), libro, new MockFilterChain());
+            assertEquals(200, libro.getStatus());
+        });
+        assertEquals(503, rechazada.getStatus());
+        assertEquals("1", rechazada.getHeader("Retry-After"));
+        assertEquals("SERVICIO_NO_DISPONIBLE", objectMapper.readTree(rechazada.getContentAsByteArray()).get("codigo").asText());
+
+        assertEquals(0, filter.getConcurrencia().getEnCurso());
+        MockHttpServletResponse siguiente = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/ventas", "tienda"), siguiente,
+                (rq, rs) -> ((HttpServletResponse) rs).setStatus(201));
+        assertEquals(201, siguiente.getStatus());
+    }
+
+    @Test
+    void disabledFilterLetsEverythingThrough() throws Exception {
+        AdmisionFilter filter = new AdmisionFilter(objectMapper, false, "X-Client-Id", Set.of(), new TokenBucketLimiter(0.001, 1),
+                new AdaptiveConcurrencyLimiter(1, 1, 1, Duration.ofSeconds(1), 0.5));
+
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("POST", "/api/ventas", "tienda"), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+}
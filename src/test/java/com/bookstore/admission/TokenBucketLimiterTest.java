@@ -0,0 +1,47 @@
+package com.bookstore.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+    private final AtomicLong reloj = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void burstIsAdmittedThenClientWaitsForTheNextToken() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 3, reloj::get);
+
+        for (int i = 0; i < 3; i++) assertEquals(0, limiter.intentar("abusivo"));
+        long espera = limiter.intentar("abusivo");
+        assertEquals(100_000_000L, espera);
+
+        reloj.addAndGet(50_000_000L);
+        assertEquals(50_000_000L, limiter.intentar("abusivo"));
+        reloj.addAndGet(50_000_000L);
+        assertEquals(0, limiter.intentar("abusivo"));
+    }
+
+    @Test
+    void eachClientHasItsOwnBucketAndRefillIsCappedAtTheBurst() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 2, reloj::get);
+
+        assertEquals(0, limiter.intentar("a"));
+        assertEquals(0, limiter.intentar("a"));
+        assertTrue(limiter.intentar("a") > 0);
+        assertEquals(0, limiter.intentar("b"));
+
+        // una hora sin pedir nada no acumula más de "rafaga" fichas
+        reloj.addAndGet(3_600_000_000_000L);
+        assertEquals(0, limiter.intentar("a"));
+        assertEquals(0, limiter.intentar("a"));
+        assertTrue(limiter.intentar("a") > 0);
+    }
+
+    @Test
+    void invalidConfigurationIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(10, 0));
+    }
+}
@@ -0,0 +1,38 @@
+package com.bookstore.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void addedValuesAreAlwaysReported() {
+        BloomFilter filtro = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filtro.agregar("cliente" + i + "@mail.com");
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.puedeContener("cliente" + i + "@mail.com"), "falso negativo en " + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredFpp() {
+        BloomFilter filtro = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filtro.agregar("cliente" + i + "@mail.com");
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.puedeContener("otro" + i + "@mail.com")) falsosPositivos++;
+        }
+        // esperado ~1 %: con un hash mal repartido se dispara muy por encima
+        assertTrue(falsosPositivos < 2_000, "falsos positivos: " + falsosPositivos);
+        assertEquals(7, filtro.funcionesHash());
+    }
+
+    @Test
+    void rejectsInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 1));
+    }
+}
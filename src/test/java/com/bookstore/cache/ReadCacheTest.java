@@ -0,0 +1,41 @@
+package com.bookstore.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadCacheTest {
+    private final ReadCache cache = new ReadCache(100, Duration.ofMinutes(10), Duration.ofSeconds(5));
+
+    private static LibroCatalogo libro(long id, String title) {
+        return new LibroCatalogo(id, title, "Autor", 1000, 0, 0);
+    }
+
+    // lectura hecha antes de un cambio y guardada después de su invalidación (tras el commit): se descarta
+    @Test
+    void loadThatRacedWithAnInvalidationIsNotCached() {
+        long generacion = cache.generacion(1L);
+        cache.evictLibro(1L);
+        cache.putLibro(libro(1L, "Título viejo"), 5, generacion);
+
+        assertNull(cache.getLibro(1L));
+        assertNull(cache.getStock(1L));
+
+        long stockLeido = cache.generacion(1L);
+        cache.evictStock(1L);
+        cache.putStock(1L, 4, stockLeido);
+        assertNull(cache.getStock(1L));
+    }
+
+    @Test
+    void loadWithoutInvalidationsIsCached() {
+        cache.evictLibro(1L);
+        long generacion = cache.generacion(1L);
+        cache.putLibro(libro(1L, "Título"), 5, generacion);
+
+        assertEquals("Título", cache.getLibro(1L).title());
+        assertEquals(5, cache.getStock(1L));
+    }
+}
@@ -0,0 +1,68 @@
+package com.bookstore.config;
+
+import com.bookstore.metrics.SlowAcquireMetricsTrackerFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HikariPoolTuningTest {
+
+    @Test
+    void poolIsSizedFromCoresAndFixed() {
+        int esperado = HikariPoolTuning.tamanoPool(Runtime.getRuntime().availableProcessors(), 2, 1);
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            new HikariPoolTuning(2, 1, Duration.ofMillis(50)).postProcessAfterInitialization(dataSource, "dataSource");
+
+            assertEquals(esperado, dataSource.getMaximumPoolSize());
+            assertEquals(esperado, dataSource.getMinimumIdle());
+            assertInstanceOf(SlowAcquireMetricsTrackerFactory.class, dataSource.getMetricsTrackerFactory());
+        }
+        assertEquals(17, HikariPoolTuning.tamanoPool(8, 2, 1));
+        assertEquals(2, HikariPoolTuning.tamanoPool(1, 1, 0));
+    }
+
+    @Test
+    void disabledByDefaultKeepsConfiguredValues() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setMaximumPoolSize(20);
+            new HikariPoolTuning(0, 1, Duration.ZERO).postProcessAfterInitialization(dataSource, "dataSource");
+
+            assertEquals(20, dataSource.getMaximumPoolSize());
+            assertNull(dataSource.getMetricsTrackerFactory());
+        }
+    }
+
+    @Test
+    void slowAcquisitionsAreCountedAndDelegated() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            AtomicLong delegadas = new AtomicLong();
+            IMetricsTracker tracker = new SlowAcquireMetricsTrackerFactory((pool, stats) -> new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long nanos) { delegadas.incrementAndGet(); }
+            }, Duration.ofMillis(50)).create("test", new PoolStats(0) {
+                @Override
+                protected void update() {}
+            });
+
+            tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(80));
+            tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(120));
+
+            assertEquals(3, delegadas.get());
+            assertEquals(2.0, registry.get("bookstore.pool.adquisiciones.lentas").tag("pool", "test").counter().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.bookstore.config;
+
+import com.bookstore.ingest.VentaIngestService;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.service.ClienteService;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.search.Search;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * La "réplica" apunta a la misma base H2 en memoria que la primaria (sin retraso):
+ * se comprueba por las métricas de ruta a qué pool fue cada conexión.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicas;DB_CLOSE_DELAY=-1",
+        "bookstore.datasource.replica.urls=jdbc:h2:mem:replicas;DB_CLOSE_DELAY=-1",
+        "bookstore.ventas.async.enabled=true",
+        "bookstore.ventas.async.log-path=${java.io.tmpdir}/replicas-${random.uuid}.log"
+})
+class ReadReplicaConfigTest {
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    ClienteService clienteService;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    VentaIngestService ventaIngestService;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() { Metrics.addRegistry(registry); }
+
+    @AfterEach
+    void tearDown() { Metrics.removeRegistry(registry); }
+
+    private double conexiones(String tipo, String destino) {
+        return Search.in(registry).name("bookstore.datasource.rutas")
+                .tag("tipo", tipo).tag("destino", destino).counters()
+                .stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    @Test
+    void readOnlyServiceMethodsUseReplicaAndWritesUsePrimary() {
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+
+        double primaria = conexiones("lectura_escritura", "primaria");
+        clienteService.saveCliente(new Cliente("Réplica", "replica@test.com"));
+        assertTrue(conexiones("lectura_escritura", "primaria") > primaria);
+
+        double replica = conexiones("solo_lectura", "replica-0");
+        assertTrue(clienteService.countClientes() >= 1);
+        assertEquals(replica + 1, conexiones("solo_lectura", "replica-0"));
+    }
+
+    // aceptar una venta encolada depende del stock leído: esa lectura no puede ir a una réplica atrasada
+    @Test
+    void queuedSaleAdmissionReadsFromPrimary() {
+        Cliente cliente = clienteService.saveCliente(new Cliente("Cola", "cola@test.com"));
+        Book libro = bookRepository.save(new Book("Cola", "Autor", Dinero.of("10.0"), 3));
+
+        double replica = conexiones("solo_lectura", "replica-0");
+        ventaIngestService.encolar(cliente.getId(), libro.getId(), 1);
+        assertEquals(replica, conexiones("solo_lectura", "replica-0"));
+    }
+}
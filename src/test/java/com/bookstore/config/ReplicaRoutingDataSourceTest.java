@@ -0,0 +1,124 @@
+package com.bookstore.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Primaria y réplica son dos bases H2 distintas, cada una con una fila que la identifica.
+ */
+class ReplicaRoutingDataSourceTest {
+    private JdbcTemplate primaria;
+    private JdbcTemplate replica;
+    private ReplicaRoutingDataSource router;
+    private TransactionTemplate lectura;
+    private TransactionTemplate escritura;
+    private JdbcTemplate jdbc;
+    private volatile boolean replicaCaida;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primariaDs = h2("primaria");
+        DataSource replicaDs = new DelegatingDataSource(h2("replica")) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (replicaCaida) throw new SQLException("Connection refused");
+                return super.getConnection();
+            }
+        };
+        primaria = new JdbcTemplate(primariaDs);
+        replica = new JdbcTemplate(replicaDs);
+        for (JdbcTemplate db : List.of(primaria, replica)) {
+            db.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        }
+        primaria.update("INSERT INTO origen VALUES ('primaria')");
+        replica.update("INSERT INTO origen VALUES ('replica')");
+        replica.execute("CREATE TABLE retraso (segundos INT)");
+        replica.update("INSERT INTO retraso VALUES (0)");
+
+        router = new ReplicaRoutingDataSource(primariaDs, List.of(replicaDs),
+                "SELECT segundos FROM retraso", Duration.ofSeconds(5));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primariaDs);
+        dataSource.setReadOnlyDataSource(router);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        escritura = new TransactionTemplate(transactionManager);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    private static DataSource h2(String nombre) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + nombre + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private String origen(TransactionTemplate transaccion) {
+        return transaccion.execute(status -> jdbc.queryForObject("SELECT nombre FROM origen", String.class));
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        router.comprobar();
+
+        assertEquals("replica", origen(lectura));
+        assertEquals("primaria", origen(escritura));
+        escritura.executeWithoutResult(status -> jdbc.update("INSERT INTO origen VALUES ('nueva')"));
+        assertEquals(2, primaria.queryForObject("SELECT COUNT(*) FROM origen", Integer.class));
+        assertEquals(1, replica.queryForObject("SELECT COUNT(*) FROM origen", Integer.class));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimaryUntilItCatchesUp() {
+        replica.update("UPDATE retraso SET segundos = 30");
+        router.comprobar();
+        assertEquals("primaria", origen(lectura));
+
+        replica.update("UPDATE retraso SET segundos = 1");
+        router.comprobar();
+        assertEquals("replica", origen(lectura));
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimaryUntilHealthCheckPasses() {
+        replicaCaida = true;
+        assertEquals("primaria", origen(lectura));
+
+        // sigue descartada aunque vuelva, hasta la próxima comprobación
+        replicaCaida = false;
+        assertEquals("primaria", origen(lectura));
+        router.comprobar();
+        assertEquals("replica", origen(lectura));
+    }
+
+    @Test
+    void explicitCredentialsFollowTheSameRoute() throws SQLException {
+        router.comprobar();
+        assertEquals("replica", origenConCredenciales());
+
+        replicaCaida = true;
+        router.comprobar();
+        assertEquals("primaria", origenConCredenciales());
+    }
+
+    private String origenConCredenciales() throws SQLException {
+        try (Connection connection = router.getConnection("", "")) {
+            return new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("SELECT nombre FROM origen", String.class);
+        }
+    }
+}
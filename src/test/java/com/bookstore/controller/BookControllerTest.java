@@ -0,0 +1,122 @@
+package com.bookstore.controller;
+
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import com.bookstore.service.BookImportService;
+import com.bookstore.service.BookService;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(BookController.class)
+class BookControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookService bookService;
+
+    @MockBean
+    private BookImportService bookImportService;
+
+    @MockBean
+    private CambiosCatalogo cambiosCatalogo;
+
+    private Book book(long id, String title) {
+        Book book = new Book(title, "Autor", Dinero.of("10.0"), 1);
+        book.setId(id);
+        return book;
+    }
+
+    @Test
+    void listAll_FullPageReturnsNextCursor() throws Exception {
+        when(bookService.getPage(0L, 2)).thenReturn(List.of(book(1L, "Libro1"), book(2L, "Libro2")));
+
+        mockMvc.perform(get("/api/books").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("X-Next-Cursor", "2"));
+    }
+
+    @Test
+    void get_SendsEtagAndCacheControl() throws Exception {
+        when(bookService.etagLibro(1L)).thenReturn("\"v1\"");
+        when(bookService.getById(1L)).thenReturn(book(1L, "Libro1"));
+
+        mockMvc.perform(get("/api/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("ETag", "\"v1\""))
+                .andExpect(header().string("Cache-Control", "no-cache, public"))
+                .andExpect(jsonPath("$.title").value("Libro1"));
+    }
+
+    @Test
+    void get_MatchingIfNoneMatchReturns304WithoutLoadingBook() throws Exception {
+        when(bookService.etagLibro(1L)).thenReturn("\"v1\"");
+
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(content().string(""));
+        verify(bookService, never()).getById(1L);
+    }
+
+    @Test
+    void listAll_StaleEtagReturnsNewPage() throws Exception {
+        when(bookService.etagCatalogo()).thenReturn("\"c2\"");
+        when(bookService.getPage(0L, 2)).thenReturn(List.of(book(1L, "Libro1")));
+
+        mockMvc.perform(get("/api/books").param("size", "2").header("If-None-Match", "\"c1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"c2\""))
+                .andExpect(jsonPath("$.length()").value(1));
+
+        mockMvc.perform(get("/api/books").param("size", "2").header("If-None-Match", "\"c2\""))
+                .andExpect(status().isNotModified());
+        verify(bookService, times(1)).getPage(0L, 2);
+    }
+
+    @Test
+    void listAll_CborHasItsOwnEtag() throws Exception {
+        when(bookService.etagCatalogo()).thenReturn("\"c2\"");
+        when(bookService.getPage(0L, 2)).thenReturn(List.of(book(1L, "Libro1")));
+
+        // la ETag del JSON no valida el cuerpo en CBOR
+        byte[] cuerpo = mockMvc.perform(get("/api/books").param("size", "2")
+                        .accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "W/\"c2\""))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "W/\"c2+cbor\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("Libro1", new CBORMapper().readTree(cuerpo).get(0).get("title").asText());
+
+        mockMvc.perform(get("/api/books").param("size", "2")
+                        .accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "W/\"c2+cbor\""))
+                .andExpect(status().isNotModified());
+        verify(bookService, times(1)).getPage(0L, 2);
+    }
+
+    @Test
+    void listAll_LastPageHasNoCursor() throws Exception {
+        when(bookService.getPage(2L, 2)).thenReturn(List.of(book(3L, "Libro3")));
+
+        mockMvc.perform(get("/api/books").param("after", "2").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Libro3"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+}
@@ -1,5 +1,8 @@
 package com.bookstore.controller;
 
+import com.bookstore.dto.AltaClientes;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
 import com.bookstore.model.Cliente;
 import com.bookstore.service.ClienteService;
 import org.junit.jupiter.api.Test;
@@ -13,6 +16,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -82,11 +86,42 @@ class ClienteControllerTest {
 
     @Test
     void getClienteById_NotFound() throws Exception {
-        doThrow(new RuntimeException("Cliente no encontrado"))
+        doThrow(ResourceNotFoundException.CLIENTE_NO_ENCONTRADO)
                 .when(clienteService).getById(999L);
 
         mockMvc.perform(get("/api/clientes/999"))
                 // ✅ más claro: esperamos 404 Not Found
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.codigo").value("NO_ENCONTRADO"))
+                .andExpect(jsonPath("$.mensaje").value("Cliente no encontrado"))
+                .andExpect(jsonPath("$.path").value("/api/clientes/999"));
+    }
+
+    @Test
+    void createCliente_DuplicateEmailIsBadRequest() throws Exception {
+        when(clienteService.saveCliente(any(Cliente.class))).thenThrow(BadRequestException.EMAIL_DUPLICADO);
+
+        mockMvc.perform(post("/api/clientes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\": \"Juan\", \"email\": \"juan@mail.com\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.codigo").value("SOLICITUD_INVALIDA"))
+                .andExpect(jsonPath("$.mensaje").value("Ya existe un cliente con ese email"));
+    }
+
+    @Test
+    void importClientes_ReturnsSummary() throws Exception {
+        when(clienteService.saveClientes(anyList())).thenReturn(new AltaClientes(1, List.of("pedro@mail.com"), 0));
+
+        mockMvc.perform(post("/api/clientes/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"nombre": "Juan", "email": "juan@mail.com"},
+                                 {"nombre": "Pedro", "email": "pedro@mail.com"}]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creados").value(1))
+                .andExpect(jsonPath("$.duplicados[0]").value("pedro@mail.com"))
+                .andExpect(jsonPath("$.invalidos").value(0));
     }
 }
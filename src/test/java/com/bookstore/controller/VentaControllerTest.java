@@ -0,0 +1,127 @@
+package com.bookstore.controller;
+
+import com.bookstore.dto.VentaResumen;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ServiceUnavailableException;
+import com.bookstore.ingest.VentaIngestService;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.bookstore.service.SalesStatsService;
+import com.bookstore.service.VentaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// respuestas de error estructuradas: { status, codigo, mensaje, path, timestamp }
+@WebMvcTest(VentaController.class)
+class VentaControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private VentaService ventaService;
+    @MockBean
+    private SalesStatsService salesStatsService;
+    @MockBean
+    private VentaIngestService ventaIngestService;
+
+    private static final String VENTA = "{\"clienteId\":1,\"libroId\":2,\"cantidad\":5}";
+
+    @Test
+    void rejectedSaleReturnsStructuredBadRequest() throws Exception {
+        when(ventaService.registrarVenta(1L, 2L, 5)).thenThrow(new BadRequestException("Stock insuficiente para el libro: X"));
+
+        mockMvc.perform(post("/api/ventas").contentType(MediaType.APPLICATION_JSON).content(VENTA))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.codigo").value("SOLICITUD_INVALIDA"))
+                .andExpect(jsonPath("$.mensaje").value("Stock insuficiente para el libro: X"))
+                .andExpect(jsonPath("$.path").value("/api/ventas"))
+                .andExpect(jsonPath("$.timestamp").exists());
+    }
+
+    @Test
+    void malformedBodyNamesTheField() throws Exception {
+        mockMvc.perform(post("/api/ventas").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"clienteId\":\"uno\",\"libroId\":2,\"cantidad\":1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensaje").value("El campo clienteId debe ser un número entero"));
+    }
+
+    @Test
+    void fullQueueReturnsServiceUnavailableWithRetryAfter() throws Exception {
+        when(ventaIngestService.isEnabled()).thenReturn(true);
+        when(ventaIngestService.encolar(1L, 2L, 5)).thenThrow(new ServiceUnavailableException("Cola de ventas llena"));
+
+        mockMvc.perform(post("/api/ventas").contentType(MediaType.APPLICATION_JSON).content(VENTA))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.codigo").value("SERVICIO_NO_DISPONIBLE"));
+    }
+
+    @Test
+    void exceptionWithoutMessageAndInvalidParametersAreHandled() throws Exception {
+        when(ventaService.getById(7L)).thenThrow(new IllegalStateException());
+
+        mockMvc.perform(get("/api/ventas/7"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.codigo").value("ERROR_INTERNO"));
+        mockMvc.perform(get("/api/ventas/abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensaje").value("Parámetro inválido o ausente: id"));
+    }
+    @Test
+    void listingWithReferencesWritesEachClienteAndLibroOnce() throws Exception {
+        LocalDateTime fecha = LocalDateTime.of(2025, 1, 1, 10, 0);
+        when(ventaService.getHistorial(null, null, null, null, null, VentaService.DEFAULT_PAGE_SIZE)).thenReturn(List.of(
+                new VentaResumen(3L, fecha, 1, 1L, "Ana", 2L, "Rayuela"),
+                new VentaResumen(2L, fecha, 2, 1L, "Ana", 5L, "Ficciones"),
+                new VentaResumen(1L, fecha, 1, 1L, "Ana", 2L, "Rayuela")));
+
+        mockMvc.perform(get("/api/ventas").param("referencias", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ventas.length()").value(3))
+                .andExpect(jsonPath("$.ventas[1].libroId").value(5))
+                .andExpect(jsonPath("$.ventas[1].clienteNombre").doesNotExist())
+                .andExpect(jsonPath("$.clientes.length()").value(1))
+                .andExpect(jsonPath("$.clientes[0].nombre").value("Ana"))
+                .andExpect(jsonPath("$.libros[*].titulo", contains("Rayuela", "Ficciones")));
+    }
+
+    @Test
+    void batchResponseWritesRepeatedClienteAsItsId() throws Exception {
+        Cliente cliente = new Cliente("Ana", "ana@test.com");
+        cliente.setId(1L);
+        Book libro = new Book("Rayuela", "Cortázar", Dinero.of("10"), 5);
+        libro.setId(2L);
+        Book otro = new Book("Ficciones", "Borges", Dinero.of("12"), 5);
+        otro.setId(3L);
+        when(ventaService.registrarVentas(anyList())).thenReturn(List.of(
+                new Venta(cliente, libro, 1), new Venta(cliente, otro, 1), new Venta(cliente, libro, 2)));
+
+        mockMvc.perform(post("/api/ventas/batch").contentType(MediaType.APPLICATION_JSON).content("[" + VENTA + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].cliente.nombre").value("Ana"))
+                .andExpect(jsonPath("$[1].cliente").value(1))
+                .andExpect(jsonPath("$[1].libro.title").value("Ficciones"))
+                .andExpect(jsonPath("$[2].cliente").value(1))
+                .andExpect(jsonPath("$[2].libro").value(2))
+                .andExpect(jsonPath("$[2].precioUnitario").value(10.0));
+    }
+}
@@ -0,0 +1,67 @@
+package com.bookstore.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestDeserializationTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void ventaRequestReadsTypedAndQuotedNumbersAndSkipsUnknownFields() throws Exception {
+        assertEquals(new VentaRequest(1L, 2L, 3),
+                objectMapper.readValue("{\"clienteId\":1,\"libroId\":2,\"cantidad\":3}", VentaRequest.class));
+        assertEquals(new VentaRequest(1L, 2L, 3),
+                objectMapper.readValue("{\"extra\":{\"a\":[1,2]},\"cantidad\":\"3\",\"libroId\":\"2\",\"clienteId\":1}", VentaRequest.class));
+        assertEquals(new VentaRequest(null, null, 0), objectMapper.readValue("{}", VentaRequest.class));
+    }
+
+    @Test
+    void ventaRequestListUsesStreamingDeserializer() throws Exception {
+        List<VentaRequest> lote = objectMapper.readValue(
+                "[{\"clienteId\":1,\"libroId\":2,\"cantidad\":1},{\"clienteId\":3,\"libroId\":4,\"cantidad\":2}]",
+                new TypeReference<>() {});
+        assertEquals(List.of(new VentaRequest(1L, 2L, 1), new VentaRequest(3L, 4L, 2)), lote);
+    }
+
+    @Test
+    void malformedNumbersAreRejectedWithFieldName() {
+        MismatchedInputException e = assertThrows(MismatchedInputException.class, () ->
+                objectMapper.readValue("{\"clienteId\":\"abc\",\"libroId\":2,\"cantidad\":1}", VentaRequest.class));
+        assertTrue(e.getOriginalMessage().contains("clienteId"));
+        assertThrows(MismatchedInputException.class, () ->
+                objectMapper.readValue("{\"clienteId\":1,\"libroId\":2,\"cantidad\":1.5}", VentaRequest.class));
+        assertThrows(MismatchedInputException.class, () ->
+                objectMapper.readValue("{\"clienteId\":1,\"libroId\":2,\"cantidad\":99999999999}", VentaRequest.class));
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("[1,2]", VentaRequest.class));
+    }
+
+    @Test
+    void bookRequestBuildsBook() throws Exception {
+        BookRequest request = objectMapper.readValue(
+                "{\"id\":7,\"title\":\"Clean Code\",\"author\":\"Robert C. Martin\",\"price\":45.5,\"stock\":10,\"version\":2}",
+                BookRequest.class);
+        assertEquals(new BookRequest(7L, "Clean Code", "Robert C. Martin", 4550, 10, 2L), request);
+        assertEquals(7L, request.toBook().getId());
+        assertEquals(2, request.toBook().getVersion());
+
+        assertNull(objectMapper.readValue("{\"title\":\"T\",\"author\":\"A\",\"price\":1,\"stock\":1}", BookRequest.class)
+                .toBook().getId());
+        assertThrows(MismatchedInputException.class, () ->
+                objectMapper.readValue("{\"title\":[\"x\"],\"price\":1}", BookRequest.class));
+    }
+
+    @Test
+    void bookPriceIsReadExactlyInCents() throws Exception {
+        // 0.1 + 0.2 en double no es 0.3: el importe se toma del texto del número
+        assertEquals(30, objectMapper.readValue("{\"price\":0.30}", BookRequest.class).priceCentavos());
+        assertEquals(1999, objectMapper.readValue("{\"price\":\"19.99\"}", BookRequest.class).priceCentavos());
+        assertEquals(4500, objectMapper.readValue("{\"price\":45}", BookRequest.class).priceCentavos());
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("{\"price\":19.999}", BookRequest.class));
+    }
+}
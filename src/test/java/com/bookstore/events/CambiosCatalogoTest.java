@@ -0,0 +1,231 @@
+package com.bookstore.events;
+
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaRepository;
+import com.bookstore.service.BookService;
+import com.bookstore.service.VentaService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// servidor real: el flujo SSE queda abierto y se lee línea a línea. La ventana es de una hora para que
+// el test decida cuándo publica (publicar()) y ver el agrupado por libro
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "bookstore.cambios.ventana=1h",
+        "bookstore.cambios.historial=3",
+        "bookstore.cambios.max-suscriptores=3",
+        "bookstore.cambios.max-pendientes=4"
+})
+class CambiosCatalogoTest {
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    CambiosCatalogo cambiosCatalogo;
+    @Autowired
+    BookService bookService;
+    @Autowired
+    VentaService ventaService;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ClienteRepository clienteRepository;
+    @Autowired
+    VentaRepository ventaRepository;
+
+    private record EventoSse(long id, String tipo, JsonNode datos) {}
+
+    @AfterEach
+    void limpiar() {
+        http.shutdownNow();
+        cambiosCatalogo.cerrarSuscripciones();
+        ventaRepository.deleteAll();
+        bookRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    // abre GET /api/books/cambios y deja sus eventos en una cola
+    private BlockingQueue<EventoSse> suscribir(String ultimo) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/cambios"))
+                .header("Accept", "text/event-stream");
+        if (ultimo != null) request.header("Last-Event-ID", ultimo);
+        HttpResponse<Stream<String>> response = http.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        BlockingQueue<EventoSse> eventos = new LinkedBlockingQueue<>();
+        Thread.ofVirtual().start(() -> {
+            Map<String, String> campos = new HashMap<>();
+            try (Stream<String> lineas = response.body()) {
+                lineas.forEach(linea -> {
+                    if (!linea.isEmpty()) {
+                        int dosPuntos = linea.indexOf(':');
+                        if (dosPuntos > 0) campos.put(linea.substring(0, dosPuntos), linea.substring(dosPuntos + 1));
+                        return;
+                    }
+                    if (campos.containsKey("id")) {
+                        try {
+                            eventos.add(new EventoSse(Long.parseLong(campos.get("id")), campos.get("event"),
+                                    objectMapper.readTree(campos.get("data"))));
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    campos.clear();
+                });
+            } catch (UncheckedIOException e) {
+                // el cliente se cerró al terminar el test
+            }
+        });
+        return eventos;
+    }
+
+    private static EventoSse siguiente(BlockingQueue<EventoSse> eventos) throws InterruptedException {
+        EventoSse evento = eventos.poll(5, TimeUnit.SECONDS);
+        assertNotNull(evento, "no llegó el evento");
+        return evento;
+    }
+
+    @Test
+    void changesAreCoalescedPerBookAndPublishedAfterCommit() throws Exception {
+        Book libro = bookService.saveBook(new Book("Rayuela", "Cortázar", Dinero.of("20.00"), 10));
+        Book otro = bookService.saveBook(new Book("Ficciones", "Borges", Dinero.of("15.00"), 3));
+        Cliente cliente = clienteRepository.save(new Cliente("Tienda", "tienda@test.com"));
+        cambiosCatalogo.publicar();
+        BlockingQueue<EventoSse> eventos = suscribir(null);
+        cambiosCatalogo.publicar();
+
+        // dos ediciones y dos ventas del mismo libro en la ventana: un solo evento con el estado final
+        libro.setPrice(Dinero.of("18.50"));
+        bookService.saveBook(libro);
+        ventaService.registrarVenta(cliente.getId(), libro.getId(), 2);
+        ventaService.registrarVenta(cliente.getId(), libro.getId(), 1);
+        bookService.deleteById(otro.getId());
+        // la venta revertida (sin stock) no publica nada
+        assertThrows(BadRequestException.class, () -> ventaService.registrarVenta(cliente.getId(), libro.getId(), 100));
+        cambiosCatalogo.publicar();
+
+        EventoSse cambio = siguiente(eventos);
+        assertEquals("cambio", cambio.tipo());
+        assertEquals(libro.getId(), cambio.datos().get("id").asLong());
+        assertEquals(cambio.id(), cambio.datos().get("seq").asLong());
+        assertEquals("18.5", cambio.datos().get("price").decimalValue().stripTrailingZeros().toPlainString());
+        assertEquals(7, cambio.datos().get("stock").asInt());
+
+        EventoSse baja = siguiente(eventos);
+        assertEquals("baja", baja.tipo());
+        assertEquals(otro.getId(), baja.datos().get("id").asLong());
+        assertFalse(baja.datos().has("stock"));
+        assertEquals(cambio.id() + 1, baja.id());
+
+        cambiosCatalogo.publicar();
+        assertNull(eventos.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void reconnectingClientGetsMissedEventsOrARestart() throws Exception {
+        Book libro = bookService.saveBook(new Book("Rayuela", "Cortázar", Dinero.of("20.00"), 10));
+        BlockingQueue<EventoSse> eventos = suscribir(null);
+        cambiosCatalogo.publicar();
+        long primero = siguiente(eventos).id();
+
+        // tres cambios más mientras el cliente está desconectado (el historial guarda tres)
+        for (int i = 1; i <= 3; i++) {
+            libro.setStock(10 + i);
+            libro = bookService.saveBook(libro);
+            cambiosCatalogo.publicar();
+        }
+
+        BlockingQueue<EventoSse> reanudado = suscribir(String.valueOf(primero + 1));
+        cambiosCatalogo.publicar();
+        assertEquals(primero + 2, siguiente(reanudado).id());
+        EventoSse ultimo = siguiente(reanudado);
+        assertEquals(primero + 3, ultimo.id());
+        assertEquals(13, ultimo.datos().get("stock").asInt());
+
+        // el primer evento ya no está en el historial: hay que volver a leer el catálogo
+        BlockingQueue<EventoSse> atrasado = suscribir(String.valueOf(primero - 1));
+        cambiosCatalogo.publicar();
+        EventoSse reinicio = siguiente(atrasado);
+        assertEquals("reinicio", reinicio.tipo());
+        assertEquals(primero + 3, reinicio.id());
+
+        // con el máximo de suscriptores conectados, el siguiente recibe 503
+        HttpResponse<String> rechazada = http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/cambios"))
+                .header("Accept", "text/event-stream").build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(503, rechazada.statusCode());
+        assertEquals("5", rechazada.headers().firstValue("Retry-After").orElseThrow());
+
+        // los que siguen conectados reciben los cambios nuevos una sola vez
+        bookService.saveBook(libro);
+        cambiosCatalogo.publicar();
+        for (long seq = primero + 1; seq <= primero + 4; seq++) assertEquals(seq, siguiente(eventos).id());
+        assertEquals(primero + 4, siguiente(reanudado).id());
+        assertEquals(primero + 4, siguiente(atrasado).id());
+        assertNull(reanudado.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void clientThatNeverReadsIsDroppedWithoutStallingTheOthers() throws Exception {
+        List<Book> libros = new ArrayList<>();
+        for (int i = 0; i < 500; i++) libros.add(new Book("Libro " + i, "Autor", Dinero.of("10.00"), 1));
+        List<Long> ids = bookRepository.saveAll(libros).stream().map(Book::getId).toList();
+        Long ultimo = ids.get(ids.size() - 1);
+
+        // conexión que pide el flujo y nunca lee: con el búfer de recepción al mínimo se llena enseguida
+        try (Socket lento = new Socket()) {
+            lento.setReceiveBufferSize(1024);
+            lento.connect(new InetSocketAddress("localhost", port));
+            lento.getOutputStream().write(("GET /api/books/cambios HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Accept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            BlockingQueue<EventoSse> eventos = suscribir(null);
+            for (int i = 0; i < 100 && cambiosCatalogo.suscriptores() < 2; i++) {
+                cambiosCatalogo.publicar();
+                Thread.sleep(50);
+            }
+            assertEquals(2, cambiosCatalogo.suscriptores());
+
+            // ventanas de ~50 KB: el que lee las recibe todas mientras el otro llena su cola y se desconecta
+            for (int ronda = 0; ronda < 200 && cambiosCatalogo.suscriptores() > 1; ronda++) {
+                ids.forEach(cambiosCatalogo::libroCambiado);
+                cambiosCatalogo.publicar();
+                while (siguiente(eventos).datos().get("id").asLong() != ultimo) {
+                    // el resto de la ventana
+                }
+            }
+            assertEquals(1, cambiosCatalogo.suscriptores());
+
+            cambiosCatalogo.libroCambiado(ultimo);
+            cambiosCatalogo.publicar();
+            assertEquals(ultimo, siguiente(eventos).datos().get("id").asLong());
+        }
+    }
+}
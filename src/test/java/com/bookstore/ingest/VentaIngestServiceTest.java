@@ -0,0 +1,185 @@
+package com.bookstore.ingest;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.VentaEncolada;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.exception.ServiceUnavailableException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaRepository;
+import com.bookstore.service.SalesStatsService;
+import com.bookstore.service.ShardedStockService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// sin transacción de test: el escritor guarda en su propio hilo
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SalesStatsService.class, ShardedStockService.class, ReadCache.class, CambiosCatalogo.class, ObjectMapper.class})
+class VentaIngestServiceTest {
+    private static final long ESPERA_MAX_MS = 10_000;
+
+    @Autowired
+    VentaRepository ventaRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ClienteRepository clienteRepository;
+    @Autowired
+    ReadCache readCache;
+    @Autowired
+    SalesStatsService salesStatsService;
+    @Autowired
+    ShardedStockService shardedStockService;
+    @Autowired
+    CambiosCatalogo cambiosCatalogo;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    private final List<VentaIngestService> servicios = new ArrayList<>();
+    private Book book;
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        book = bookRepository.save(new Book("Async", "Autor", Dinero.of("10.0"), 5));
+        cliente = clienteRepository.save(new Cliente("Async", "async@test.com"));
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        for (VentaIngestService servicio : servicios) servicio.detener();
+        ventaRepository.deleteAll();
+        bookRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    private VentaIngestService servicio(int capacidad) {
+        return servicio(capacidad, salesStatsService);
+    }
+
+    private VentaIngestService servicio(int capacidad, SalesStatsService estadisticas) {
+        VentaIngestService servicio = new VentaIngestService(ventaRepository, bookRepository, clienteRepository,
+                readCache, estadisticas, shardedStockService, cambiosCatalogo, transactionManager, true, dir.resolve("ventas.log").toString(),
+                capacidad, 100, false);
+        servicios.add(servicio);
+        return servicio;
+    }
+
+    private VentaEncolada esperarFin(VentaIngestService servicio, long id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MAX_MS;
+        VentaEncolada estado;
+        while ((estado = servicio.getEstado(id)).estado().equals("PENDIENTE")) {
+            assertTrue(System.currentTimeMillis() < limite, "la venta " + id + " sigue pendiente");
+            Thread.sleep(20);
+        }
+        return estado;
+    }
+
+    @Test
+    void acceptedSalesArePersistedAndStockIsNeverOversold() throws Exception {
+        VentaIngestService servicio = servicio(16);
+        servicio.iniciar();
+
+        VentaEncolada primera = servicio.encolar(cliente.getId(), book.getId(), 2);
+        VentaEncolada segunda = servicio.encolar(cliente.getId(), book.getId(), 3);
+        assertEquals("PENDIENTE", primera.estado());
+        // las 5 unidades ya están comprometidas aunque todavía no se hayan escrito
+        assertThrows(BadRequestException.class, () -> servicio.encolar(cliente.getId(), book.getId(), 1));
+
+        VentaEncolada guardada = esperarFin(servicio, primera.id());
+        assertEquals("GUARDADA", guardada.estado());
+        assertNotNull(guardada.ventaId());
+        assertEquals("GUARDADA", esperarFin(servicio, segunda.id()).estado());
+
+        assertEquals(0, bookRepository.findStockById(book.getId()).orElseThrow());
+        assertEquals(2, ventaRepository.count());
+        assertEquals(2, ventaRepository.findById(guardada.ventaId()).orElseThrow().getCantidad());
+    }
+
+    @Test
+    void fullQueueAppliesBackpressureAndPendingSalesAreReplayedOnRestart() throws Exception {
+        // sin escritor: simula un proceso que cae con ventas aceptadas y no guardadas
+        VentaIngestService caido = servicio(2);
+        caido.abrir();
+        VentaEncolada a = caido.encolar(cliente.getId(), book.getId(), 1);
+        VentaEncolada b = caido.encolar(cliente.getId(), book.getId(), 1);
+        assertThrows(ServiceUnavailableException.class, () -> caido.encolar(cliente.getId(), book.getId(), 1));
+        caido.detener();
+        assertEquals(0, ventaRepository.count());
+
+        VentaIngestService reiniciado = servicio(2);
+        reiniciado.iniciar();
+        assertEquals("GUARDADA", esperarFin(reiniciado, a.id()).estado());
+        assertEquals("GUARDADA", esperarFin(reiniciado, b.id()).estado());
+        assertEquals(3, bookRepository.findStockById(book.getId()).orElseThrow());
+
+        // los ids siguen después de los reprocesados
+        assertTrue(reiniciado.encolar(cliente.getId(), book.getId(), 1).id() > b.id());
+    }
+
+    // caída entre el commit y la marca en el registro: la venta reprocesada ya está guardada. El primer intento
+    // del lote se revierte (falla otra venta del lote) y el reintento tampoco debe guardarla otra vez
+    @Test
+    void replayedSaleIsNotDuplicatedWhenTheBatchIsRetried() throws Exception {
+        VentaIngestService caido = servicio(4);
+        caido.abrir();
+        VentaEncolada yaGuardada = caido.encolar(cliente.getId(), book.getId(), 1);
+        VentaEncolada nueva = caido.encolar(cliente.getId(), book.getId(), 1);
+        caido.detener();
+        VentaLog.Entrada entrada;
+        try (VentaLog registro = new VentaLog(dir.resolve("ventas.log"), 4)) {
+            entrada = registro.leerTodas().stream().filter(e -> e.seq() == yaGuardada.id()).findFirst().orElseThrow();
+        }
+        Venta guardada = new Venta(cliente, book, 1);
+        guardada.setFecha(entrada.fecha());
+        ventaRepository.save(guardada);
+
+        SalesStatsService estadisticas = spy(salesStatsService);
+        doThrow(new IllegalStateException("caída de la base")).doCallRealMethod().when(estadisticas).registrar(any());
+        VentaIngestService reiniciado = servicio(4, estadisticas);
+        reiniciado.iniciar();
+
+        assertEquals(guardada.getId(), esperarFin(reiniciado, yaGuardada.id()).ventaId());
+        assertEquals("GUARDADA", esperarFin(reiniciado, nueva.id()).estado());
+        verify(estadisticas, times(2)).registrar(any());
+        assertEquals(2, ventaRepository.count());
+    }
+
+    @Test
+    void unknownReferencesAreRejectedBeforeQueueing() {
+        VentaIngestService servicio = servicio(4);
+        servicio.abrir();
+
+        assertThrows(ResourceNotFoundException.class, () -> servicio.encolar(999L, book.getId(), 1));
+        assertThrows(ResourceNotFoundException.class, () -> servicio.encolar(cliente.getId(), 999L, 1));
+        assertThrows(BadRequestException.class, () -> servicio.encolar(cliente.getId(), book.getId(), 0));
+        assertThrows(ResourceNotFoundException.class, () -> servicio.getEstado(12345));
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookstore.ingest;
+
+import com.bookstore.ingest.VentaLog.Entrada;
+import com.bookstore.ingest.VentaLog.Estado;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VentaLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static Entrada entrada(long seq) {
+        return new Entrada(seq, 10 + seq, 20 + seq, 1, LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_456_000), Estado.PENDIENTE, 0);
+    }
+
+    @Test
+    void entriesSurviveReopenWithStatusUpdates() throws Exception {
+        Path path = dir.resolve("ventas.log");
+        try (VentaLog log = new VentaLog(path, 8)) {
+            log.escribir(entrada(1));
+            log.escribir(entrada(2));
+            log.marcar(1, Estado.GUARDADA, 99);
+        }
+
+        try (VentaLog log = new VentaLog(path, 8)) {
+            List<Entrada> entradas = log.leerTodas();
+            assertEquals(2, entradas.size());
+            assertEquals(new Entrada(1, 11, 21, 1, entrada(1).fecha(), Estado.GUARDADA, 99), log.leer(1).orElseThrow());
+            assertEquals(entrada(2), log.leer(2).orElseThrow());
+            assertTrue(log.leer(3).isEmpty());
+        }
+    }
+
+    @Test
+    void ringOverwritesOldestSlotAndKeepsOriginalCapacity() throws Exception {
+        Path path = dir.resolve("anillo.log");
+        try (VentaLog log = new VentaLog(path, 4)) {
+            for (long seq = 1; seq <= 5; seq++) log.escribir(entrada(seq));
+            assertTrue(log.leer(1).isEmpty()); // pisada por la 5
+            assertEquals(5, log.leer(5).orElseThrow().seq());
+            log.marcar(1, Estado.RECHAZADA, 0); // no afecta a la 5
+            assertEquals(Estado.PENDIENTE, log.leer(5).orElseThrow().estado());
+        }
+        try (VentaLog log = new VentaLog(path, 100)) {
+            assertEquals(4, log.capacidad());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.bookstore.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeraRespuestaFilterTest {
+
+    @Test
+    void recordsOnlyTheFirstSuccessfulCatalogGet() throws Exception {
+        PrimeraRespuestaFilter filter = new PrimeraRespuestaFilter();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/clientes"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/books"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse error = new MockHttpServletResponse();
+        error.setStatus(503);
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), error, new MockFilterChain());
+        assertEquals(-1, filter.getMilisegundos());
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(), new MockFilterChain());
+        long primera = filter.getMilisegundos();
+        assertTrue(primera > 0);
+
+        Thread.sleep(5);
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(primera, filter.getMilisegundos());
+    }
+}
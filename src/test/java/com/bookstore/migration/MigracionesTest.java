@@ -0,0 +1,111 @@
+package com.bookstore.migration;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// las migraciones sobre H2 en modo MySQL, con Hibernate (dialecto de MySQL: la secuencia de ventas es una tabla)
+// validando que el esquema coincide con las entidades
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migraciones;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.flyway.locations=classpath:db/migration,classpath:com/bookstore/migration",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect"
+})
+class MigracionesTest {
+    private static final String LOCATIONS = "classpath:db/migration,classpath:com/bookstore/migration";
+
+    @Autowired
+    Flyway flyway;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ClienteRepository clienteRepository;
+    @Autowired
+    VentaRepository ventaRepository;
+
+    @Test
+    void migrationsBuildTheSchemaTheEntitiesExpect() {
+        assertEquals("2", flyway.info().current().getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+
+        Cliente cliente = clienteRepository.save(new Cliente("Migrado", "migrado@test.com"));
+        Book libro = bookRepository.save(new Book("Migrado", "Autor", Dinero.of("19.99"), 5));
+        Venta venta = ventaRepository.saveAndFlush(new Venta(cliente, libro, 2));
+
+        assertEquals(1999L, jdbcTemplate.queryForObject("select precio_unitario_centavos from ventas where id = ?",
+                Long.class, venta.getId()));
+        assertEquals("CASCADE", reglaBorradoShards(jdbcTemplate));
+    }
+
+    private static String reglaBorradoShards(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("select delete_rule from information_schema.referential_constraints "
+                + "where constraint_name = 'fk_stock_shards_libro'", String.class);
+    }
+
+    // base creada por ddl-auto=update con las entidades de la primera versión (precio double, sin versión,
+    // fragmentos de stock sin clave foránea, ventas con id autoincremental): se toma como V1, V1.1 la completa
+    // y V2 la convierte
+    @Test
+    void legacyDatabaseIsBaselinedAndMigratedToCents() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legado;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        JdbcTemplate legado = new JdbcTemplate(dataSource);
+        legado.execute("create table books (id bigint not null auto_increment, author varchar(255), price double not null, "
+                + "stock integer not null, title varchar(255), primary key (id))");
+        legado.execute("create table clientes (id bigint not null auto_increment, email varchar(255), nombre varchar(255), "
+                + "primary key (id))");
+        legado.execute("create table ventas (id bigint not null auto_increment, cantidad integer not null, fecha datetime(6), "
+                + "cliente_id bigint, libro_id bigint, primary key (id))");
+        legado.execute("alter table clientes add constraint UK1c96wv36rk2hwui7qhjks3mvg unique (email)");
+        legado.execute("alter table ventas add constraint FK4dgjhccl2uuo8swmxlxb4ipb5 foreign key (cliente_id) references clientes (id)");
+        legado.execute("alter table ventas add constraint FKgwvdqvenx732i3xjn9nc8sbp1 foreign key (libro_id) references books (id)");
+        // tabla de shards de ddl-auto, sin clave foránea y con un shard de un libro ya borrado
+        legado.execute("create table books_stock_shards (shard integer not null, stock integer not null, "
+                + "libro_id bigint not null, primary key (shard, libro_id))");
+        legado.update("insert into books (title, author, price, stock) values ('Legado', 'Autor', 19.99, 5)");
+        legado.update("insert into clientes (nombre, email) values ('Legado', 'legado@test.com')");
+        for (int i = 0; i < 3; i++) legado.update("insert into ventas (cantidad, cliente_id, libro_id) values (2, 1, 1)");
+        legado.update("insert into books (title, author, price, stock) values ('Repartido', 'Autor', 5.0, 0)");
+        legado.update("insert into books_stock_shards (shard, stock, libro_id) values (0, 4, 2), (1, 4, 2), (0, 3, 99)");
+
+        Flyway flyway = Flyway.configure().dataSource(dataSource).locations(LOCATIONS.split(","))
+                .baselineOnMigrate(true).baselineVersion("1").load();
+        flyway.migrate();
+
+        assertEquals(1999L, legado.queryForObject("select price_centavos from books where id = 1", Long.class));
+        assertEquals(1999L, legado.queryForObject("select precio_unitario_centavos from ventas where id = 1", Long.class));
+        assertEquals(0, legado.queryForObject("select count(*) from information_schema.columns "
+                + "where table_name = 'books' and column_name = 'price'", Integer.class));
+        assertEquals(0L, legado.queryForObject("select version from books where id = 1", Long.class));
+        assertEquals(2, legado.queryForObject("select count(*) from books_stock_shards", Integer.class));
+        assertEquals("CASCADE", reglaBorradoShards(legado));
+        legado.update("delete from books where id = 2");
+        assertEquals(0, legado.queryForObject("select count(*) from books_stock_shards", Integer.class));
+        assertEquals(0, legado.queryForObject("select count(*) from ventas_agregados", Integer.class));
+        assertEquals(3, legado.queryForObject("select count(distinct index_name) from information_schema.indexes "
+                + "where table_name = 'ventas' and index_name like 'idx_ventas_%'", Integer.class));
+        // Hibernate reparte hasta 50 ids por debajo del valor leído: ninguno puede ser una venta existente
+        assertTrue(legado.queryForObject("select next_val from ventas_seq", Long.class) - 50 > 3);
+        assertEquals("2", flyway.info().current().getVersion().getVersion());
+    }
+}
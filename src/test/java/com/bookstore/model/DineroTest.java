@@ -0,0 +1,52 @@
+package com.bookstore.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DineroTest {
+
+    @Test
+    void parsesDecimalTextExactly() {
+        assertEquals(4550, Dinero.parse("45.5"));
+        assertEquals(4550, Dinero.parse(" 45.50 "));
+        assertEquals(4500, Dinero.parse("45"));
+        assertEquals(5, Dinero.parse("0.05"));
+        assertEquals(-125, Dinero.parse("-1.25"));
+        assertEquals(-50, Dinero.parse("-0.5"));
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("1.999"));
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("1."));
+        assertThrows(NumberFormatException.class, () -> Dinero.parse("abc"));
+        assertThrows(ArithmeticException.class, () -> Dinero.parse("999999999999999999"));
+    }
+
+    @Test
+    void formatsWithTwoDecimals() {
+        assertEquals("45.50", Dinero.formato(4550));
+        assertEquals("0.05", Dinero.formato(5));
+        assertEquals("-1.25", Dinero.formato(-125));
+        assertEquals("0.00", Dinero.CERO.toString());
+    }
+
+    @Test
+    void arithmeticStaysInCents() {
+        Dinero precio = Dinero.of("0.10");
+        Dinero total = Dinero.CERO;
+        for (int i = 0; i < 10; i++) total = total.mas(precio);
+        assertEquals(Dinero.of("1.00"), total);
+        assertEquals(Dinero.of("2.97"), Dinero.of("0.99").por(3));
+        assertThrows(ArithmeticException.class, () -> Dinero.centavos(Long.MAX_VALUE).por(2));
+    }
+
+    @Test
+    void jsonIsADecimalNumber() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals("45.50", mapper.writeValueAsString(Dinero.of("45.5")));
+        assertEquals(Dinero.of("19.99"), mapper.readValue("19.99", Dinero.class));
+        assertEquals(Dinero.of("19.99"), Dinero.of(new BigDecimal("19.990")));
+        assertThrows(IllegalArgumentException.class, () -> Dinero.of(new BigDecimal("19.995")));
+    }
+}
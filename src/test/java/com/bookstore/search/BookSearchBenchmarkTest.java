@@ -0,0 +1,110 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara la búsqueda en el índice en memoria con un LIKE '%q%' sobre la tabla books, con un
+ * catálogo de un millón de títulos. Informa el tiempo por tipo de consulta: palabra + número
+ * (selectiva), palabra sola y palabra + autor (miles de documentos cada término) y con errata.
+ * Solo se ejecuta a pedido y necesita más heap que el de surefire por defecto:
+ * mvn test -Dbenchmark=true -Dtest=BookSearchBenchmarkTest -DargLine=-Xmx3g
+ * (tamaño del catálogo con -Dbenchmark.books=N).
+ */
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookSearchBenchmarkTest {
+    private static final String[] PALABRAS = {"amor", "guerra", "sombra", "viento", "ciudad", "noche", "mar",
+            "historia", "secreto", "camino", "jardin", "tiempo", "fuego", "silencio", "memoria", "reino"};
+    private static final String[] AUTORES = {"Garcia", "Allende", "Borges", "Cortazar", "Rulfo", "Neruda",
+            "Vargas", "Fuentes", "Onetti", "Bolano", "Mastretta", "Esquivel"};
+    private static final int CONSULTAS = 200;
+    private static final int RONDAS_CALENTAMIENTO = 20;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void indexVersusLike() {
+        int libros = Integer.getInteger("benchmark.books", 1_000_000);
+        Random random = new Random(42);
+        BookSearchIndex index = new BookSearchIndex();
+
+        jdbcTemplate.batchUpdate("insert into books (id, title, author, price_centavos, stock, version) values (?, ?, ?, 1000, 1, 0)",
+                new ArrayList<>(IntStream.rangeClosed(1, libros).mapToObj(id -> {
+                    String title = PALABRAS[random.nextInt(PALABRAS.length)] + " " + PALABRAS[random.nextInt(PALABRAS.length)]
+                            + " " + id;
+                    String author = AUTORES[random.nextInt(AUTORES.length)] + " " + AUTORES[random.nextInt(AUTORES.length)];
+                    Book book = new Book(title, author, Dinero.of("10.0"), 1);
+                    book.setId((long) id);
+                    index.index(book);
+                    return new Object[]{id, title, author};
+                }).toList()));
+
+        Map<String, List<String>> porTipo = new LinkedHashMap<>();
+        porTipo.put("palabra+número", IntStream.range(0, CONSULTAS)
+                .mapToObj(i -> palabra(random) + " " + (1 + random.nextInt(libros))).toList());
+        porTipo.put("palabra", IntStream.range(0, CONSULTAS).mapToObj(i -> palabra(random)).toList());
+        porTipo.put("palabra+autor", IntStream.range(0, CONSULTAS)
+                .mapToObj(i -> palabra(random) + " " + AUTORES[random.nextInt(AUTORES.length)]).toList());
+        porTipo.put("con errata", IntStream.range(0, CONSULTAS)
+                .mapToObj(i -> conErrata(palabra(random), random) + " " + AUTORES[random.nextInt(AUTORES.length)]).toList());
+
+        for (int ronda = 0; ronda < RONDAS_CALENTAMIENTO; ronda++) { // calentamiento del JIT
+            porTipo.values().forEach(consultas -> consultas.forEach(q -> index.search(q, 10)));
+        }
+
+        StringBuilder tiempos = new StringBuilder();
+        for (Map.Entry<String, List<String>> tipo : porTipo.entrySet()) {
+            long inicio = System.nanoTime();
+            for (String q : tipo.getValue()) {
+                List<BookSearchResult> result = index.search(q, 10);
+                assertFalse(result.isEmpty(), q);
+            }
+            double ms = (System.nanoTime() - inicio) / 1_000_000.0 / CONSULTAS;
+            tiempos.append(String.format(" %s=%.3f", tipo.getKey(), ms));
+        }
+
+        // el LIKE solo con las selectivas: las de palabras frecuentes encuentran sus 10 filas enseguida
+        List<String> consultas = porTipo.get("palabra+número");
+        long inicio = System.nanoTime();
+        for (String q : consultas) {
+            String numero = q.substring(q.indexOf(' ') + 1);
+            jdbcTemplate.queryForList("select id from books where lower(title) like ? or lower(author) like ? limit 10",
+                    Long.class, "%" + numero + "%", "%" + numero + "%");
+        }
+        double likeMs = (System.nanoTime() - inicio) / 1_000_000.0 / CONSULTAS;
+
+        System.out.printf("[benchmark búsqueda] libros=%d consultas=%d por tipo | índice (ms/consulta):%s | LIKE=%.3f ms/consulta%n",
+                libros, CONSULTAS, tiempos, likeMs);
+    }
+
+    private static String palabra(Random random) {
+        return PALABRAS[random.nextInt(PALABRAS.length)];
+    }
+
+    // intercambia dos letras contiguas (para las palabras de 3 letras no hay búsqueda con errata)
+    private static String conErrata(String palabra, Random random) {
+        if (palabra.length() < BookSearchIndex.MIN_FUZZY_LENGTH) return palabra;
+        int i = random.nextInt(palabra.length() - 1);
+        char[] letras = palabra.toCharArray();
+        char letra = letras[i];
+        letras[i] = letras[i + 1];
+        letras[i + 1] = letra;
+        return new String(letras);
+    }
+}
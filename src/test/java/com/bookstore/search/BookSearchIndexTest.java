@@ -0,0 +1,125 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    private static Book book(long id, String title, String author) {
+        Book book = new Book(title, author, Dinero.of("10.0"), 1);
+        book.setId(id);
+        return book;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.index(book(1L, "Clean Code", "Robert C. Martin"));
+        index.index(book(2L, "Refactoring", "Martin Fowler"));
+        index.index(book(3L, "El nombre del viento", "Patrick Rothfuss"));
+        index.index(book(4L, "Cien años de soledad", "Gabriel García Márquez"));
+    }
+
+    @Test
+    void exactMatchIgnoresCaseAndAccents() {
+        List<BookSearchResult> result = index.search("GARCIA marquez", 10);
+
+        assertEquals(1, result.size());
+        assertEquals(4L, result.get(0).id());
+    }
+
+    @Test
+    void prefixMatch() {
+        assertEquals(2L, index.search("refac", 10).get(0).id());
+    }
+
+    @Test
+    void toleratesOneTypo() {
+        assertEquals(3L, index.search("rothfus", 10).get(0).id());   // borrado
+        assertEquals(1L, index.search("claen", 10).get(0).id());     // transposición
+        assertEquals(2L, index.search("fowlex", 10).get(0).id());    // sustitución
+    }
+
+    @Test
+    void titleMatchRanksAboveAuthorMatch() {
+        index.index(book(5L, "Martin Eden", "Jack London"));
+
+        List<BookSearchResult> result = index.search("martin", 10);
+
+        assertEquals(3, result.size());
+        assertEquals(5L, result.get(0).id());
+    }
+
+    @Test
+    void onlyDocumentsMatchingAllTermsWhenAny() {
+        List<BookSearchResult> result = index.search("martin clean", 10);
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).id());
+    }
+
+    @Test
+    void fallsBackToPartialMatchesRankedByCoverage() {
+        List<BookSearchResult> result = index.search("clean fowler", 10);
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).id()); // coincide en el título
+        assertEquals(2L, result.get(1).id());
+    }
+
+    @Test
+    void limitsResults() {
+        assertEquals(1, index.search("martin", 1).size());
+    }
+
+    @Test
+    void reindexReplacesOldTerms() {
+        index.index(book(2L, "Patterns of Enterprise Application Architecture", "Martin Fowler"));
+
+        assertTrue(index.search("refactoring", 10).isEmpty());
+        assertEquals(2L, index.search("enterprise", 10).get(0).id());
+    }
+
+    @Test
+    void removeDropsDocument() {
+        index.remove(3L);
+
+        assertTrue(index.search("viento", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    // el recorrido se corta con k resultados en la mejor puntuación posible: los títulos (ids altos) deben
+    // ganar a los autores aunque estos aparezcan antes, y al quitarlos el bonus deja de ser alcanzable
+    @Test
+    void frequentTermKeepsRankingWhenScanStopsEarly() {
+        for (long id = 10; id < 60; id++) index.index(book(id, "Otro libro " + id, "Ana Sombra"));
+        index.index(book(70L, "La sombra del viento", "Carlos Ruiz Zafón"));
+        index.index(book(80L, "Sombras", "Anónimo"));
+
+        List<BookSearchResult> result = index.search("sombra", 2);
+        assertEquals(List.of(70L, 10L), result.stream().map(BookSearchResult::id).toList());
+
+        index.remove(70L);
+        assertEquals(List.of(10L, 11L), index.search("sombra", 2).stream().map(BookSearchResult::id).toList());
+    }
+
+    @Test
+    void oneTypoMeansDamerauDistanceOne() {
+        assertTrue(BookSearchIndex.unaErrata("martin", "martn"));
+        assertTrue(BookSearchIndex.unaErrata("martn", "martin"));
+        assertTrue(BookSearchIndex.unaErrata("martin", "martim"));
+        assertTrue(BookSearchIndex.unaErrata("martin", "amrtin"));
+        assertFalse(BookSearchIndex.unaErrata("martin", "martin"));
+        assertFalse(BookSearchIndex.unaErrata("martin", "mratni"));
+        assertFalse(BookSearchIndex.unaErrata("martin", "mart"));
+        assertFalse(BookSearchIndex.unaErrata("martin", "maxtix"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.ImportProgress;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.search.BookSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "bookstore.import.chunk-size=2")
+@Import({BookImportService.class, BookService.class, ShardedStockService.class, ReadCache.class, BookSearchIndex.class, ObjectMapper.class, CambiosCatalogo.class})
+class BookImportServiceTest {
+
+    @Autowired
+    BookImportService bookImportService;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    BookSearchIndex bookSearchIndex;
+    @Autowired
+    EntityManager entityManager;
+
+    private ImportProgress importar(String id, BookImportService.Formato formato, String contenido) {
+        ImportProgress progreso = bookImportService.importar(id, formato,
+                new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)));
+        entityManager.clear();
+        return progreso;
+    }
+
+    @Test
+    void csvImportReportsRowErrorsWithoutAborting() {
+        String csv = """
+                title,author,price,stock
+                Clean Code,Robert C. Martin,45.0,3
+                "Patterns, Principles",Scott Millett,30.5,1
+                Sin precio,Autor,-1,3
+                Mal formada,Autor,abc,3
+                ,Autor,10,1
+                Refactoring,Martin Fowler,50,2
+                """;
+
+        ImportProgress progreso = importar(null, BookImportService.Formato.CSV, csv);
+
+        assertEquals("COMPLETADA", progreso.estado());
+        assertEquals(6, progreso.filasLeidas());
+        assertEquals(3, progreso.filasImportadas());
+        assertEquals(3, progreso.filasConError());
+        assertEquals(List.of(4L, 5L, 6L), progreso.errores().stream().map(ImportProgress.ImportError::linea).toList());
+        assertEquals(3, bookRepository.count());
+        assertTrue(bookRepository.findAll().stream().anyMatch(b -> b.getTitle().equals("Patterns, Principles")));
+        assertEquals(1, bookSearchIndex.search("refactoring", 10).size());
+    }
+
+    @Test
+    void ndjsonImportUpsertsById() {
+        Book existente = bookRepository.save(new Book("Titulo viejo", "Autor", Dinero.of("10.0"), 1));
+
+        String ndjson = "{\"id\":" + existente.getId() + ",\"title\":\"Titulo nuevo\",\"author\":\"Autor\",\"price\":12.5,\"stock\":7}\n"
+                + "{\"title\":\"Otro\",\"author\":\"Autor\",\"price\":9.9,\"stock\":2}\n"
+                + "{no es json}\n";
+
+        ImportProgress progreso = importar("carga-1", BookImportService.Formato.NDJSON, ndjson);
+
+        assertEquals(2, progreso.filasImportadas());
+        assertEquals(1, progreso.filasConError());
+        Book actualizado = bookRepository.findById(existente.getId()).orElseThrow();
+        assertEquals("Titulo nuevo", actualizado.getTitle());
+        assertEquals(7, actualizado.getStock());
+        assertEquals(2, bookRepository.count());
+        assertEquals("carga-1", bookImportService.getProgreso("carga-1").id());
+    }
+
+    // sin transacción de test: cada bloque (y cada reintento fila a fila) confirma o se revierte por su cuenta
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void rowRejectedByTheDatabaseIsReportedAndTheRestOfItsChunkIsSaved() {
+        String csv = "title,author,price,stock\n"
+                + "Antes,Autor,10,1\n"
+                + "x".repeat(300) + ",Autor,10,1\n"
+                + "Después,Autor,10,1\n";
+        try {
+            ImportProgress progreso = importar(null, BookImportService.Formato.CSV, csv);
+
+            assertEquals(2, progreso.filasImportadas());
+            assertEquals(1, progreso.filasConError());
+            ImportProgress.ImportError error = progreso.errores().get(0);
+            assertEquals(3L, error.linea());
+            assertTrue(error.error().startsWith("Error al guardar la fila: "), error.error());
+            assertEquals(List.of("Antes", "Después"), bookRepository.findAll().stream().map(Book::getTitle).sorted().toList());
+            assertEquals(1, bookSearchIndex.search("antes", 10).size());
+        } finally {
+            bookRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void csvFieldsSupportQuotes() {
+        assertEquals(List.of("a,b", "dice \"hola\"", "3"), BookImportService.camposCsv("\"a,b\",\"dice \"\"hola\"\"\",3"));
+    }
+}
@@ -1,15 +1,22 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.ReadCache;
+import com.bookstore.events.CambiosCatalogo;
 import com.bookstore.exception.BadRequestException;
 import com.bookstore.exception.ResourceNotFoundException;
 import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.search.BookSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +28,18 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private CambiosCatalogo cambiosCatalogo;
+
+    @Spy
+    private ReadCache readCache = new ReadCache(100, Duration.ofMinutes(10), Duration.ofSeconds(5));
+
+    @Spy
+    private BookSearchIndex bookSearchIndex = new BookSearchIndex();
+
     @InjectMocks
     private BookService bookService;
 
@@ -31,14 +50,14 @@ class BookServiceTest {
 
     @Test
     void saveBookPriceMustBePositive() {
-        Book invalidBook = new Book("Titulo", "Autor", -5.0, 3);
+        Book invalidBook = new Book("Titulo", "Autor", Dinero.of("-5.0"), 3);
         assertThrows(BadRequestException.class, () -> bookService.saveBook(invalidBook));
         verify(bookRepository, never()).save(any(Book.class));
     }
 
     @Test
     void saveBookSuccessfully() {
-        Book book = new Book("Titulo", "Autor", 10.0, 5);
+        Book book = new Book("Titulo", "Autor", Dinero.of("10.0"), 5);
         when(bookRepository.save(any(Book.class))).thenReturn(book);
 
         Book saved = bookService.saveBook(book);
@@ -46,13 +65,13 @@ class BookServiceTest {
         assertNotNull(saved);
         assertEquals("Titulo", saved.getTitle());
         assertEquals("Autor", saved.getAuthor());
-        assertEquals(10.0, saved.getPrice());
+        assertEquals(Dinero.of("10.00"), saved.getPrice());
         assertEquals(5, saved.getStock());
     }
 
     @Test
     void saveBookWithDifferentStock() {
-        Book book = new Book("Otro titulo", "Otro autor", 20.0, 0);
+        Book book = new Book("Otro titulo", "Otro autor", Dinero.of("20.0"), 0);
         when(bookRepository.save(any(Book.class))).thenReturn(book);
 
         Book saved = bookService.saveBook(book);
@@ -63,7 +82,7 @@ class BookServiceTest {
 
     @Test
     void getByIdFound() {
-        Book book = new Book("Titulo", "Autor", 10.0, 5);
+        Book book = new Book("Titulo", "Autor", Dinero.of("10.0"), 5);
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
 
         Book found = bookService.getById(1L);
@@ -87,13 +106,14 @@ class BookServiceTest {
         bookService.deleteById(1L);
 
         verify(bookRepository, times(1)).deleteById(1L);
+        verify(cambiosCatalogo).libroCambiado(1L);
     }
 
     @Test
     void getAllBooksTest() {
         List<Book> books = List.of(
-                new Book("Libro1", "Autor1", 15.0, 2),
-                new Book("Libro2", "Autor2", 20.0, 5)
+                new Book("Libro1", "Autor1", Dinero.of("15.0"), 2),
+                new Book("Libro2", "Autor2", Dinero.of("20.0"), 5)
         );
         when(bookRepository.findAll()).thenReturn(books);
 
@@ -106,21 +126,21 @@ class BookServiceTest {
 
     @Test
     void saveBookStockMustBeNonNegative() {
-        Book invalidBook = new Book("Titulo", "Autor", 10.0, -1);
+        Book invalidBook = new Book("Titulo", "Autor", Dinero.of("10.0"), -1);
         assertThrows(BadRequestException.class, () -> bookService.saveBook(invalidBook));
         verify(bookRepository, never()).save(any(Book.class));
     }
 
     @Test
     void saveBookTitleMustNotBeEmpty() {
-        Book invalidBook = new Book("", "Autor", 10.0, 5);
+        Book invalidBook = new Book("", "Autor", Dinero.of("10.0"), 5);
         assertThrows(BadRequestException.class, () -> bookService.saveBook(invalidBook));
         verify(bookRepository, never()).save(any(Book.class));
     }
 
     @Test
     void saveBookAuthorMustNotBeEmpty() {
-        Book invalidBook = new Book("Titulo", "", 10.0, 5);
+        Book invalidBook = new Book("Titulo", "", Dinero.of("10.0"), 5);
         assertThrows(BadRequestException.class, () -> bookService.saveBook(invalidBook));
         verify(bookRepository, never()).save(any(Book.class));
     }
@@ -130,4 +150,108 @@ class BookServiceTest {
         assertThrows(BadRequestException.class, () -> bookService.saveBook(null));
         verify(bookRepository, never()).save(any(Book.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPageUsesCursorAndSize() {
+        List<Book> books = List.of(new Book("Libro3", "Autor3", Dinero.of("15.0"), 2));
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(10))).thenReturn(books);
+
+        List<Book> result = bookService.getPage(2L, 10);
+
+        assertEquals(1, result.size());
+        assertEquals("Libro3", result.get(0).getTitle());
+    }
+
+    @Test
+    void getPageSizeIsCapped() {
+        bookService.getPage(0L, 100_000);
+        verify(bookRepository).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(BookService.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    void getPageRejectsInvalidSize() {
+        assertThrows(BadRequestException.class, () -> bookService.getPage(0L, 0));
+        verify(bookRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void getByIdIsServedFromCache() {
+        Book book = new Book("Titulo", "Autor", Dinero.of("10.0"), 5);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        bookService.getById(1L);
+        Book cached = bookService.getById(1L);
+
+        assertEquals("Titulo", cached.getTitle());
+        assertEquals(5, cached.getStock());
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void etagsChangeWhenBookOrItsStockChanges() {
+        String libro = bookService.etagLibro(1L);
+        String otro = bookService.etagLibro(2L);
+        String catalogo = bookService.etagCatalogo();
+        assertEquals(libro, bookService.etagLibro(1L));
+
+        readCache.evictStock(1L);
+        assertNotEquals(libro, bookService.etagLibro(1L));
+        assertEquals(otro, bookService.etagLibro(2L));
+        assertNotEquals(catalogo, bookService.etagCatalogo());
+
+        catalogo = bookService.etagCatalogo();
+        Book book = new Book("Titulo", "Autor", Dinero.of("10.0"), 5);
+        book.setId(2L);
+        when(bookRepository.save(book)).thenReturn(book);
+        bookService.saveBook(book);
+        assertNotEquals(otro, bookService.etagLibro(2L));
+        assertNotEquals(catalogo, bookService.etagCatalogo());
+    }
+
+    @Test
+    void getByIdReloadsOnlyStockWhenStockEvicted() {
+        Book book = new Book("Titulo", "Autor", Dinero.of("10.0"), 5);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(3));
+
+        bookService.getById(1L);
+        readCache.evictStock(1L);
+        Book found = bookService.getById(1L);
+
+        assertEquals(3, found.getStock());
+        verify(bookRepository, times(1)).findById(1L);
+        verify(bookRepository, times(1)).findStockById(1L);
+    }
+
+    @Test
+    void saveBookEvictsCachedBook() {
+        Book book = new Book("Titulo", "Autor", Dinero.of("10.0"), 5);
+        book.setId(1L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        bookService.getById(1L);
+        bookService.saveBook(book);
+        bookService.getById(1L);
+
+        verify(bookRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void saveAndDeleteKeepSearchIndexInSync() {
+        Book book = new Book("Cien años de soledad", "Gabriel García Márquez", Dinero.of("30.0"), 5);
+        book.setId(7L);
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        bookService.saveBook(book);
+        assertEquals(7L, bookService.search("soledad", 10).get(0).id());
+
+        bookService.deleteById(7L);
+        assertTrue(bookService.search("soledad", 10).isEmpty());
+    }
+
+    @Test
+    void searchRequiresQuery() {
+        assertThrows(BadRequestException.class, () -> bookService.search(" ", 10));
+    }
+}
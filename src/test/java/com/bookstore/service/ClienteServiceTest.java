@@ -1,5 +1,7 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.AltaClientes;
 import com.bookstore.exception.BadRequestException;
 import com.bookstore.model.Cliente;
 import com.bookstore.repository.ClienteRepository;
@@ -7,11 +9,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
-@Import(ClienteService.class)
+@Import({ClienteService.class, ReadCache.class})
 class ClienteServiceTest {
 
     @Autowired
@@ -46,4 +53,58 @@ class ClienteServiceTest {
         assertEquals("Lucero", fromDb.getNombre());
         assertEquals("lucero@mail.com", fromDb.getEmail());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateKeepingSameEmailIsNotADuplicate() {
+        Cliente c = clienteService.saveCliente(new Cliente("Juan", "juan@mail.com"));
+        c.setNombre("Juan Carlos");
+
+        Cliente actualizado = clienteService.saveCliente(c);
+
+        assertEquals(c.getId(), actualizado.getId());
+        assertEquals("Juan Carlos", clienteRepository.findById(c.getId()).orElseThrow().getNombre());
+    }
+
+    // sin la transacción del test: el lote y su reintento fila a fila confirman de verdad (se limpia al final)
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void bulkSignupSkipsDuplicatesFromDatabaseRequestAndConcurrentInserts() {
+        try {
+            altaMasivaConDuplicados();
+        } finally {
+            clienteRepository.deleteAll();
+        }
+    }
+
+    private void altaMasivaConDuplicados() {
+        clienteService.cargarEmails();
+        clienteService.saveCliente(new Cliente("Ana", "ana@mail.com"));
+        // insertado sin pasar por el servicio: el filtro no lo conoce, como un alta concurrente en otra instancia
+        clienteRepository.save(new Cliente("Beto", "beto@mail.com"));
+
+        AltaClientes alta = clienteService.saveClientes(Arrays.asList(
+                new Cliente("Ana bis", "ana@mail.com"),
+                new Cliente("Beto bis", "beto@mail.com"),
+                new Cliente("Carla", "carla@mail.com"),
+                new Cliente("Carla bis", "carla@mail.com"),
+                new Cliente("Dani", "dani@mail.com"),
+                new Cliente("Sin email", null)));
+
+        assertEquals(2, alta.creados());
+        assertEquals(1, alta.invalidos());
+        assertEquals(List.of("ana@mail.com", "beto@mail.com", "carla@mail.com"), alta.duplicados().stream().sorted().toList());
+        assertEquals(4, clienteRepository.count());
+        assertTrue(clienteRepository.findByEmail("dani@mail.com").isPresent());
+
+        // lo insertado por el alta masiva ya está en el filtro y la restricción sigue decidiendo
+        assertThrows(BadRequestException.class, () -> clienteService.saveCliente(new Cliente("Otra Carla", "carla@mail.com")));
+    }
+
+    @Test
+    void bulkSignupRejectsEmptyOrOversizedRequests() {
+        assertThrows(BadRequestException.class, () -> clienteService.saveClientes(List.of()));
+        List<Cliente> demasiados = java.util.stream.IntStream.rangeClosed(0, ClienteService.MAX_ALTAS)
+                .mapToObj(i -> new Cliente("C" + i, "c" + i + "@mail.com")).toList();
+        assertThrows(BadRequestException.class, () -> clienteService.saveClientes(demasiados));
+    }
+}
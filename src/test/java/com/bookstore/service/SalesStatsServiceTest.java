@@ -0,0 +1,185 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.VentaRequest;
+import com.bookstore.dto.VentaStats;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.bookstore.model.VentaAgregado;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaAgregadoRepository;
+import com.bookstore.repository.VentaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// sin transacción de test: los agregados se actualizan al confirmar cada venta
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({VentaService.class, StockReservationService.class, ShardedStockService.class, SalesStatsService.class, ReadCache.class, CambiosCatalogo.class, ObjectMapper.class})
+class SalesStatsServiceTest {
+
+    @Autowired
+    VentaRepository ventaRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ClienteRepository clienteRepository;
+    @Autowired
+    VentaAgregadoRepository agregadoRepository;
+    @Autowired
+    VentaService ventaService;
+    @Autowired
+    SalesStatsService salesStatsService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private Book barato;
+    private Book caro;
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        barato = bookRepository.save(new Book("Barato", "Autor", Dinero.of("10.0"), 100));
+        caro = bookRepository.save(new Book("Caro", "Autor", Dinero.of("45.5"), 100));
+        cliente = clienteRepository.save(new Cliente("Stats", "stats@test.com"));
+        salesStatsService.reconstruir();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ventaRepository.deleteAll();
+        agregadoRepository.deleteAll();
+        bookRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    @Test
+    void salesUpdateTopBooksRevenueAndClientTotals() {
+        ventaService.registrarVenta(cliente.getId(), barato.getId(), 3);
+        ventaService.registrarVentas(List.of(
+                new VentaRequest(cliente.getId(), caro.getId(), 2),
+                new VentaRequest(cliente.getId(), barato.getId(), 1)));
+
+        List<VentaStats.TopLibro> top = salesStatsService.topLibros(10);
+        assertEquals(List.of(
+                new VentaStats.TopLibro(barato.getId(), 4, 4000),
+                new VentaStats.TopLibro(caro.getId(), 2, 9100)), top);
+        assertEquals(1, salesStatsService.topLibros(1).size());
+
+        LocalDate hoy = LocalDate.now();
+        assertEquals(List.of(new VentaStats.IngresoDiario(hoy, 6, 13100)),
+                salesStatsService.ingresosPorDia(hoy.minusDays(7), hoy));
+        assertEquals(new VentaStats.TotalCliente(cliente.getId(), 6, 13100), salesStatsService.totalCliente(cliente.getId()));
+        assertEquals(new VentaStats.TotalCliente(999L, 0, 0), salesStatsService.totalCliente(999L));
+    }
+
+    // el top se ordena fuera de la venta mezclando el anterior con lo vendido después: tras varias mezclas
+    // con más libros que MAX_TOP debe coincidir con ordenar todos los totales
+    @Test
+    void topMergedAfterSalesMatchesFullSort() {
+        Random random = new Random(7);
+        Map<Long, Long> unidades = new HashMap<>();
+        for (int ronda = 0; ronda < 5; ronda++) {
+            for (int i = 0; i < 300; i++) {
+                long libroId = 1_000 + random.nextInt(2 * SalesStatsService.MAX_TOP);
+                int cantidad = 1 + random.nextInt(5);
+                salesStatsService.sumar(libroId, cliente.getId(), LocalDate.now().toEpochDay(), cantidad, cantidad * 100L);
+                unidades.merge(libroId, (long) cantidad, Long::sum);
+            }
+            List<Long> esperado = unidades.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(SalesStatsService.MAX_TOP).map(Map.Entry::getKey).toList();
+            assertEquals(esperado, salesStatsService.topLibros(SalesStatsService.MAX_TOP).stream()
+                    .map(VentaStats.TopLibro::libroId).toList());
+        }
+    }
+
+    @Test
+    void rejectedSaleIsNotCounted() {
+        assertThrows(BadRequestException.class, () -> ventaService.registrarVenta(cliente.getId(), barato.getId(), 500));
+
+        assertTrue(salesStatsService.topLibros(10).isEmpty());
+        assertEquals(0, salesStatsService.totalCliente(cliente.getId()).unidades());
+    }
+
+    @Test
+    void flushPersistsAndRebuildMatchesIncrementalTotals() {
+        ventaService.registrarVenta(cliente.getId(), barato.getId(), 2);
+        ventaService.registrarVenta(cliente.getId(), caro.getId(), 1);
+        List<VentaStats.TopLibro> incremental = salesStatsService.topLibros(10);
+
+        salesStatsService.flush();
+        VentaAgregado fila = agregadoRepository.findById(new VentaAgregado.Clave(VentaAgregado.Tipo.CLIENTE, cliente.getId()))
+                .orElseThrow();
+        assertEquals(3, fila.getUnidades());
+        assertEquals(6550, fila.getIngresoCentavos());
+
+        salesStatsService.reconstruir();
+        assertEquals(incremental, salesStatsService.topLibros(10));
+        assertEquals(3, salesStatsService.totalCliente(cliente.getId()).unidades());
+    }
+
+    @Test
+    void flushAddsWhatWasSoldWithoutOverwritingOtherInstances() {
+        ventaService.registrarVenta(cliente.getId(), barato.getId(), 2);
+        salesStatsService.flush();
+        // otra instancia vuelca sus ventas en la misma fila
+        jdbcTemplate.update("update ventas_agregados set unidades = unidades + 5, ingreso_centavos = ingreso_centavos + 5000 "
+                + "where tipo = 'CLIENTE' and clave = ?", cliente.getId());
+        ventaService.registrarVenta(cliente.getId(), caro.getId(), 1);
+        salesStatsService.flush();
+        salesStatsService.flush();
+
+        VentaAgregado fila = agregadoRepository.findById(new VentaAgregado.Clave(VentaAgregado.Tipo.CLIENTE, cliente.getId()))
+                .orElseThrow();
+        assertEquals(2 + 5 + 1, fila.getUnidades());
+        assertEquals(2000 + 5000 + 4550, fila.getIngresoCentavos());
+        assertEquals(1, agregadoRepository.findById(new VentaAgregado.Clave(VentaAgregado.Tipo.LIBRO, caro.getId()))
+                .orElseThrow().getUnidades());
+    }
+
+    @Test
+    void revenueUsesPriceCapturedAtSaleTime() {
+        ventaService.registrarVenta(cliente.getId(), caro.getId(), 2);
+        Book actualizado = bookRepository.findById(caro.getId()).orElseThrow();
+        actualizado.setPrice(Dinero.of("99.99"));
+        bookRepository.save(actualizado);
+        ventaService.registrarVenta(cliente.getId(), caro.getId(), 1);
+
+        salesStatsService.reconstruir();
+
+        assertEquals(2 * 4550 + 9999, salesStatsService.totalCliente(cliente.getId()).ingresoCentavos());
+        assertEquals(List.of(4550L, 9999L), ventaRepository.findAll().stream()
+                .map(Venta::getPrecioUnitarioCentavos).sorted().toList());
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        LocalDate hoy = LocalDate.now();
+        assertThrows(BadRequestException.class, () -> salesStatsService.topLibros(0));
+        assertThrows(BadRequestException.class, () -> salesStatsService.topLibros(SalesStatsService.MAX_TOP + 1));
+        assertThrows(BadRequestException.class, () -> salesStatsService.ingresosPorDia(hoy, hoy.minusDays(1)));
+        assertThrows(BadRequestException.class, () -> salesStatsService.ingresosPorDia(hoy.minusDays(400), hoy));
+    }
+}
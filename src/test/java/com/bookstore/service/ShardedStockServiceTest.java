@@ -0,0 +1,120 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.StockShard;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.StockShardRepository;
+import com.bookstore.search.BookSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@Import({ShardedStockService.class, BookService.class, ReadCache.class, BookSearchIndex.class, CambiosCatalogo.class, ObjectMapper.class})
+class ShardedStockServiceTest {
+    @Autowired
+    ShardedStockService shardedStockService;
+    @Autowired
+    BookService bookService;
+    @Autowired
+    BookRepository bookRepository;
+    @SpyBean
+    StockShardRepository stockShardRepository;
+    @Autowired
+    EntityManager entityManager;
+
+    private Long libroId;
+
+    @BeforeEach
+    void setUp() {
+        libroId = bookRepository.save(new Book("Éxito", "Autor", Dinero.of("10.0"), 10)).getId();
+        shardedStockService.repartir(libroId, 4);
+        entityManager.clear();
+    }
+
+    private List<Integer> shards() {
+        entityManager.flush();
+        entityManager.clear();
+        return stockShardRepository.findForUpdate(libroId).stream().map(StockShard::getStock).toList();
+    }
+
+    private Book libro() {
+        return bookRepository.findById(libroId).orElseThrow();
+    }
+
+    @Test
+    void stockIsSplitAcrossShardsAndReportedAsSum() {
+        assertEquals(List.of(3, 3, 2, 2), shards());
+        assertEquals(0, libro().getStock());
+        assertEquals(4, libro().getStockShards());
+        assertEquals(10, bookRepository.findStockById(libroId).orElseThrow());
+        assertEquals(10, bookService.getById(libroId).getStock());
+        assertEquals(10, bookService.getPage(0, 10).get(0).getStock());
+    }
+
+    @Test
+    void saleTakesFromOneShardOrSpansSeveralWhenNoneIsEnough() {
+        assertTrue(shardedStockService.descontar(libro(), 2));
+        assertEquals(8, shards().stream().mapToInt(Integer::intValue).sum());
+
+        // 7 no cabe en ningún shard: se reparte entre varios
+        assertTrue(shardedStockService.descontar(libro(), 7));
+        assertEquals(1, shards().stream().mapToInt(Integer::intValue).sum());
+
+        assertFalse(shardedStockService.descontar(libro(), 2));
+        assertEquals(1, bookRepository.findStockById(libroId).orElseThrow());
+    }
+
+    @Test
+    void saleUpdatesOnlyAShardThatCoversIt() {
+        // [3, 3, 2, 2]: solo los dos primeros cubren 3, y luego solo el que quede
+        assertTrue(shardedStockService.descontar(libro(), 3));
+        assertTrue(shardedStockService.descontar(libro(), 3));
+        assertEquals(List.of(0, 0, 2, 2), shards());
+
+        // ningún UPDATE condicional sobre un shard que no alcanza (bloquearía la fila en MySQL)
+        verify(stockShardRepository, times(2)).decrementar(eq(libroId.longValue()), anyInt(), eq(3));
+        verify(stockShardRepository, never()).decrementar(anyLong(), intThat(shard -> shard > 1), eq(3));
+    }
+
+    @Test
+    void disablingShardsMovesTotalBackToBookRow() {
+        assertTrue(shardedStockService.descontar(libro(), 3));
+        shardedStockService.repartir(libroId, 0);
+
+        assertEquals(List.of(), shards());
+        assertEquals(7, libro().getStock());
+        assertEquals(0, libro().getStockShards());
+        assertThrows(BadRequestException.class, () -> shardedStockService.repartir(libroId, ShardedStockService.MAX_SHARDS + 1));
+    }
+
+    @Test
+    void editingShardedBookKeepsShardsAndReplacesTotal() {
+        Book edicion = new Book("Éxito (2ª ed.)", "Autor", Dinero.of("12.0"), 20);
+        edicion.setId(libroId);
+        edicion.setVersion(libro().getVersion());
+        entityManager.clear();
+
+        Book guardado = bookService.saveBook(edicion);
+
+        assertEquals(20, guardado.getStock());
+        assertEquals(List.of(5, 5, 5, 5), shards());
+        assertEquals(4, libro().getStockShards());
+        assertEquals(20, bookRepository.findStockById(libroId).orElseThrow());
+    }
+}
@@ -0,0 +1,129 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Varios hilos compran el mismo libro (SKU caliente) a la vez.
+ * Se comprueba que nunca se vende más que el stock inicial y se informa el throughput.
+ */
+@SpringBootTest
+class StockReservationStressTest {
+    private static final int THREADS = 8;
+    private static final int COMPRAS_POR_HILO = 50;
+    private static final int STOCK_INICIAL = 150;
+
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ClienteRepository clienteRepository;
+    @Autowired
+    VentaRepository ventaRepository;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ReadCache readCache;
+    @Autowired
+    SalesStatsService salesStatsService;
+    @Autowired
+    ShardedStockService shardedStockService;
+    @Autowired
+    CambiosCatalogo cambiosCatalogo;
+
+    @AfterEach
+    void cleanUp() {
+        ventaRepository.deleteAll();
+        bookRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @EnumSource(StockReservationService.Mode.class)
+    void concurrentSalesNeverOversell(StockReservationService.Mode mode) throws Exception {
+        vender(mode, 0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StockReservationService.Mode.class)
+    void concurrentSalesOnShardedStockNeverOversell(StockReservationService.Mode mode) throws Exception {
+        vender(mode, 4);
+    }
+
+    private void vender(StockReservationService.Mode mode, int shards) throws Exception {
+        Book book = bookRepository.save(new Book("Hot SKU", "Autor", Dinero.of("10.0"), STOCK_INICIAL));
+        if (shards > 0) shardedStockService.repartir(book.getId(), shards);
+        Cliente cliente = clienteRepository.save(new Cliente("Stress", "stress-" + mode + shards + "@test.com"));
+
+        StockReservationService reservas = new StockReservationService(bookRepository, entityManager, readCache, shardedStockService,
+                mode.name(), 10);
+        VentaService ventaService = new VentaService(ventaRepository, bookRepository, clienteRepository, reservas,
+                salesStatsService, cambiosCatalogo, transactionManager);
+
+        AtomicInteger vendidas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tareas.add(pool.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < COMPRAS_POR_HILO; i++) {
+                    try {
+                        ventaService.registrarVenta(cliente.getId(), book.getId(), 1);
+                        vendidas.incrementAndGet();
+                    } catch (BadRequestException e) {
+                        rechazadas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long start = System.nanoTime();
+        inicio.countDown();
+        for (Future<?> tarea : tareas) tarea.get(60, TimeUnit.SECONDS);
+        long elapsedNanos = System.nanoTime() - start;
+        pool.shutdown();
+
+        int stockFinal = bookRepository.findStockById(book.getId()).orElseThrow();
+        assertTrue(stockFinal >= 0, "stock negativo: " + stockFinal);
+        assertEquals(STOCK_INICIAL, vendidas.get() + stockFinal, "stock descontado != ventas registradas");
+        assertEquals(vendidas.get(), ventaRepository.count());
+        assertEquals(THREADS * COMPRAS_POR_HILO, vendidas.get() + rechazadas.get());
+        if (mode == StockReservationService.Mode.ATOMIC || shards > 0) {
+            assertEquals(STOCK_INICIAL, vendidas.get()); // sin reintentos: todo el stock se vende
+        }
+
+        double segundos = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("[stress %s shards=%d] hilos=%d intentos=%d vendidas=%d rechazadas=%d -> %.0f intentos/s%n",
+                mode, shards, THREADS, THREADS * COMPRAS_POR_HILO, vendidas.get(), rechazadas.get(),
+                THREADS * COMPRAS_POR_HILO / segundos);
+    }
+}
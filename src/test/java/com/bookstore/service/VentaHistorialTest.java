@@ -0,0 +1,175 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.VentaResumen;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.exception.BadRequestException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.bookstore.service.VentaHistorialTest$SqlCapturado")
+@Import({VentaService.class, StockReservationService.class, ShardedStockService.class, SalesStatsService.class, ReadCache.class, CambiosCatalogo.class, ObjectMapper.class})
+class VentaHistorialTest {
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+
+    @Autowired
+    VentaRepository ventaRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ClienteRepository clienteRepository;
+    @Autowired
+    VentaService ventaService;
+    @Autowired
+    EntityManager entityManager;
+
+    private Cliente ana;
+    private Cliente luis;
+    private Book libro;
+    private Book otro;
+
+    @BeforeEach
+    void setUp() {
+        ana = clienteRepository.save(new Cliente("Ana", "ana@test.com"));
+        luis = clienteRepository.save(new Cliente("Luis", "luis@test.com"));
+        libro = bookRepository.save(new Book("Libro", "Autor", Dinero.of("10.0"), 100));
+        otro = bookRepository.save(new Book("Otro", "Autor", Dinero.of("12.0"), 100));
+        // 3 días x 4 ventas; dos ventas por día comparten la misma fecha (empate resuelto por id)
+        for (int d = 0; d < 3; d++) {
+            LocalDateTime fecha = DIA.plusDays(d).atTime(12, 0);
+            venta(ana, libro, fecha);
+            venta(ana, otro, fecha);
+            venta(luis, libro, fecha.plusHours(1));
+            venta(ana, libro, fecha.plusHours(2));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void venta(Cliente cliente, Book book, LocalDateTime fecha) {
+        Venta venta = new Venta(cliente, book, 1);
+        venta.setFecha(fecha);
+        ventaRepository.save(venta);
+    }
+
+    @Test
+    void filtersByClientBookAndInclusiveDateRange() {
+        List<VentaResumen> deAna = ventaService.getHistorial(ana.getId(), null, null, null, null, 100);
+        assertEquals(9, deAna.size());
+        assertTrue(deAna.stream().allMatch(v -> v.clienteId().equals(ana.getId())));
+
+        List<VentaResumen> anaLibro = ventaService.getHistorial(ana.getId(), libro.getId(), DIA, DIA.plusDays(1), null, 100);
+        assertEquals(4, anaLibro.size());
+        assertTrue(anaLibro.stream().allMatch(v -> v.libroId().equals(libro.getId())
+                && !v.fecha().toLocalDate().isAfter(DIA.plusDays(1))));
+
+        assertEquals(4, ventaService.getHistorial(null, null, DIA.plusDays(2), DIA.plusDays(2), null, 100).size());
+        assertTrue(ventaService.getHistorial(null, null, DIA.minusDays(5), DIA.minusDays(1), null, 100).isEmpty());
+    }
+
+    @Test
+    void keysetPaginationWalksNewestFirstWithoutGapsOrDuplicates() {
+        List<VentaResumen> todas = new ArrayList<>();
+        String cursor = null;
+        List<VentaResumen> page;
+        do {
+            page = ventaService.getHistorial(null, null, null, null, cursor, 5);
+            todas.addAll(page);
+            if (!page.isEmpty()) cursor = VentaService.cursor(page.get(page.size() - 1));
+        } while (page.size() == 5);
+
+        assertEquals(12, todas.size());
+        assertEquals(12, todas.stream().map(VentaResumen::id).distinct().count());
+        for (int i = 1; i < todas.size(); i++) {
+            VentaResumen anterior = todas.get(i - 1), actual = todas.get(i);
+            assertTrue(anterior.fecha().isAfter(actual.fecha())
+                    || (anterior.fecha().equals(actual.fecha()) && anterior.id() > actual.id()));
+        }
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(BadRequestException.class, () -> ventaService.getHistorial(null, null, null, null, null, 0));
+        assertThrows(BadRequestException.class, () -> ventaService.getHistorial(null, null, DIA, DIA.minusDays(1), null, 10));
+        assertThrows(BadRequestException.class, () -> ventaService.getHistorial(null, null, null, null, "basura", 10));
+    }
+
+    // el plan de la consulta que genera Hibernate (capturada con SqlCapturado, con cursor de página) debe
+    // resolverse con el índice compuesto de cada filtro, no recorriendo la tabla
+    @Test
+    void generatedHistoryQueriesUseCompositeIndexes() {
+        VentaResumen ultimaAna = ventaService.getHistorial(ana.getId(), null, DIA, null, null, 2).get(1);
+        String porCliente = sqlDe(() -> ventaService.getHistorial(ana.getId(), null, DIA, null, VentaService.cursor(ultimaAna), 2));
+        assertPlanUsa("IDX_VENTAS_CLIENTE_FECHA", porCliente,
+                ana.getId(), DIA.atStartOfDay(), ultimaAna.fecha(), ultimaAna.fecha(), ultimaAna.id(), 2);
+
+        VentaResumen ultimaLibro = ventaService.getHistorial(null, libro.getId(), null, null, null, 2).get(1);
+        String porLibro = sqlDe(() -> ventaService.getHistorial(null, libro.getId(), null, null, VentaService.cursor(ultimaLibro), 2));
+        assertPlanUsa("IDX_VENTAS_LIBRO_FECHA", porLibro,
+                libro.getId(), ultimaLibro.fecha(), ultimaLibro.fecha(), ultimaLibro.id(), 2);
+
+        VentaResumen ultimaDia = ventaService.getHistorial(null, null, DIA, DIA, null, 2).get(1);
+        String porFecha = sqlDe(() -> ventaService.getHistorial(null, null, DIA, DIA, VentaService.cursor(ultimaDia), 2));
+        assertPlanUsa("IDX_VENTAS_FECHA", porFecha,
+                DIA.atStartOfDay(), DIA.plusDays(1).atStartOfDay(), ultimaDia.fecha(), ultimaDia.fecha(), ultimaDia.id(), 2);
+    }
+
+    // la única consulta sobre ventas que ejecutó la llamada
+    private static String sqlDe(Runnable llamada) {
+        SqlCapturado.SQL.clear();
+        llamada.run();
+        List<String> consultas = SqlCapturado.SQL.stream().filter(sql -> sql.toLowerCase().contains("from ventas")).toList();
+        assertEquals(1, consultas.size(), consultas::toString);
+        return consultas.get(0);
+    }
+
+    // EXPLAIN de la consulta tal cual, con sus parámetros en el orden en que aparecen
+    private void assertPlanUsa(String indice, String sql, Object... parametros) {
+        assertEquals(parametros.length, sql.chars().filter(c -> c == '?').count(), sql);
+        String plan = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < parametros.length; i++) explain.setObject(i + 1, parametros[i]);
+                try (ResultSet rs = explain.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1).toUpperCase();
+                }
+            }
+        });
+        assertTrue(plan.contains(indice), plan);
+    }
+
+    public static class SqlCapturado implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.ReadCache;
+import com.bookstore.dto.VentaResumen;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.model.Book;
+import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
+import com.bookstore.model.Venta;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ClienteRepository;
+import com.bookstore.repository.VentaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// el listado de ventas debe costar un número fijo de consultas, sin importar cuántos clientes/libros haya
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({VentaService.class, StockReservationService.class, ShardedStockService.class, SalesStatsService.class, ReadCache.class, CambiosCatalogo.class, ObjectMapper.class})
+class VentaQueryCountTest {
+
+    @Autowired
+    VentaRepository ventaRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ClienteRepository clienteRepository;
+    @Autowired
+    VentaService ventaService;
+    @Autowired
+    EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Cliente cliente = clienteRepository.save(new Cliente("Cliente" + i, "cliente" + i + "@test.com"));
+            Book book = bookRepository.save(new Book("Libro" + i, "Autor" + i, Dinero.centavos(1000 + 100L * i), 10));
+            ventaRepository.save(new Venta(cliente, book, 1));
+            ventaRepository.save(new Venta(cliente, book, 2));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void historialUsesSingleQuery() {
+        List<VentaResumen> historial = ventaService.getHistorial(null, null, null, null, null, 20);
+
+        assertEquals(10, historial.size());
+        historial.forEach(v -> assertNotNull(v.clienteNombre() + v.libroTitulo()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void entityListingFetchesAssociationsInSameQuery() {
+        List<Venta> ventas = ventaService.getAllVentas();
+        ventas.forEach(v -> assertNotNull(v.getCliente().getNombre() + v.getLibro().getTitle()));
+
+        assertEquals(10, ventas.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
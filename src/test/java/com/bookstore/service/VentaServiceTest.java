@@ -1,13 +1,21 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.ReadCache;
+import com.bookstore.events.CambiosCatalogo;
+import com.bookstore.search.BookSearchIndex;
+import com.bookstore.dto.VentaRequest;
 import com.bookstore.exception.BadRequestException;
 import com.bookstore.exception.ResourceNotFoundException;
 import com.bookstore.model.Book;
 import com.bookstore.model.Cliente;
+import com.bookstore.model.Dinero;
 import com.bookstore.model.Venta;
 import com.bookstore.repository.BookRepository;
 import com.bookstore.repository.ClienteRepository;
 import com.bookstore.repository.VentaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +27,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
-@Import({VentaService.class, ClienteService.class, BookService.class})
+@Import({VentaService.class, ClienteService.class, BookService.class, ShardedStockService.class, StockReservationService.class, SalesStatsService.class, ReadCache.class, BookSearchIndex.class, CambiosCatalogo.class, ObjectMapper.class})
 class VentaServiceTest {
 
     @Autowired
@@ -37,7 +45,7 @@ class VentaServiceTest {
     @BeforeEach
     void setUp() {
         // Creamos un libro con stock = 2
-        book = new Book("Clean Code", "Robert C. Martin", 45.0, 2);
+        book = new Book("Clean Code", "Robert C. Martin", Dinero.of("45.0"), 2);
         bookRepository.save(book);
 
         // Creamos un cliente
@@ -113,4 +121,58 @@ class VentaServiceTest {
         assertThrows(ResourceNotFoundException.class, () ->
                 ventaService.getById(999L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void batchSaleReducesStockOncePerBook() {
+        Book otro = bookRepository.save(new Book("Refactoring", "Martin Fowler", Dinero.of("50.0"), 5));
+
+        List<Venta> ventas = ventaService.registrarVentas(List.of(
+                new VentaRequest(cliente.getId(), otro.getId(), 2),
+                new VentaRequest(cliente.getId(), book.getId(), 1),
+                new VentaRequest(cliente.getId(), otro.getId(), 3)));
+
+        assertEquals(3, ventas.size());
+        ventas.forEach(v -> assertNotNull(v.getId()));
+        assertEquals(0, bookRepository.findById(otro.getId()).get().getStock());
+        assertEquals(1, bookRepository.findById(book.getId()).get().getStock());
+    }
+
+    @Test
+    void batchSaleFailsIfAnyBookNotFound() {
+        assertThrows(ResourceNotFoundException.class, () -> ventaService.registrarVentas(List.of(
+                new VentaRequest(cliente.getId(), book.getId(), 1),
+                new VentaRequest(cliente.getId(), 999L, 1))));
+        assertEquals(0, ventaRepository.count());
+    }
+
+    @Test
+    void batchSaleRejectsEmptyOrInvalidLines() {
+        assertThrows(BadRequestException.class, () -> ventaService.registrarVentas(List.of()));
+        assertThrows(BadRequestException.class, () -> ventaService.registrarVentas(List.of(
+                new VentaRequest(cliente.getId(), book.getId(), 0))));
+    }
+
+    @Test
+    void batchSaleCannotExceedStockAcrossLines() {
+        assertThrows(BadRequestException.class, () -> ventaService.registrarVentas(List.of(
+                new VentaRequest(cliente.getId(), book.getId(), 1),
+                new VentaRequest(cliente.getId(), book.getId(), 2))));
+    }
+
+    @Test
+    void salesAreTimedAndOversellIsCounted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            ventaService.registrarVenta(cliente.getId(), book.getId(), 1);
+            assertThrows(BadRequestException.class, () ->
+                    ventaService.registrarVenta(cliente.getId(), book.getId(), 5));
+
+            assertEquals(1, registry.get("bookstore.ventas.registrar").tag("operacion", "individual").tag("resultado", "ok").timer().count());
+            assertEquals(1, registry.get("bookstore.ventas.registrar").tag("operacion", "individual").tag("resultado", "error").timer().count());
+            assertEquals(1.0, registry.get("bookstore.ventas.rechazadas").counter().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+}